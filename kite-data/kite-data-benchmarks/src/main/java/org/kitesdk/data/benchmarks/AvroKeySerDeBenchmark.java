@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.kitesdk.data.PartitionKey;
+import org.kitesdk.data.hbase.avro.AvroKeyEntitySchemaParser;
+import org.kitesdk.data.hbase.avro.AvroKeySchema;
+import org.kitesdk.data.hbase.avro.AvroKeySerDe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link AvroKeySerDe}, which serializes the row key of every HBase
+ * get, put, delete, and scan bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class AvroKeySerDeBenchmark {
+
+  private AvroKeySerDe keySerDe;
+  private PartitionKey key;
+  private byte[] keyBytes;
+
+  @Setup
+  public void setUp() {
+    AvroKeySchema keySchema = new AvroKeyEntitySchemaParser()
+        .parseKeySchema(EntitySchemas.ENTITY_SCHEMA);
+    keySerDe = new AvroKeySerDe(keySchema.getAvroSchema(),
+        keySchema.getPartitionStrategy());
+    key = keySchema.getPartitionStrategy().partitionKey(
+        EntitySchemas.ID, EntitySchemas.NAME);
+    keyBytes = keySerDe.serialize(key);
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return keySerDe.serialize(key);
+  }
+
+  @Benchmark
+  public byte[] serializePartial() {
+    return keySerDe.serialize(EntitySchemas.ID);
+  }
+
+  @Benchmark
+  public PartitionKey deserialize() {
+    return keySerDe.deserialize(keyBytes);
+  }
+}
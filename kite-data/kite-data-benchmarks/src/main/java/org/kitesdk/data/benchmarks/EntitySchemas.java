@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.kitesdk.data.SchemaNotFoundException;
+import org.kitesdk.data.hbase.avro.AvroKeyEntitySchemaParser;
+import org.kitesdk.data.hbase.impl.EntitySchema;
+import org.kitesdk.data.hbase.impl.KeySchema;
+import org.kitesdk.data.hbase.impl.SchemaManager;
+
+/**
+ * The entity used by the HBase benchmarks, and a {@link SchemaManager} that
+ * serves its schema from memory so that no HBase cluster is needed.
+ */
+final class EntitySchemas {
+
+  static final String TABLE_NAME = "benchmarks";
+  static final String ENTITY_NAME = "BenchmarkEntity";
+
+  static final long ID = 123456789L;
+  static final String NAME = "benchmark-entity";
+
+  static final String ENTITY_SCHEMA = "{ \"name\": \"" + ENTITY_NAME + "\", "
+      + "\"type\": \"record\", "
+      + "\"fields\": [ "
+      + "{ \"name\": \"id\", \"type\": \"long\", "
+      + "    \"mapping\": { \"type\": \"key\", \"value\": \"0\" } }, "
+      + "{ \"name\": \"name\", \"type\": \"string\", "
+      + "    \"mapping\": { \"type\": \"key\", \"value\": \"1\" } }, "
+      + "{ \"name\": \"count\", \"type\": \"long\", "
+      + "    \"mapping\": { \"type\": \"column\", \"value\": \"meta:count\" } }, "
+      + "{ \"name\": \"description\", \"type\": \"string\", "
+      + "    \"mapping\": { \"type\": \"column\", \"value\": \"meta:description\" } }, "
+      + "{ \"name\": \"tags\", \"type\": { \"type\": \"map\", \"values\": \"string\" }, "
+      + "    \"mapping\": { \"type\": \"keyAsColumn\", \"value\": \"tags:\" } }, "
+      + "{ \"name\": \"scores\", \"type\": { \"type\": \"array\", \"items\": \"int\" }, "
+      + "    \"mapping\": { \"type\": \"column\", \"value\": \"meta:scores\" } } "
+      + "]}";
+
+  private EntitySchemas() {
+  }
+
+  static GenericRecord newEntity() {
+    Schema schema = new Schema.Parser().parse(ENTITY_SCHEMA);
+    GenericRecord entity = new GenericData.Record(schema);
+    entity.put("id", ID);
+    entity.put("name", NAME);
+    entity.put("count", 42L);
+    entity.put("description", "an entity with a few columns of each kind");
+    Map<String, String> tags = ImmutableMap.of(
+        "color", "blue", "size", "large", "shape", "round");
+    entity.put("tags", tags);
+    List<Integer> scores = ImmutableList.of(3, 1, 4, 1, 5, 9, 2, 6);
+    entity.put("scores", scores);
+    return entity;
+  }
+
+  /**
+   * A {@link SchemaManager} that knows only the benchmark entity, at version 0.
+   */
+  static class SingleSchemaManager implements SchemaManager {
+    private final AvroKeyEntitySchemaParser parser =
+        new AvroKeyEntitySchemaParser();
+    private final KeySchema keySchema = parser.parseKeySchema(ENTITY_SCHEMA);
+    private final EntitySchema entitySchema =
+        parser.parseEntitySchema(ENTITY_SCHEMA);
+
+    @Override
+    public boolean hasManagedSchema(String tableName, String entityName) {
+      return TABLE_NAME.equals(tableName) && ENTITY_NAME.equals(entityName);
+    }
+
+    @Override
+    public KeySchema getKeySchema(String tableName, String entityName) {
+      check(tableName, entityName);
+      return keySchema;
+    }
+
+    @Override
+    public EntitySchema getEntitySchema(String tableName, String entityName) {
+      check(tableName, entityName);
+      return entitySchema;
+    }
+
+    @Override
+    public EntitySchema getEntitySchema(String tableName, String entityName,
+                                        int version) {
+      check(tableName, entityName);
+      if (version != 0) {
+        throw new SchemaNotFoundException("No schema version " + version);
+      }
+      return entitySchema;
+    }
+
+    @Override
+    public Map<Integer, EntitySchema> getEntitySchemas(String tableName,
+                                                       String entityName) {
+      check(tableName, entityName);
+      return ImmutableMap.of(0, entitySchema);
+    }
+
+    @Override
+    public int getEntityVersion(String tableName, String entityName,
+                                EntitySchema schema) {
+      check(tableName, entityName);
+      return 0;
+    }
+
+    @Override
+    public boolean hasSchemaVersion(String tableName, String entityName,
+                                    EntitySchema version) {
+      return hasManagedSchema(tableName, entityName);
+    }
+
+    @Override
+    public void refreshManagedSchemaCache(String tableName, String entityName) {
+    }
+
+    @Override
+    public void createSchema(String tableName, String entityName,
+                             String entitySchemaStr, String schemaType,
+                             String keySerDeType, String entitySerDeType) {
+      throw new UnsupportedOperationException("Schemas are fixed");
+    }
+
+    @Override
+    public void migrateSchema(String tableName, String entityName,
+                              String newSchema) {
+      throw new UnsupportedOperationException("Schemas are fixed");
+    }
+
+    @Override
+    public void deleteSchema(String tableName, String entityName) {
+      throw new UnsupportedOperationException("Schemas are fixed");
+    }
+
+    @Override
+    public List<String> getEntityNames(String tableName) {
+      return TABLE_NAME.equals(tableName) ?
+          ImmutableList.of(ENTITY_NAME) : ImmutableList.<String>of();
+    }
+
+    private void check(String tableName, String entityName) {
+      if (!hasManagedSchema(tableName, entityName)) {
+        throw new SchemaNotFoundException(
+            "No schema for " + tableName + ", " + entityName);
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.benchmarks;
+
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.kitesdk.data.hbase.avro.VersionedAvroEntityMapper;
+import org.kitesdk.data.hbase.impl.PutAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures both halves of an entity's round trip through
+ * {@link VersionedAvroEntityMapper}: mapping an entity to a put, and mapping
+ * the row that the put writes back to an entity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class VersionedAvroEntityMapperBenchmark {
+
+  private VersionedAvroEntityMapper<GenericRecord> mapper;
+  private GenericRecord entity;
+  private Result result;
+
+  @Setup
+  public void setUp() {
+    mapper = new VersionedAvroEntityMapper.Builder()
+        .setSchemaManager(new EntitySchemas.SingleSchemaManager())
+        .setTableName(EntitySchemas.TABLE_NAME)
+        .setEntityName(EntitySchemas.ENTITY_NAME)
+        .setSpecific(false)
+        .setGenericSchemaString(EntitySchemas.ENTITY_SCHEMA)
+        .<GenericRecord>build();
+    entity = EntitySchemas.newEntity();
+
+    // the row as HBase would return it after the put
+    List<KeyValue> row = Lists.newArrayList();
+    for (List<KeyValue> family :
+        mapper.mapFromEntity(entity).getPut().getFamilyMap().values()) {
+      row.addAll(family);
+    }
+    Collections.sort(row, KeyValue.COMPARATOR);
+    result = new Result(row);
+  }
+
+  @Benchmark
+  public PutAction mapFromEntity() {
+    return mapper.mapFromEntity(entity);
+  }
+
+  @Benchmark
+  public GenericRecord mapToEntity() {
+    return mapper.mapToEntity(result);
+  }
+}
@@ -23,15 +23,10 @@ import org.kitesdk.data.spi.partition.HourFieldPartitioner;
 import org.kitesdk.data.spi.partition.MinuteFieldPartitioner;
 import org.kitesdk.data.spi.partition.MonthFieldPartitioner;
 import org.kitesdk.data.spi.partition.PartitionFunctions;
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
-import java.util.Locale;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
-import org.apache.avro.generic.GenericRecord;
 
 import org.kitesdk.data.impl.Accessor;
 import org.kitesdk.data.spi.partition.HashFieldPartitioner;
@@ -40,6 +35,7 @@ import org.kitesdk.data.spi.partition.IntRangeFieldPartitioner;
 import org.kitesdk.data.spi.partition.RangeFieldPartitioner;
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
+import org.kitesdk.data.spi.FieldAccessors;
 import org.kitesdk.data.spi.FieldPartitioner;
 import org.kitesdk.data.spi.partition.YearFieldPartitioner;
 import org.slf4j.Logger;
@@ -173,25 +169,7 @@ public class PartitionStrategy {
     for (int i = 0; i < fieldPartitioners.size(); i++) {
       FieldPartitioner fp = fieldPartitioners.get(i);
       String name = fp.getSourceName();
-      Object value;
-      if (entity instanceof GenericRecord) {
-        value = ((GenericRecord) entity).get(name);
-      } else {
-        try {
-          PropertyDescriptor propertyDescriptor = new PropertyDescriptor(name,
-              entity.getClass(), getter(name), null /* assume read only */);
-          value = propertyDescriptor.getReadMethod().invoke(entity);
-        } catch (IllegalAccessException e) {
-          throw new RuntimeException("Cannot read property " + name + " from "
-              + entity, e);
-        } catch (InvocationTargetException e) {
-          throw new RuntimeException("Cannot read property " + name + " from "
-              + entity, e);
-        } catch (IntrospectionException e) {
-          throw new RuntimeException("Cannot read property " + name + " from "
-              + entity, e);
-        }
-      }
+      Object value = FieldAccessors.get(entity, name);
       key.set(i, fp.apply(value));
     }
     return key;
@@ -207,10 +185,6 @@ public class PartitionStrategy {
     return new PartitionKey(fieldPartitioners.size());
   }
 
-  private String getter(String name) {
-    return "get" + name.substring(0, 1).toUpperCase(Locale.ENGLISH) + name.substring(1);
-  }
-
   /**
    * Return a {@link PartitionStrategy} for subpartitions starting at the given
    * index.
@@ -25,6 +25,7 @@ import org.kitesdk.data.View;
 import org.kitesdk.data.filesystem.impl.Accessor;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputFormat;
 
 final class AccessorImpl extends Accessor {
 
@@ -62,4 +63,15 @@ final class AccessorImpl extends Accessor {
     return null;
   }
 
+  @Override
+  public <E> InputFormat<E, Void> combineSplits(
+      InputFormat<E, Void> format, long splitSize) {
+    if (format instanceof FileSystemDatasetKeyInputFormat) {
+      return ((FileSystemDatasetKeyInputFormat<E>) format)
+          .withCombineSplitSize(splitSize);
+    }
+    throw new UnsupportedOperationException(
+        "Cannot combine splits of InputFormat: " + format);
+  }
+
 }
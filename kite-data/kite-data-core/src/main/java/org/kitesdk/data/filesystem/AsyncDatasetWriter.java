@@ -0,0 +1,284 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.DatasetWriterException;
+import org.kitesdk.data.spi.ReaderWriterState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DatasetWriter} that hands entities to a background thread, which
+ * writes them to another {@code DatasetWriter}.
+ *
+ * {@link #write(Object)} adds entities to a buffer of
+ * {@code kite.writer.async-buffer-size} entities and only blocks when that
+ * buffer is full. The background thread moves all buffered entities to a
+ * second buffer at once and writes them, so encoding, compression, and file
+ * system stalls happen off of the caller's thread.
+ *
+ * A failure in the background thread is thrown by the next call to
+ * {@code write}, {@code flush}, or {@code close}. {@code flush} and
+ * {@code close} wait until all entities written before the call have been
+ * written to the underlying writer. After a failure, {@code close} discards
+ * buffered entities and waits for the underlying writer to be closed.
+ *
+ * This writer is used when a dataset's descriptor sets
+ * {@code kite.writer.async} to true. Entities are written after
+ * {@code write} returns, so callers must not reuse entity objects.
+ */
+class AsyncDatasetWriter<E> implements DatasetWriter<E> {
+
+  private static final Logger logger = LoggerFactory
+      .getLogger(AsyncDatasetWriter.class);
+
+  public static final String ASYNC_PROPERTY = "kite.writer.async";
+  public static final String BUFFER_SIZE_PROPERTY =
+      "kite.writer.async-buffer-size";
+
+  public static final int DEFAULT_BUFFER_SIZE = 10000;
+
+  // how long close waits for the background thread after a failure
+  private static final long CLOSE_TIMEOUT_MS = 60000;
+
+  private final DatasetWriter<E> writer;
+  private final int bufferSize;
+  private final BlockingQueue<Object> buffer;
+  private Thread background = null;
+  private volatile Throwable failure = null;
+  private ReaderWriterState state;
+
+  public AsyncDatasetWriter(DatasetWriter<E> writer, int bufferSize) {
+    Preconditions.checkArgument(writer != null, "Writer cannot be null");
+    Preconditions.checkArgument(bufferSize > 0,
+        "Buffer size must be positive: %s", bufferSize);
+    this.writer = writer;
+    this.bufferSize = bufferSize;
+    this.buffer = new ArrayBlockingQueue<Object>(bufferSize);
+    this.state = ReaderWriterState.NEW;
+  }
+
+  /**
+   * Returns whether writers for datasets with the given descriptor should be
+   * wrapped in an {@code AsyncDatasetWriter}.
+   *
+   * @param descriptor a DatasetDescriptor
+   * @return true if {@code kite.writer.async} is true
+   */
+  static boolean isEnabled(DatasetDescriptor descriptor) {
+    return Boolean.parseBoolean(descriptor.getProperty(ASYNC_PROPERTY));
+  }
+
+  /**
+   * Returns the buffer size configured by a descriptor.
+   *
+   * @param descriptor a DatasetDescriptor
+   * @return the number of entities to buffer
+   */
+  static int bufferSize(DatasetDescriptor descriptor) {
+    return Math.max(1, DescriptorUtil.getInt(
+        descriptor, BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE));
+  }
+
+
+  @Override
+  public void open() {
+    Preconditions.checkState(state.equals(ReaderWriterState.NEW),
+        "Unable to open a writer from state:%s", state);
+
+    writer.open();
+
+    this.background = new Thread(new Drain(), "kite-async-writer");
+    background.setDaemon(true);
+    background.start();
+
+    this.state = ReaderWriterState.OPEN;
+  }
+
+  @Override
+  public void write(E entity) {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+        "Attempt to write to a writer in state:%s", state);
+    checkFailure();
+    put(entity);
+  }
+
+  @Override
+  public void flush() {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+        "Attempt to write to a writer in state:%s", state);
+    Marker flush = new Marker(false);
+    put(flush);
+    await(flush);
+    checkFailure();
+  }
+
+  @Override
+  public void close() {
+    if (state.equals(ReaderWriterState.OPEN)) {
+      Marker close = new Marker(true);
+      put(close);
+      await(close);
+      this.state = ReaderWriterState.CLOSED;
+      checkFailure();
+    } else if (state.equals(ReaderWriterState.ERROR)) {
+      // the background thread may still be running: discard the buffered
+      // entities and wait until it has closed the underlying writer. if it
+      // has already stopped, the writer is already closed.
+      buffer.clear();
+      buffer.offer(new Marker(true));
+      this.state = ReaderWriterState.CLOSED;
+      Uninterruptibles.joinUninterruptibly(
+          background, CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      if (background.isAlive()) {
+        throw new DatasetWriterException(
+            "Timed out waiting for background writer to close: " + writer);
+      }
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return state.equals(ReaderWriterState.OPEN);
+  }
+
+  private void put(Object item) {
+    try {
+      buffer.put(item);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      this.state = ReaderWriterState.ERROR;
+      throw new DatasetWriterException("Interrupted while writing", ex);
+    }
+  }
+
+  private void await(Marker marker) {
+    try {
+      marker.done.await();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      this.state = ReaderWriterState.ERROR;
+      throw new DatasetWriterException("Interrupted while writing", ex);
+    }
+  }
+
+  private void checkFailure() {
+    if (failure != null) {
+      if (state.equals(ReaderWriterState.OPEN)) {
+        this.state = ReaderWriterState.ERROR;
+      }
+      throw new DatasetWriterException(
+          "Failed to write in background: " + failure.getMessage(), failure);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("writer", writer)
+        .add("bufferSize", bufferSize)
+        .add("state", state)
+        .toString();
+  }
+
+  /**
+   * Requests a flush or close from the background thread.
+   */
+  private static class Marker {
+    private final boolean close;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private Marker(boolean close) {
+      this.close = close;
+    }
+  }
+
+  /**
+   * Moves buffered entities to a second buffer and writes them.
+   */
+  private class Drain implements Runnable {
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+      List<Object> batch = Lists.newArrayListWithCapacity(bufferSize);
+      while (true) {
+        try {
+          batch.add(buffer.take());
+        } catch (InterruptedException ex) {
+          logger.warn("Background writer interrupted, closing {}", writer);
+          fail(ex);
+          closeWriter();
+          return;
+        }
+        buffer.drainTo(batch);
+
+        for (Object item : batch) {
+          if (item instanceof Marker) {
+            Marker marker = (Marker) item;
+            if (marker.close) {
+              closeWriter();
+              marker.done.countDown();
+              return;
+            }
+            if (failure == null) {
+              try {
+                writer.flush();
+              } catch (Throwable t) {
+                fail(t);
+              }
+            }
+            marker.done.countDown();
+          } else if (failure == null) {
+            // after a failure, entities are discarded until the writer is closed
+            try {
+              writer.write((E) item);
+            } catch (Throwable t) {
+              fail(t);
+            }
+          }
+        }
+        batch.clear();
+      }
+    }
+
+    private void fail(Throwable t) {
+      if (failure == null) {
+        logger.debug("Background write failed", t);
+        failure = t;
+      }
+    }
+
+    private void closeWriter() {
+      try {
+        writer.close();
+      } catch (Throwable t) {
+        fail(t);
+      }
+    }
+  }
+}
@@ -80,6 +80,12 @@ class AvroAppender<E> implements FileSystemWriter.FileAppender<E> {
     dataFileWriter.append(entity);
   }
 
+  @Override
+  public long getPos() throws IOException {
+    // does not include the current, unfinished block
+    return out.getPos();
+  }
+
   @Override
   public void flush() throws IOException {
     dataFileWriter.flush();
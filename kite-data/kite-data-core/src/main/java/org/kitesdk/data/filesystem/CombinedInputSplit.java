@@ -0,0 +1,221 @@
+/**
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.filesystem;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * An {@link InputSplit} that groups several smaller splits, so that a single
+ * task reads them one after the other.
+ *
+ * The grouped splits must be {@link Writable}, like {@code FileSplit} and
+ * Parquet's {@code ParquetInputSplit}.
+ */
+class CombinedInputSplit extends InputSplit implements Writable {
+
+  // at most this many hosts are reported for a split combined across hosts
+  private static final int MAX_LOCATIONS = 3;
+
+  private List<InputSplit> splits;
+  private long length;
+  private String[] locations;
+
+  public CombinedInputSplit() {
+    // for deserialization
+    this.splits = Lists.newArrayList();
+    this.length = 0;
+    this.locations = new String[0];
+  }
+
+  CombinedInputSplit(List<InputSplit> splits, long length, String[] locations) {
+    this.splits = splits;
+    this.length = length;
+    this.locations = locations;
+  }
+
+  /**
+   * Returns the splits that this split combines, in the order they are read.
+   *
+   * @return a List of InputSplits
+   */
+  public List<InputSplit> getSplits() {
+    return splits;
+  }
+
+  @Override
+  public long getLength() {
+    return length;
+  }
+
+  @Override
+  public String[] getLocations() {
+    return locations;
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(splits.size());
+    for (InputSplit split : splits) {
+      Text.writeString(out, split.getClass().getName());
+      ((Writable) split).write(out);
+    }
+    out.writeLong(length);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    int numSplits = in.readInt();
+    this.splits = Lists.newArrayListWithCapacity(numSplits);
+    for (int i = 0; i < numSplits; i += 1) {
+      String className = Text.readString(in);
+      Class<?> splitClass;
+      try {
+        splitClass = Class.forName(className, true,
+            Objects.firstNonNull(
+                Thread.currentThread().getContextClassLoader(),
+                CombinedInputSplit.class.getClassLoader()));
+      } catch (ClassNotFoundException e) {
+        throw new IOException("Cannot load split class: " + className, e);
+      }
+      Writable split = (Writable) ReflectionUtils.newInstance(
+          splitClass, (Configuration) null);
+      split.readFields(in);
+      splits.add((InputSplit) split);
+    }
+    this.length = in.readLong();
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("length", length)
+        .add("splits", splits)
+        .toString();
+  }
+
+  /**
+   * Groups splits into {@code CombinedInputSplit}s of about {@code maxSize}
+   * bytes.
+   *
+   * Splits that are stored on the same host are grouped first, so that the
+   * combined split can be read locally. The splits that are left over are
+   * then grouped in their original order. A combined split may be larger
+   * than {@code maxSize} by less than the length of its last split.
+   *
+   * @param splits the InputSplits to combine
+   * @param maxSize the target size of combined splits, in bytes
+   * @return a List of CombinedInputSplits
+   */
+  static List<InputSplit> combine(List<InputSplit> splits, long maxSize)
+      throws IOException, InterruptedException {
+    Preconditions.checkArgument(maxSize > 0,
+        "Invalid combined split size: %s", maxSize);
+
+    Map<String, List<InputSplit>> splitsByHost = Maps.newLinkedHashMap();
+    for (InputSplit split : splits) {
+      for (String host : split.getLocations()) {
+        List<InputSplit> hostSplits = splitsByHost.get(host);
+        if (hostSplits == null) {
+          hostSplits = Lists.newArrayList();
+          splitsByHost.put(host, hostSplits);
+        }
+        hostSplits.add(split);
+      }
+    }
+
+    List<InputSplit> combined = Lists.newArrayList();
+    Set<InputSplit> assigned = Sets.newIdentityHashSet();
+
+    // node-local splits; partial groups are left for the next pass
+    for (Map.Entry<String, List<InputSplit>> entry : splitsByHost.entrySet()) {
+      List<InputSplit> group = Lists.newArrayList();
+      long size = 0;
+      for (InputSplit split : entry.getValue()) {
+        if (assigned.contains(split)) {
+          continue;
+        }
+        group.add(split);
+        size += split.getLength();
+        if (size >= maxSize) {
+          combined.add(new CombinedInputSplit(
+              group, size, new String[] {entry.getKey()}));
+          assigned.addAll(group);
+          group = Lists.newArrayList();
+          size = 0;
+        }
+      }
+    }
+
+    // everything else, preferring the hosts that store the most data
+    List<InputSplit> group = Lists.newArrayList();
+    long size = 0;
+    for (InputSplit split : splits) {
+      if (assigned.contains(split)) {
+        continue;
+      }
+      group.add(split);
+      size += split.getLength();
+      if (size >= maxSize) {
+        combined.add(new CombinedInputSplit(group, size, locations(group)));
+        group = Lists.newArrayList();
+        size = 0;
+      }
+    }
+    if (!group.isEmpty()) {
+      combined.add(new CombinedInputSplit(group, size, locations(group)));
+    }
+
+    return combined;
+  }
+
+  private static String[] locations(List<InputSplit> splits)
+      throws IOException, InterruptedException {
+    final Map<String, Long> bytesByHost = Maps.newHashMap();
+    for (InputSplit split : splits) {
+      for (String host : split.getLocations()) {
+        Long bytes = bytesByHost.get(host);
+        bytesByHost.put(host,
+            (bytes == null ? 0 : bytes) + split.getLength());
+      }
+    }
+    List<String> hosts = Lists.newArrayList(bytesByHost.keySet());
+    Collections.sort(hosts, new Comparator<String>() {
+      @Override
+      public int compare(String h1, String h2) {
+        return bytesByHost.get(h2).compareTo(bytesByHost.get(h1));
+      }
+    });
+    hosts = hosts.subList(0, Math.min(hosts.size(), MAX_LOCATIONS));
+    return hosts.toArray(new String[hosts.size()]);
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.avro.Schema;
+import org.kitesdk.data.spi.Constraints;
+import org.kitesdk.data.spi.StorageKey;
+import parquet.column.ColumnReader;
+import parquet.filter.RecordFilter;
+import parquet.filter.UnboundRecordFilter;
+
+/**
+ * A Parquet {@link UnboundRecordFilter} that tests {@link Constraints} field
+ * predicates against column values before a record is assembled.
+ *
+ * Only top-level fields with primitive types (or nullable primitive types) are
+ * checked by this filter. Records that pass must still be checked with the
+ * entity {@code Predicate} for the constraints.
+ */
+class ConstraintsRecordFilter implements UnboundRecordFilter {
+
+  private static final Set<Schema.Type> SUPPORTED_TYPES = ImmutableSet.of(
+      Schema.Type.BOOLEAN, Schema.Type.INT, Schema.Type.LONG,
+      Schema.Type.FLOAT, Schema.Type.DOUBLE, Schema.Type.STRING);
+
+  private final Map<String, Predicate> predicates;
+  private final Map<String, Schema.Type> types;
+
+  private ConstraintsRecordFilter(Map<String, Predicate> predicates,
+                                  Map<String, Schema.Type> types) {
+    this.predicates = predicates;
+    this.types = types;
+  }
+
+  /**
+   * Returns a filter for the constraints that are not already satisfied by the
+   * partition identified by {@code key}.
+   *
+   * @param schema the Schema of the entities read
+   * @param constraints the Constraints to filter by
+   * @param key a StorageKey for the file being read, or null
+   * @return an UnboundRecordFilter, or null if no constraints can be checked
+   */
+  @Nullable
+  static UnboundRecordFilter forConstraints(Schema schema,
+      Constraints constraints, @Nullable StorageKey key) {
+    ImmutableMap.Builder<String, Predicate> predicates = ImmutableMap.builder();
+    ImmutableMap.Builder<String, Schema.Type> types = ImmutableMap.builder();
+    boolean empty = true;
+    for (Map.Entry<String, Predicate> entry :
+        constraints.toFieldPredicates(key).entrySet()) {
+      Schema.Field field = schema.getField(entry.getKey());
+      if (field == null) {
+        continue;
+      }
+      Schema.Type type = primitiveType(field.schema());
+      if (type != null) {
+        predicates.put(entry.getKey(), entry.getValue());
+        types.put(entry.getKey(), type);
+        empty = false;
+      }
+    }
+    if (empty) {
+      return null;
+    }
+    return new ConstraintsRecordFilter(predicates.build(), types.build());
+  }
+
+  @Nullable
+  private static Schema.Type primitiveType(Schema schema) {
+    if (Schema.Type.UNION == schema.getType()) {
+      // only nullable types are stored as a single column
+      List<Schema> types = schema.getTypes();
+      if (types.size() != 2) {
+        return null;
+      }
+      if (Schema.Type.NULL == types.get(0).getType()) {
+        return primitiveType(types.get(1));
+      } else if (Schema.Type.NULL == types.get(1).getType()) {
+        return primitiveType(types.get(0));
+      }
+      return null;
+    }
+    return SUPPORTED_TYPES.contains(schema.getType()) ? schema.getType() : null;
+  }
+
+  @Override
+  public RecordFilter bind(Iterable<ColumnReader> readers) {
+    List<ColumnReader> columns = Lists.newArrayList();
+    List<Predicate> columnPredicates = Lists.newArrayList();
+    List<Schema.Type> columnTypes = Lists.newArrayList();
+    for (ColumnReader reader : readers) {
+      String[] path = reader.getDescriptor().getPath();
+      // a column that is missing from this file is left to the entity check
+      if (path.length == 1 && predicates.containsKey(path[0])) {
+        columns.add(reader);
+        columnPredicates.add(predicates.get(path[0]));
+        columnTypes.add(types.get(path[0]));
+      }
+    }
+    return new BoundFilter(columns, columnPredicates, columnTypes);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this).addValue(predicates).toString();
+  }
+
+  private static class BoundFilter implements RecordFilter {
+    private final ColumnReader[] columns;
+    private final Predicate[] predicates;
+    private final Schema.Type[] types;
+
+    private BoundFilter(List<ColumnReader> columns, List<Predicate> predicates,
+                        List<Schema.Type> types) {
+      this.columns = columns.toArray(new ColumnReader[columns.size()]);
+      this.predicates = predicates.toArray(new Predicate[predicates.size()]);
+      this.types = types.toArray(new Schema.Type[types.size()]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean isMatch() {
+      for (int i = 0; i < columns.length; i += 1) {
+        Object value = currentValue(columns[i], types[i]);
+        // no constraint accepts null, and Range#apply rejects null values
+        if (value == null || !predicates[i].apply(value)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  @Nullable
+  private static Object currentValue(ColumnReader reader, Schema.Type type) {
+    if (reader.getCurrentDefinitionLevel() <
+        reader.getDescriptor().getMaxDefinitionLevel()) {
+      // the value is null
+      return null;
+    }
+    switch (type) {
+      case BOOLEAN:
+        return reader.getBoolean();
+      case INT:
+        return reader.getInteger();
+      case LONG:
+        return reader.getLong();
+      case FLOAT:
+        return reader.getFloat();
+      case DOUBLE:
+        return reader.getDouble();
+      case STRING:
+        return reader.getBinary().toStringUsingUTF8();
+      default:
+        throw new IllegalStateException("Unsupported type: " + type);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import org.kitesdk.data.DatasetDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads typed values of {@link DatasetDescriptor} properties.
+ *
+ * Values that cannot be parsed are logged and replaced by the default.
+ */
+class DescriptorUtil {
+
+  private static final Logger logger = LoggerFactory
+      .getLogger(DescriptorUtil.class);
+
+  private DescriptorUtil() {
+  }
+
+  static int getInt(DatasetDescriptor descriptor, String property,
+                    int defaultValue) {
+    String value = descriptor.getProperty(property);
+    if (value != null) {
+      try {
+        return Integer.valueOf(value);
+      } catch (NumberFormatException ex) {
+        logger.debug("Defaulting {}, failed to parse: {}", property, value);
+      }
+    }
+    return defaultValue;
+  }
+
+  static long getLong(DatasetDescriptor descriptor, String property,
+                      long defaultValue) {
+    String value = descriptor.getProperty(property);
+    if (value != null) {
+      try {
+        return Long.valueOf(value);
+      } catch (NumberFormatException ex) {
+        logger.debug("Defaulting {}, failed to parse: {}", property, value);
+      }
+    }
+    return defaultValue;
+  }
+
+  static boolean getBoolean(DatasetDescriptor descriptor, String property,
+                            boolean defaultValue) {
+    String value = descriptor.getProperty(property);
+    if (value != null) {
+      return Boolean.parseBoolean(value);
+    }
+    return defaultValue;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetException;
+import org.kitesdk.data.DatasetIOException;
+
+/**
+ * Lists the non-hidden contents of dataset directories.
+ *
+ * A lister is shared by a {@link FileSystemDataset} and all of its views, so
+ * partition planning for readers and for MapReduce input splits can reuse the
+ * same listings. Directories are listed concurrently by up to
+ * {@code kite.listing.threads} threads.
+ *
+ * Listings are cached for {@code kite.listing.cache-ttl-ms} milliseconds. The
+ * cache is disabled by default because cached listings will not include files
+ * written after the listing, until the entry expires.
+ */
+class DirectoryLister {
+
+  public static final String THREADS_PROPERTY = "kite.listing.threads";
+  public static final String CACHE_TTL_PROPERTY = "kite.listing.cache-ttl-ms";
+  public static final String CACHE_SIZE_PROPERTY = "kite.listing.cache-size";
+
+  public static final int DEFAULT_THREADS = 8;
+  public static final long DEFAULT_CACHE_TTL = 0;
+  public static final long DEFAULT_CACHE_SIZE = 10000;
+
+  private final FileSystem fs;
+  private final int threads;
+  private final long cacheTTL;
+  private final Cache<Path, FileStatus[]> cache;
+  private ThreadPoolExecutor pool = null;
+
+  DirectoryLister(FileSystem fs, DatasetDescriptor descriptor) {
+    this(fs,
+        DescriptorUtil.getInt(descriptor, THREADS_PROPERTY, DEFAULT_THREADS),
+        DescriptorUtil.getLong(descriptor, CACHE_TTL_PROPERTY,
+            DEFAULT_CACHE_TTL),
+        DescriptorUtil.getLong(descriptor, CACHE_SIZE_PROPERTY,
+            DEFAULT_CACHE_SIZE));
+  }
+
+  DirectoryLister(FileSystem fs, int threads, long cacheTTL, long cacheSize) {
+    this.fs = fs;
+    this.threads = Math.max(1, threads);
+    this.cacheTTL = cacheTTL;
+    if (cacheTTL > 0) {
+      this.cache = CacheBuilder.newBuilder()
+          .expireAfterWrite(cacheTTL, TimeUnit.MILLISECONDS)
+          .maximumSize(cacheSize)
+          .build();
+    } else {
+      this.cache = null;
+    }
+  }
+
+  /**
+   * Returns the number of directories that this lister will list at once.
+   *
+   * @return the number of listing threads
+   */
+  int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Lists the non-hidden contents of a directory.
+   *
+   * @param dir a directory Path
+   * @return the FileStatus of each non-hidden child of {@code dir}
+   * @throws DatasetIOException if the directory cannot be listed
+   */
+  FileStatus[] list(final Path dir) {
+    if (cache == null) {
+      return listStatus(dir);
+    }
+    try {
+      return cache.get(dir, new Callable<FileStatus[]>() {
+        @Override
+        public FileStatus[] call() {
+          return listStatus(dir);
+        }
+      });
+    } catch (ExecutionException ex) {
+      throw propagate(ex.getCause());
+    } catch (UncheckedExecutionException ex) {
+      throw propagate(ex.getCause());
+    }
+  }
+
+  /**
+   * Lists the non-hidden contents of several directories, concurrently.
+   *
+   * @param dirs a List of directory Paths
+   * @return a List of listings, in the same order as {@code dirs}
+   * @throws DatasetIOException if any directory cannot be listed
+   */
+  List<FileStatus[]> listAll(List<Path> dirs) {
+    List<FileStatus[]> listings = Lists.newArrayListWithCapacity(dirs.size());
+    if (threads < 2 || dirs.size() < 2) {
+      for (Path dir : dirs) {
+        listings.add(list(dir));
+      }
+      return listings;
+    }
+
+    ThreadPoolExecutor executor = pool();
+    List<Future<FileStatus[]>> futures =
+        Lists.newArrayListWithCapacity(dirs.size());
+    for (final Path dir : dirs) {
+      futures.add(executor.submit(new Callable<FileStatus[]>() {
+        @Override
+        public FileStatus[] call() {
+          return list(dir);
+        }
+      }));
+    }
+
+    try {
+      for (Future<FileStatus[]> future : futures) {
+        listings.add(future.get());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new DatasetException("Interrupted while listing directories", ex);
+    } catch (ExecutionException ex) {
+      throw propagate(ex.getCause());
+    } finally {
+      for (Future<FileStatus[]> future : futures) {
+        future.cancel(true);
+      }
+    }
+
+    return listings;
+  }
+
+  /**
+   * Removes all cached listings.
+   */
+  void invalidate() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  private synchronized ThreadPoolExecutor pool() {
+    if (pool == null) {
+      // idle threads are released so that unused listers do not hold threads
+      this.pool = new ThreadPoolExecutor(threads, threads,
+          60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("kite-listing-%d")
+              .build());
+      pool.allowCoreThreadTimeOut(true);
+    }
+    return pool;
+  }
+
+  private FileStatus[] listStatus(Path dir) {
+    try {
+      return fs.listStatus(dir, PathFilters.notHidden());
+    } catch (IOException ex) {
+      throw new DatasetIOException("Cannot list directory:" + dir, ex);
+    }
+  }
+
+  private static RuntimeException propagate(Throwable cause) {
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new DatasetException(cause);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("fs", fs)
+        .add("threads", threads)
+        .add("cacheTTL", cacheTTL)
+        .toString();
+  }
+}
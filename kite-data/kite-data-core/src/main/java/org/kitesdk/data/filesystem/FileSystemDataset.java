@@ -15,10 +15,16 @@
  */
 package org.kitesdk.data.filesystem;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetDescriptor;
@@ -32,6 +38,7 @@ import org.kitesdk.data.impl.Accessor;
 import org.kitesdk.data.spi.AbstractDataset;
 import org.kitesdk.data.spi.FieldPartitioner;
 import org.kitesdk.data.spi.Mergeable;
+import org.kitesdk.data.spi.Pair;
 import org.kitesdk.data.spi.PartitionListener;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
@@ -53,6 +60,9 @@ class FileSystemDataset<E> extends AbstractDataset<E> implements Mergeable<FileS
   private static final Logger logger = LoggerFactory
     .getLogger(FileSystemDataset.class);
 
+  public static final String MERGE_THREADS_PROPERTY = "kite.merge.threads";
+  public static final int DEFAULT_MERGE_THREADS = 8;
+
   private final FileSystem fileSystem;
   private final Path directory;
   private final String name;
@@ -64,6 +74,9 @@ class FileSystemDataset<E> extends AbstractDataset<E> implements Mergeable<FileS
 
   private final FileSystemView<E> unbounded;
 
+  // shared by all views so that partition listings can be reused
+  private final DirectoryLister lister;
+
   // reusable path converter, has no relevant state
   private final PathConversion convert;
 
@@ -79,6 +92,7 @@ class FileSystemDataset<E> extends AbstractDataset<E> implements Mergeable<FileS
         descriptor.isPartitioned() ? descriptor.getPartitionStrategy() : null;
     this.partitionListener = partitionListener;
     this.convert = new PathConversion();
+    this.lister = new DirectoryLister(fileSystem, descriptor);
 
     this.unbounded = new FileSystemView<E>(this);
     // remove this.partitionKey for 0.13.0
@@ -122,6 +136,10 @@ class FileSystemDataset<E> extends AbstractDataset<E> implements Mergeable<FileS
     return directory;
   }
 
+  DirectoryLister getDirectoryLister() {
+    return lister;
+  }
+
   PartitionListener getPartitionListener() {
     return partitionListener;
   }
@@ -287,37 +305,98 @@ class FileSystemDataset<E> extends AbstractDataset<E> implements Mergeable<FileS
           updateDescriptor.getFormat() + " with schema " + descriptor.getFormat());
     }
 
-    Set<String> addedPartitions = Sets.newHashSet();
+    // create the target directories first so that files can be renamed in
+    // any order
+    List<Pair<Path, Path>> renames = Lists.newArrayList();
+    Set<Path> partitionDirectories = Sets.newLinkedHashSet();
     for (Path path : update.pathIterator()) {
       URI relativePath = update.getDirectory().toUri().relativize(path.toUri());
       Path newPath = new Path(directory, new Path(relativePath));
-      Path newPartitionDirectory = newPath.getParent();
-      try {
-        if (!fileSystem.exists(newPartitionDirectory)) {
-          fileSystem.mkdirs(newPartitionDirectory);
-        }
-        logger.debug("Renaming {} to {}", path, newPath);
-        boolean renameOk = fileSystem.rename(path, newPath);
-        if (!renameOk) {
-          throw new DatasetException("Dataset merge failed during rename of " + path +
-              " to " + newPath);
+      renames.add(Pair.of(path, newPath));
+      partitionDirectories.add(newPath.getParent());
+    }
+    try {
+      for (Path partitionDirectory : partitionDirectories) {
+        if (!fileSystem.exists(partitionDirectory)) {
+          fileSystem.mkdirs(partitionDirectory);
         }
-      } catch (IOException e) {
-        throw new DatasetIOException("Dataset merge failed", e);
       }
-      if (descriptor.isPartitioned() && partitionListener != null) {
-        String partition = newPartitionDirectory.toString();
-        if (!addedPartitions.contains(partition)) {
-          partitionListener.partitionAdded(name, partition);
-          addedPartitions.add(partition);
-        }
+    } catch (IOException e) {
+      throw new DatasetIOException("Dataset merge failed", e);
+    }
+
+    renameAll(renames);
+
+    if (descriptor.isPartitioned() && partitionListener != null) {
+      for (Path partitionDirectory : partitionDirectories) {
+        partitionListener.partitionAdded(name, partitionDirectory.toString());
+      }
+    }
+    lister.invalidate();
+  }
+
+  /**
+   * Renames files using up to {@code kite.merge.threads} threads, because
+   * each rename is a round trip to the NameNode.
+   */
+  private void renameAll(List<Pair<Path, Path>> renames) {
+    int threads = Math.min(renames.size(), mergeThreads(descriptor));
+    if (threads <= 1) {
+      for (Pair<Path, Path> rename : renames) {
+        rename(rename.first(), rename.second());
       }
+      return;
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("kite-merge-%d")
+            .build());
+    try {
+      List<Future<?>> results = Lists.newArrayListWithCapacity(renames.size());
+      for (final Pair<Path, Path> rename : renames) {
+        results.add(pool.submit(new Runnable() {
+          @Override
+          public void run() {
+            rename(rename.first(), rename.second());
+          }
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatasetException("Interrupted during dataset merge", e);
+    } finally {
+      pool.shutdownNow();
     }
   }
 
+  private void rename(Path path, Path newPath) {
+    logger.debug("Renaming {} to {}", path, newPath);
+    try {
+      if (!fileSystem.rename(path, newPath)) {
+        throw new DatasetException("Dataset merge failed during rename of " +
+            path + " to " + newPath);
+      }
+    } catch (IOException e) {
+      throw new DatasetIOException("Dataset merge failed", e);
+    }
+  }
+
+  private static int mergeThreads(DatasetDescriptor descriptor) {
+    return Math.max(1, DescriptorUtil.getInt(
+        descriptor, MERGE_THREADS_PROPERTY, DEFAULT_MERGE_THREADS));
+  }
+
+
   @Override
   public InputFormat<E, Void> getDelegateInputFormat() {
-    return new FileSystemDatasetKeyInputFormat<E>(this);
+    return unbounded.getDelegateInputFormat();
   }
 
   @SuppressWarnings("unchecked")
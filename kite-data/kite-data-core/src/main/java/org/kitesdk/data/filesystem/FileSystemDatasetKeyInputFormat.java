@@ -15,12 +15,16 @@
  */
 package org.kitesdk.data.filesystem;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
+import org.apache.avro.Schema;
 import org.apache.avro.mapred.AvroKey;
 import org.apache.avro.mapreduce.AvroJob;
 import org.apache.avro.mapreduce.AvroKeyInputFormat;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputFormat;
@@ -30,66 +34,132 @@ import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.kitesdk.data.Dataset;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.Format;
 import org.kitesdk.data.Formats;
-import org.kitesdk.data.filesystem.impl.Accessor;
 import org.kitesdk.data.spi.AbstractKeyRecordReaderWrapper;
+import org.kitesdk.data.spi.Constraints;
 import parquet.avro.AvroParquetInputFormat;
+import parquet.avro.AvroReadSupport;
+import parquet.hadoop.ParquetRecordReader;
 
+/**
+ * An {@link InputFormat} for the entities in a {@link FileSystemView}.
+ *
+ * Only the partition directories that can contain entities in the view are
+ * read. For Parquet, the view's constraints are also pushed down as a record
+ * filter so that most non-matching records are never assembled, and every
+ * entity is checked against the view's constraints before it is returned.
+ *
+ * If a combine split size is set, small splits are grouped into
+ * {@link CombinedInputSplit}s of about that many bytes, so that datasets with
+ * many small files don't need a task per file.
+ */
 class FileSystemDatasetKeyInputFormat<E> extends InputFormat<E, Void> {
 
-  private Dataset<E> dataset;
+  private final FileSystemView<E> view;
+  private final long combineSplitSize;
+
+  FileSystemDatasetKeyInputFormat(FileSystemView<E> view) {
+    this(view, 0);
+  }
+
+  private FileSystemDatasetKeyInputFormat(FileSystemView<E> view,
+      long combineSplitSize) {
+    this.view = view;
+    this.combineSplitSize = combineSplitSize;
+  }
 
-  public FileSystemDatasetKeyInputFormat(Dataset<E> dataset) {
-    this.dataset = dataset;
+  /**
+   * Returns a copy of this format that combines splits into splits of about
+   * {@code combineSplitSize} bytes, or doesn't combine them if it is 0.
+   */
+  FileSystemDatasetKeyInputFormat<E> withCombineSplitSize(
+      long combineSplitSize) {
+    return new FileSystemDatasetKeyInputFormat<E>(view, combineSplitSize);
   }
 
   @Override
-  public List<InputSplit> getSplits(JobContext jobContext) throws IOException {
+  public List<InputSplit> getSplits(JobContext jobContext)
+      throws IOException, InterruptedException {
+    List<InputSplit> splits = getFileSplits(jobContext);
+    if (combineSplitSize > 0) {
+      return CombinedInputSplit.combine(splits, combineSplitSize);
+    }
+    return splits;
+  }
+
+  private List<InputSplit> getFileSplits(JobContext jobContext) throws IOException {
     Job job = new Job(jobContext.getConfiguration());
-    Format format = dataset.getDescriptor().getFormat();
+    Format format = view.getDataset().getDescriptor().getFormat();
+    if (!setInputPaths(jobContext, job)) {
+      // no partition directories match the view
+      return Lists.newArrayList();
+    }
     if (Formats.AVRO.equals(format)) {
-      setInputPaths(jobContext, job);
-      AvroJob.setInputKeySchema(job, dataset.getDescriptor().getSchema());
+      AvroJob.setInputKeySchema(job, view.getDataset().getDescriptor().getSchema());
       AvroKeyInputFormat<E> delegate = new AvroKeyInputFormat<E>();
       return delegate.getSplits(jobContext);
     } else if (Formats.PARQUET.equals(format)) {
-      setInputPaths(jobContext, job);
       // TODO: use later version of parquet (with https://github.com/Parquet/parquet-mr/pull/282) so we can set the schema correctly
       // AvroParquetInputFormat.setReadSchema(job, view.getDescriptor().getSchema());
       AvroParquetInputFormat delegate = new AvroParquetInputFormat();
       return delegate.getSplits(jobContext);
+    } else if (Formats.CSV.equals(format)) {
+      return new CSVInputFormat<E>(view.getDataset().getDescriptor())
+          .getSplits(jobContext);
     } else {
       throw new UnsupportedOperationException(
           "Not a supported format: " + format);
     }
   }
 
-  private void setInputPaths(JobContext jobContext, Job job) throws IOException {
-    List<Path> paths = Lists.newArrayList(Accessor.getDefault().getDirectoryIterator(dataset));
+  private boolean setInputPaths(JobContext jobContext, Job job) throws IOException {
+    List<Path> paths = Lists.newArrayList(view.dirIterator());
+    if (paths.isEmpty()) {
+      return false;
+    }
     FileInputFormat.setInputPaths(job, paths.toArray(new Path[paths.size()]));
     // the following line is needed for Hadoop 1, otherwise the paths are not set
     jobContext.getConfiguration().set("mapred.input.dir", job.getConfiguration().get("mapred.input.dir"));
+    return true;
   }
 
   @Override
   @SuppressWarnings("unchecked")
   public RecordReader<E, Void> createRecordReader(InputSplit inputSplit,
       TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
-    Format format = dataset.getDescriptor().getFormat();
+    if (inputSplit instanceof CombinedInputSplit) {
+      return new CombinedRecordReader<E>(this);
+    }
+    DatasetDescriptor descriptor = view.getDataset().getDescriptor();
+    Constraints constraints = view.getConstraints();
+    Format format = descriptor.getFormat();
+    RecordReader<E, Void> reader;
     if (Formats.AVRO.equals(format)) {
       AvroKeyInputFormat<E> delegate = new AvroKeyInputFormat<E>();
-      return new AvroRecordReaderWrapper(
+      reader = new AvroRecordReaderWrapper(
           delegate.createRecordReader(inputSplit, taskAttemptContext));
     } else if (Formats.PARQUET.equals(format)) {
-      AvroParquetInputFormat delegate = new AvroParquetInputFormat();
-      return new ParquetRecordReaderWrapper(
-          delegate.createRecordReader(inputSplit, taskAttemptContext));
+      // push what constraints we can down to parquet to avoid assembling
+      // records that will be filtered out
+      Schema schema = descriptor.getSchema();
+      reader = new ParquetRecordReaderWrapper(new ParquetRecordReader(
+          new AvroReadSupport(),
+          ConstraintsRecordFilter.forConstraints(schema, constraints, null)));
+    } else if (Formats.CSV.equals(format)) {
+      reader = new CSVInputFormat<E>(descriptor)
+          .createRecordReader(inputSplit, taskAttemptContext);
     } else {
       throw new UnsupportedOperationException(
           "Not a supported format: " + format);
     }
+    if (constraints.isUnbounded()) {
+      return reader;
+    }
+    return new FilteredRecordReader<E>(reader,
+        constraints.<E>toEntityPredicate());
   }
 
   private static class AvroRecordReaderWrapper<E> extends
@@ -110,9 +180,210 @@ class FileSystemDatasetKeyInputFormat<E> extends InputFormat<E, Void> {
       super(delegate);
     }
 
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+      // with a record filter, the value is null when there are no more
+      // matches in the current row group, but there may be in the next one
+      while (delegate.nextKeyValue()) {
+        if (delegate.getCurrentValue() != null) {
+          return true;
+        }
+      }
+      return false;
+    }
+
     @Override
     public E getCurrentKey() throws IOException, InterruptedException {
       return delegate.getCurrentValue();
     }
   }
+
+  /**
+   * Skips the entities that do not satisfy an entity {@link Predicate}.
+   */
+  private static class FilteredRecordReader<E> extends
+      AbstractKeyRecordReaderWrapper<E, E, Void> {
+    private final Predicate<E> predicate;
+
+    public FilteredRecordReader(RecordReader<E, Void> delegate,
+                                Predicate<E> predicate) {
+      super(delegate);
+      this.predicate = predicate;
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+      while (delegate.nextKeyValue()) {
+        if (predicate.apply(delegate.getCurrentKey())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public E getCurrentKey() throws IOException, InterruptedException {
+      return delegate.getCurrentKey();
+    }
+  }
+
+  /**
+   * Reads each of the splits in a {@link CombinedInputSplit} in turn, using
+   * the record readers of the input format that created them.
+   */
+  private static class CombinedRecordReader<E> extends RecordReader<E, Void> {
+    private final InputFormat<E, Void> inputFormat;
+    private Iterator<InputSplit> splits = null;
+    private TaskAttemptContext context = null;
+    private RecordReader<E, Void> current = null;
+    private long currentLength = 0;
+    private long completedLength = 0;
+    private long totalLength = 0;
+
+    public CombinedRecordReader(InputFormat<E, Void> inputFormat) {
+      this.inputFormat = inputFormat;
+    }
+
+    @Override
+    public void initialize(InputSplit inputSplit,
+        TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
+      this.splits = ((CombinedInputSplit) inputSplit).getSplits().iterator();
+      this.context = taskAttemptContext;
+      this.totalLength = inputSplit.getLength();
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+      while (true) {
+        if (current != null && current.nextKeyValue()) {
+          return true;
+        }
+        if (!nextReader()) {
+          return false;
+        }
+      }
+    }
+
+    private boolean nextReader() throws IOException, InterruptedException {
+      if (current != null) {
+        current.close();
+        this.current = null;
+        this.completedLength += currentLength;
+      }
+      if (!splits.hasNext()) {
+        return false;
+      }
+      InputSplit split = splits.next();
+      this.currentLength = split.getLength();
+      this.current = inputFormat.createRecordReader(split, context);
+      current.initialize(split, context);
+      return true;
+    }
+
+    @Override
+    public E getCurrentKey() throws IOException, InterruptedException {
+      return current.getCurrentKey();
+    }
+
+    @Override
+    public Void getCurrentValue() {
+      return null;
+    }
+
+    @Override
+    public float getProgress() throws IOException, InterruptedException {
+      if (totalLength <= 0) {
+        return (current == null && !splits.hasNext()) ? 1.0f : 0.0f;
+      }
+      long read = completedLength;
+      if (current != null) {
+        read += (long) (current.getProgress() * currentLength);
+      }
+      return Math.min(1.0f, (float) read / totalLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (current != null) {
+        current.close();
+        this.current = null;
+      }
+    }
+  }
+
+  /**
+   * Reads whole CSV files with a {@link CSVFileReader}. CSV files are not
+   * split because records may contain quoted line breaks.
+   */
+  private static class CSVInputFormat<E> extends FileInputFormat<E, Void> {
+    private final DatasetDescriptor descriptor;
+
+    public CSVInputFormat(DatasetDescriptor descriptor) {
+      this.descriptor = descriptor;
+    }
+
+    @Override
+    protected boolean isSplitable(JobContext context, Path filename) {
+      return false;
+    }
+
+    @Override
+    public RecordReader<E, Void> createRecordReader(InputSplit inputSplit,
+        TaskAttemptContext taskAttemptContext) {
+      return new CSVRecordReader<E>(descriptor);
+    }
+  }
+
+  private static class CSVRecordReader<E> extends RecordReader<E, Void> {
+    private final DatasetDescriptor descriptor;
+    private CSVFileReader<E> reader = null;
+    private E current = null;
+    private boolean done = false;
+
+    public CSVRecordReader(DatasetDescriptor descriptor) {
+      this.descriptor = descriptor;
+    }
+
+    @Override
+    public void initialize(InputSplit inputSplit,
+        TaskAttemptContext taskAttemptContext) throws IOException {
+      Path path = ((FileSplit) inputSplit).getPath();
+      FileSystem fs = path.getFileSystem(taskAttemptContext.getConfiguration());
+      this.reader = new CSVFileReader<E>(fs, path, descriptor);
+      reader.open();
+    }
+
+    @Override
+    public boolean nextKeyValue() {
+      if (reader.hasNext()) {
+        this.current = reader.next();
+        return true;
+      }
+      this.current = null;
+      this.done = true;
+      return false;
+    }
+
+    @Override
+    public E getCurrentKey() {
+      return current;
+    }
+
+    @Override
+    public Void getCurrentValue() {
+      return null;
+    }
+
+    @Override
+    public float getProgress() {
+      return done ? 1.0f : 0.0f;
+    }
+
+    @Override
+    public void close() {
+      if (reader != null) {
+        reader.close();
+      }
+    }
+  }
 }
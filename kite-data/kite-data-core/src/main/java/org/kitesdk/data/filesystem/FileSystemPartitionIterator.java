@@ -19,7 +19,6 @@ package org.kitesdk.data.filesystem;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import javax.annotation.Nullable;
-import org.kitesdk.data.DatasetException;
 import org.kitesdk.data.spi.FieldPartitioner;
 import org.kitesdk.data.PartitionStrategy;
 import org.kitesdk.data.spi.Constraints;
@@ -29,7 +28,6 @@ import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -37,10 +35,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
+/**
+ * Iterates over the partition directories of a dataset that may contain
+ * entities matching a set of {@link Constraints}.
+ *
+ * The partition tree is listed one level at a time, and all of the directories
+ * in a level are listed concurrently by a {@link DirectoryLister}. Directories
+ * that cannot match the constraints are pruned as soon as their level is
+ * listed, so their subtrees are never listed. The leaf level is listed in
+ * batches as the iterator advances.
+ */
 class FileSystemPartitionIterator implements
     Iterator<Pair<StorageKey, Path>>, Iterable<Pair<StorageKey, Path>> {
 
@@ -49,66 +58,59 @@ class FileSystemPartitionIterator implements
 
   private static final Joiner PATH_JOINER = Joiner.on("/");
 
-  private final FileSystem fs;
   private final Path rootDirectory;
-  private final Iterator<Pair<StorageKey, Path>> iterator;
-
-  class FileSystemIterator extends MultiLevelIterator<String> {
-    public FileSystemIterator(int depth) throws IOException {
-      super(depth);
-    }
+  private final PartitionStrategy strategy;
+  private final DirectoryLister lister;
+  private final Predicate[] levelPredicates;
+  private final Predicate<StorageKey> keyPredicate;
+  private final PathConversion convert = new PathConversion();
+  private Iterator<Pair<StorageKey, Path>> iterator = null;
 
-    @Override
-    @SuppressWarnings({"unchecked", "deprecation"})
-    public Iterable<String> getLevel(List<String> current) {
-      final Set<String> dirs = Sets.newLinkedHashSet();
-
-      Path dir = rootDirectory;
-      for (int i = 0, n = current.size(); i < n; i += 1) {
-        dir = new Path(dir, current.get(i));
-      }
+  /**
+   * A partially-walked partition directory.
+   */
+  private static class Partial {
+    private final Path path;
+    private final List<String> names;
+    private final List<Object> values;
 
-      try {
-        for (FileStatus stat : fs.listStatus(dir, PathFilters.notHidden())) {
-          if (stat.isDir()) {
-            // TODO: add a check here for range.couldContain(Marker)
-            dirs.add(stat.getPath().getName());
-          }
-        }
-      } catch (IOException ex) {
-        throw new DatasetException("Cannot list directory:" + dir, ex);
-      }
+    private Partial(Path path, List<String> names, List<Object> values) {
+      this.path = path;
+      this.names = names;
+      this.values = values;
+    }
 
-      return dirs;
+    private Partial child(Path childPath, String name, Object value) {
+      List<String> childNames = Lists.newArrayListWithCapacity(names.size() + 1);
+      childNames.addAll(names);
+      childNames.add(name);
+      List<Object> childValues = Lists.newArrayListWithCapacity(values.size() + 1);
+      childValues.addAll(values);
+      childValues.add(value);
+      return new Partial(childPath, childNames, childValues);
     }
   }
 
   /**
-   * Conversion function to transform a List into a {@link org.kitesdk.data.spi.StorageKey}.
+   * Conversion function to transform a {@link Partial} into a
+   * {@link org.kitesdk.data.spi.StorageKey} and relative Path.
    */
-  private static class MakeKey implements Function<List<String>, Pair<StorageKey, Path>> {
-    private final List<FieldPartitioner> partitioners;
-    private final StorageKey reusableKey;
-    private final PathConversion convert;
+  private static class MakeKey implements Function<Partial, Pair<StorageKey, Path>> {
+    private final PartitionStrategy strategy;
 
     public MakeKey(PartitionStrategy strategy) {
-      this.partitioners = strategy.getFieldPartitioners();
-      this.reusableKey = new StorageKey(strategy);
-      this.convert = new PathConversion();
+      this.strategy = strategy;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     @edu.umd.cs.findbugs.annotations.SuppressWarnings(
         value="NP_PARAMETER_MUST_BE_NONNULL_BUT_MARKED_AS_NULLABLE",
         justification="Non-null @Nullable parameter inherited from Function")
-    public Pair<StorageKey, Path> apply(List<String> dirs) {
-      List<Object> values = Lists.newArrayListWithCapacity(dirs.size());
-      for (int i = 0, n = partitioners.size(); i < n; i += 1) {
-        values.add(convert.valueForDirname(partitioners.get(i), dirs.get(i)));
-      }
-      reusableKey.replaceValues(values);
-      return Pair.of(reusableKey, new Path(PATH_JOINER.join(dirs)));
+    public Pair<StorageKey, Path> apply(Partial leaf) {
+      // keys are not reused because callers may hold them while iterating
+      StorageKey key = new StorageKey(strategy);
+      key.replaceValues(leaf.values);
+      return Pair.of(key, new Path(PATH_JOINER.join(leaf.names)));
     }
   }
 
@@ -131,40 +133,137 @@ class FileSystemPartitionIterator implements
     }
   }
 
-  @SuppressWarnings("deprecation")
   FileSystemPartitionIterator(
       FileSystem fs, Path root, PartitionStrategy strategy,
       final Constraints constraints)
       throws IOException {
+    // a single-threaded lister lists on the caller's thread, so no thread
+    // pool is created for this iterator
+    this(fs, root, strategy, constraints, new DirectoryLister(fs, 1, 0, 0));
+  }
+
+  @SuppressWarnings({"unchecked", "deprecation"})
+  FileSystemPartitionIterator(
+      FileSystem fs, Path root, PartitionStrategy strategy,
+      final Constraints constraints, DirectoryLister lister)
+      throws IOException {
     Preconditions.checkArgument(fs.isDirectory(root));
-    this.fs = fs;
     this.rootDirectory = root;
-    this.iterator = Iterators.filter(
-        Iterators.transform(
-            new FileSystemIterator(strategy.getFieldPartitioners().size()),
-            new MakeKey(strategy)),
-        new KeyPredicate(constraints.toKeyPredicate()));
+    this.strategy = strategy;
+    this.lister = lister;
+    this.keyPredicate = constraints.toKeyPredicate();
+
+    // each level is pruned by its partitioner's projection of the constraints.
+    // the key predicate must still be checked because some constraints, like
+    // time ranges, can only be checked using several levels.
+    Map<String, Predicate> predicates = constraints.toFieldPredicates(null);
+    List<FieldPartitioner> partitioners = strategy.getFieldPartitioners();
+    this.levelPredicates = new Predicate[partitioners.size()];
+    for (int i = 0, n = partitioners.size(); i < n; i += 1) {
+      FieldPartitioner fp = partitioners.get(i);
+      Predicate constraint = predicates.get(fp.getSourceName());
+      if (constraint != null) {
+        levelPredicates[i] = fp.project(constraint);
+      }
+    }
+  }
+
+  /**
+   * Returns the partial partitions at {@code depth}, listing all of the levels
+   * above it.
+   */
+  private List<Partial> walk(int depth) {
+    List<Partial> level = Lists.newArrayList(new Partial(rootDirectory,
+        Collections.<String>emptyList(), Collections.emptyList()));
+    for (int i = 0; i < depth; i += 1) {
+      level = listLevel(level, i);
+    }
+    return level;
+  }
+
+  /**
+   * Lists the children of the given partial partitions at {@code depth}, and
+   * returns those that may match the constraints.
+   */
+  @SuppressWarnings({"unchecked", "deprecation"})
+  private List<Partial> listLevel(List<Partial> level, int depth) {
+    List<Path> dirs = Lists.newArrayListWithCapacity(level.size());
+    for (Partial partial : level) {
+      dirs.add(partial.path);
+    }
+    List<FileStatus[]> listings = lister.listAll(dirs);
+
+    FieldPartitioner fp = strategy.getFieldPartitioners().get(depth);
+    Predicate predicate = levelPredicates[depth];
+    List<Partial> next = Lists.newArrayList();
+    for (int i = 0, m = level.size(); i < m; i += 1) {
+      Partial parent = level.get(i);
+      for (FileStatus stat : listings.get(i)) {
+        if (!stat.isDir()) {
+          continue;
+        }
+        String name = stat.getPath().getName();
+        Object value = convert.valueForDirname(fp, name);
+        if (predicate == null || predicate.apply(value)) {
+          next.add(parent.child(stat.getPath(), name, value));
+        }
+      }
+    }
+
+    logger.debug("Listed {} directories at depth {}, kept {}",
+        new Object[] {dirs.size(), depth, next.size()});
+    return next;
+  }
+
+  /**
+   * Returns the leaf partitions. The leaf level has the most directories, so
+   * it is listed in batches of {@link DirectoryLister#getThreads()} parents as
+   * the iterator advances rather than all at once.
+   */
+  private Iterator<Partial> leaves() {
+    final int leafDepth = strategy.getFieldPartitioners().size() - 1;
+    if (leafDepth < 0) {
+      return walk(0).iterator();
+    }
+    return Iterators.concat(Iterators.transform(
+        Iterators.partition(walk(leafDepth).iterator(), lister.getThreads()),
+        new Function<List<Partial>, Iterator<Partial>>() {
+          @Override
+          @edu.umd.cs.findbugs.annotations.SuppressWarnings(
+              value="NP_PARAMETER_MUST_BE_NONNULL_BUT_MARKED_AS_NULLABLE",
+              justification="Non-null @Nullable parameter inherited from Function")
+          public Iterator<Partial> apply(@Nullable List<Partial> parents) {
+            return listLevel(parents, leafDepth).iterator();
+          }
+        }));
+  }
+
+  private Iterator<Pair<StorageKey, Path>> partitions() {
+    if (iterator == null) {
+      this.iterator = Iterators.filter(
+          Iterators.transform(leaves(), new MakeKey(strategy)),
+          new KeyPredicate(keyPredicate));
+    }
+    return iterator;
   }
 
   @Override
   public boolean hasNext() {
-    return iterator.hasNext();
+    return partitions().hasNext();
   }
 
   @Override
   public Pair<StorageKey, Path> next() {
-    return iterator.next();
+    return partitions().next();
   }
 
   @Override
   public void remove() {
-    iterator.remove();
+    partitions().remove();
   }
 
   @Override
   public Iterator<Pair<StorageKey, Path>> iterator() {
     return this;
   }
-
-
 }
@@ -19,6 +19,7 @@ package org.kitesdk.data.filesystem;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterators;
 import java.util.Iterator;
+import java.util.Set;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetException;
 import org.kitesdk.data.DatasetIOException;
@@ -31,6 +32,7 @@ import org.kitesdk.data.spi.StorageKey;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputFormat;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -47,17 +49,27 @@ class FileSystemView<E> extends AbstractRefinableView<E> {
 
   private final FileSystem fs;
   private final Path root;
+  private final DirectoryLister lister;
 
   FileSystemView(FileSystemDataset<E> dataset) {
     super(dataset);
     this.fs = dataset.getFileSystem();
     this.root = dataset.getDirectory();
+    this.lister = dataset.getDirectoryLister();
   }
 
   private FileSystemView(FileSystemView<E> view, Constraints c) {
     super(view, c);
     this.fs = view.fs;
     this.root = view.root;
+    this.lister = view.lister;
+  }
+
+  private FileSystemView(FileSystemView<E> view, Set<String> selected) {
+    super(view, view.constraints, selected);
+    this.fs = view.fs;
+    this.root = view.root;
+    this.lister = view.lister;
   }
 
   @Override
@@ -65,19 +77,45 @@ class FileSystemView<E> extends AbstractRefinableView<E> {
     return new FileSystemView<E>(this, c);
   }
 
+  @Override
+  protected FileSystemView<E> project(Set<String> selected) {
+    return new FileSystemView<E>(this, selected);
+  }
+
   @Override
   public DatasetReader<E> newReader() {
+    DatasetDescriptor descriptor = dataset.getDescriptor();
+    if (ParallelMultiFileDatasetReader.threads(descriptor) > 1) {
+      return new ParallelMultiFileDatasetReader<E>(
+          fs, pathIterator(), descriptor, getReadSchema(), constraints);
+    }
     return new MultiFileDatasetReader<E>(
-        fs, pathIterator(), dataset.getDescriptor(), constraints);
+        fs, pathIterator(), descriptor, getReadSchema(), constraints);
   }
 
   @Override
   public DatasetWriter<E> newWriter() {
-    if (dataset.getDescriptor().isPartitioned()) {
-      return new PartitionedDatasetWriter<E>(this);
+    DatasetDescriptor descriptor = dataset.getDescriptor();
+    DatasetWriter<E> writer;
+    if (descriptor.isPartitioned()) {
+      if (SpillingPartitionedDatasetWriter.isEnabled(descriptor)) {
+        writer = new SpillingPartitionedDatasetWriter<E>(this);
+      } else {
+        writer = new PartitionedDatasetWriter<E>(this);
+      }
     } else {
-      return new FileSystemWriter<E>(fs, root, dataset.getDescriptor());
+      writer = new FileSystemWriter<E>(fs, root, descriptor);
+    }
+    if (AsyncDatasetWriter.isEnabled(descriptor)) {
+      return new AsyncDatasetWriter<E>(writer,
+          AsyncDatasetWriter.bufferSize(descriptor));
     }
+    return writer;
+  }
+
+  @Override
+  public InputFormat<E, Void> getDelegateInputFormat() {
+    return new FileSystemDatasetKeyInputFormat<E>(this);
   }
 
   @Override
@@ -103,7 +141,7 @@ class FileSystemView<E> extends AbstractRefinableView<E> {
       directories = Iterators.singletonIterator(
           Pair.of((StorageKey) null, root));
     }
-    return new PathIterator(fs, root, directories);
+    return new PathIterator(lister, root, directories);
   }
 
   /**
@@ -131,7 +169,8 @@ class FileSystemView<E> extends AbstractRefinableView<E> {
     try {
       return new FileSystemPartitionIterator(
           fs, root,
-          dataset.getDescriptor().getPartitionStrategy(), constraints);
+          dataset.getDescriptor().getPartitionStrategy(), constraints,
+          lister);
     } catch (IOException ex) {
       throw new DatasetException("Cannot list partitions in view:" + this, ex);
     }
@@ -142,6 +181,7 @@ class FileSystemView<E> extends AbstractRefinableView<E> {
     for (Pair<StorageKey, Path> partition : partitionIterator()) {
       deleted = cleanlyDelete(fs, root, partition.second()) || deleted;
     }
+    lister.invalidate();
     return deleted;
   }
 
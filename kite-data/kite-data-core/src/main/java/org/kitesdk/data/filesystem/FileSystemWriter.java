@@ -33,23 +33,53 @@ import org.kitesdk.data.spi.ReaderWriterState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Writes entities to files in a single directory.
+ *
+ * Each file is written to a hidden temporary path and renamed to its final
+ * path when it is committed. A writer commits its current file and starts a
+ * new one (rolls) when any of the following descriptor properties is set and
+ * the current file has reached the limit:
+ * <ul>
+ * <li>{@code kite.writer.roll-records}: the number of entities in a file</li>
+ * <li>{@code kite.writer.roll-bytes}: the number of bytes in a file, for
+ * formats that can report the size of an open file (Avro)</li>
+ * <li>{@code kite.writer.roll-interval-ms}: the time since the file was
+ * opened, which is checked when an entity is written</li>
+ * </ul>
+ */
 class FileSystemWriter<E> implements DatasetWriter<E> {
 
   private static final Logger LOG = LoggerFactory.getLogger(FileSystemWriter.class);
 
+  public static final String ROLL_RECORDS_PROPERTY = "kite.writer.roll-records";
+  public static final String ROLL_BYTES_PROPERTY = "kite.writer.roll-bytes";
+  public static final String ROLL_INTERVAL_PROPERTY =
+      "kite.writer.roll-interval-ms";
+
   static interface FileAppender<E> extends Flushable, Closeable {
     public void open() throws IOException;
     public void append(E entity) throws IOException;
+
+    /**
+     * Returns the number of bytes written to the file so far, or -1 if the
+     * appender cannot determine the size of the file until it is closed.
+     */
+    public long getPos() throws IOException;
   }
 
   protected final FileSystem fs;
   private final Path directory;
   private final DatasetDescriptor descriptor;
+  private final long rollRecords;
+  private final long rollBytes;
+  private final long rollInterval;
   private FileAppender<E> appender;
   private Path tempPath;
   private Path finalPath;
   private ReaderWriterState state;
   private int count = 0;
+  private long openedAt = 0;
 
   public FileSystemWriter(FileSystem fs, Path path, DatasetDescriptor descriptor) {
     Preconditions.checkNotNull(fs, "File system is not defined");
@@ -58,6 +88,13 @@ class FileSystemWriter<E> implements DatasetWriter<E> {
     this.fs = fs;
     this.directory = path;
     this.descriptor = descriptor;
+    // not set, will not roll
+    this.rollRecords = DescriptorUtil.getLong(
+        descriptor, ROLL_RECORDS_PROPERTY, 0);
+    this.rollBytes = DescriptorUtil.getLong(
+        descriptor, ROLL_BYTES_PROPERTY, 0);
+    this.rollInterval = DescriptorUtil.getLong(
+        descriptor, ROLL_INTERVAL_PROPERTY, 0);
     this.state = ReaderWriterState.NEW;
   }
 
@@ -74,6 +111,12 @@ class FileSystemWriter<E> implements DatasetWriter<E> {
       throw new DatasetIOException("Failed to create path " + directory, ex);
     }
 
+    openAppender();
+
+    this.state = ReaderWriterState.OPEN;
+  }
+
+  private void openAppender() {
     // initialize paths
     this.finalPath = new Path(directory, uniqueFilename(descriptor.getFormat()));
     this.tempPath = tempFilename(finalPath);
@@ -87,10 +130,9 @@ class FileSystemWriter<E> implements DatasetWriter<E> {
     }
 
     this.count = 0;
+    this.openedAt = System.currentTimeMillis();
 
     LOG.debug("Opened appender {} for {}", appender, finalPath);
-
-    this.state = ReaderWriterState.OPEN;
   }
 
   @Override
@@ -106,6 +148,33 @@ class FileSystemWriter<E> implements DatasetWriter<E> {
       throw new DatasetIOException(
           "Failed to append " + entity + " to " + appender, e);
     }
+
+    if (shouldRoll()) {
+      LOG.debug("Rolling {} after {} entities", finalPath, count);
+      commitAppender();
+      openAppender();
+    }
+  }
+
+  private boolean shouldRoll() {
+    if (rollRecords > 0 && count >= rollRecords) {
+      return true;
+    }
+    if (rollInterval > 0 &&
+        System.currentTimeMillis() - openedAt >= rollInterval) {
+      return true;
+    }
+    if (rollBytes > 0) {
+      try {
+        long pos = appender.getPos();
+        return (pos >= 0 && pos >= rollBytes);
+      } catch (IOException e) {
+        this.state = ReaderWriterState.ERROR;
+        throw new DatasetIOException(
+            "Failed to get position of appender " + appender, e);
+      }
+    }
+    return false;
   }
 
   @Override
@@ -123,46 +192,54 @@ class FileSystemWriter<E> implements DatasetWriter<E> {
   @Override
   public final void close() {
     if (state.equals(ReaderWriterState.OPEN)) {
+      commitAppender();
+      this.state = ReaderWriterState.CLOSED;
+
+    } else if (state.equals(ReaderWriterState.ERROR)) {
+      this.state = ReaderWriterState.CLOSED;
+    }
+  }
+
+  /**
+   * Closes the current appender and moves its file to the final path, or
+   * removes the file if no entities were written.
+   */
+  private void commitAppender() {
+    try {
+      appender.close();
+    } catch (IOException e) {
+      this.state = ReaderWriterState.ERROR;
+      throw new DatasetIOException("Failed to close appender " + appender, e);
+    }
+
+    if (count > 0) {
+      // commit the temp file
       try {
-        appender.close();
+        if (!fs.rename(tempPath, finalPath)) {
+          this.state = ReaderWriterState.ERROR;
+          throw new DatasetWriterException(
+              "Failed to move " + tempPath + " to " + finalPath);
+        }
       } catch (IOException e) {
         this.state = ReaderWriterState.ERROR;
-        throw new DatasetIOException("Failed to close appender " + appender, e);
+        throw new DatasetIOException("Failed to commit " + finalPath, e);
       }
 
-      if (count > 0) {
-        // commit the temp file
-        try {
-          if (!fs.rename(tempPath, finalPath)) {
-            this.state = ReaderWriterState.ERROR;
-            throw new DatasetWriterException(
-                "Failed to move " + tempPath + " to " + finalPath);
-          }
-        } catch (IOException e) {
-          this.state = ReaderWriterState.ERROR;
-          throw new DatasetIOException("Failed to commit " + finalPath, e);
-        }
-
-        LOG.debug("Committed {} for appender {}", finalPath, appender);
-      } else {
-        // discard the temp file
-        try {
-          if (!fs.delete(tempPath, true)) {
-            this.state = ReaderWriterState.ERROR;
-            throw new DatasetWriterException("Failed to delete " + tempPath);
-          }
-        } catch (IOException e) {
+      LOG.debug("Committed {} for appender {}", finalPath, appender);
+    } else {
+      // discard the temp file
+      try {
+        if (!fs.delete(tempPath, true)) {
           this.state = ReaderWriterState.ERROR;
-          throw new DatasetIOException(
-              "Failed to remove temporary file " + tempPath, e);
+          throw new DatasetWriterException("Failed to delete " + tempPath);
         }
-
-        LOG.debug("Discarded {} ({} entities)", tempPath, count);
+      } catch (IOException e) {
+        this.state = ReaderWriterState.ERROR;
+        throw new DatasetIOException(
+            "Failed to remove temporary file " + tempPath, e);
       }
-      this.state = ReaderWriterState.CLOSED;
 
-    } else if (state.equals(ReaderWriterState.ERROR)) {
-      this.state = ReaderWriterState.CLOSED;
+      LOG.debug("Discarded {} ({} entities)", tempPath, count);
     }
   }
 
@@ -184,7 +261,8 @@ class FileSystemWriter<E> implements DatasetWriter<E> {
     Format format = descriptor.getFormat();
     if (Formats.PARQUET.equals(format)) {
       return (FileAppender<E>) new ParquetAppender(
-          fs, temp, descriptor.getSchema(), true);
+          fs, temp, descriptor.getSchema(), true,
+          ParquetAppender.blockSize(descriptor));
     } else if (Formats.AVRO.equals(format)) {
       return new AvroAppender<E>(fs, temp, descriptor.getSchema(), true);
     } else {
@@ -16,6 +16,9 @@
 package org.kitesdk.data.filesystem;
 
 import com.google.common.collect.Iterators;
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
 import org.apache.hadoop.fs.Path;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetReader;
@@ -25,17 +28,20 @@ import org.kitesdk.data.UnknownFormatException;
 import org.kitesdk.data.spi.AbstractDatasetReader;
 import org.kitesdk.data.spi.Constraints;
 import org.kitesdk.data.spi.ReaderWriterState;
+import org.kitesdk.data.spi.StorageKey;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import org.apache.hadoop.fs.FileSystem;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
 
 class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
 
   private final FileSystem fileSystem;
   private final DatasetDescriptor descriptor;
+  private final Schema schema;
   private final Constraints constraints;
 
   private final Iterator<Path> filesIter;
@@ -47,12 +53,23 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
 
   public MultiFileDatasetReader(FileSystem fileSystem, Iterable<Path> files,
       DatasetDescriptor descriptor, Constraints constraints) {
+    this(fileSystem, files, descriptor,
+        descriptor == null ? null : descriptor.getSchema(), constraints);
+  }
+
+  /**
+   * Creates a reader that reads entities using the given {@link Schema}, which
+   * may be a projection of the descriptor's schema.
+   */
+  public MultiFileDatasetReader(FileSystem fileSystem, Iterable<Path> files,
+      DatasetDescriptor descriptor, Schema schema, Constraints constraints) {
     Preconditions.checkArgument(fileSystem != null, "FileSystem cannot be null");
     Preconditions.checkArgument(descriptor != null, "Descriptor cannot be null");
     Preconditions.checkArgument(files != null, "Partition paths cannot be null");
 
     this.fileSystem = fileSystem;
     this.descriptor = descriptor;
+    this.schema = schema;
     this.constraints = constraints;
     this.filesIter = files.iterator();
     this.state = ReaderWriterState.NEW;
@@ -77,22 +94,65 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
     this.state = ReaderWriterState.OPEN;
   }
 
-  @SuppressWarnings("unchecked") // See https://github.com/Parquet/parquet-mr/issues/106
   private void openNextReader() {
+    Path file = filesIter.next();
+    StorageKey key = (pathIter != null ? pathIter.getStorageKey() : null);
+    this.reader = newFileReader(
+        fileSystem, file, descriptor, schema, constraints, key);
+    reader.open();
+    this.readerIterator = Iterators.filter(reader,
+        constraints.toEntityPredicate(key));
+  }
+
+  /**
+   * Returns a reader, not yet opened, for a single data file.
+   *
+   * The reader may skip some entities that do not satisfy the constraints, but
+   * callers must still filter entities with the constraints' entity predicate.
+   *
+   * @param fileSystem the FileSystem of the file
+   * @param file a data file Path
+   * @param descriptor the DatasetDescriptor of the file's dataset
+   * @param schema the read Schema, which may be a projection
+   * @param constraints Constraints for the entities to read
+   * @param key the StorageKey of the file's partition, or null
+   * @return an unopened DatasetReader for the file
+   */
+  @SuppressWarnings("unchecked") // See https://github.com/Parquet/parquet-mr/issues/106
+  static <E> DatasetReader<E> newFileReader(FileSystem fileSystem, Path file,
+      DatasetDescriptor descriptor, Schema schema, Constraints constraints,
+      @Nullable StorageKey key) {
     if (Formats.PARQUET.equals(descriptor.getFormat())) {
-      this.reader = new ParquetFileSystemDatasetReader(fileSystem,
-          filesIter.next(), descriptor.getSchema());
+      // push what constraints we can down to parquet to avoid assembling
+      // records that will be filtered out
+      return new ParquetFileSystemDatasetReader(fileSystem, file,
+          descriptor.getSchema(),
+          (isProjection(descriptor, schema) ? schema : null),
+          ConstraintsRecordFilter.forConstraints(schema, constraints, key));
     } else if (Formats.CSV.equals(descriptor.getFormat())) {
-      this.reader = new CSVFileReader<E>(fileSystem, filesIter.next(),
-          descriptor);
+      return new CSVFileReader<E>(fileSystem, file, descriptor);
     } else {
-      this.reader = new FileSystemDatasetReader<E>(fileSystem, filesIter.next(),
-          descriptor.getSchema());
+      return new FileSystemDatasetReader<E>(fileSystem, file,
+          avroReadSchema(descriptor, schema));
     }
-    reader.open();
-    this.readerIterator = Iterators.filter(reader,
-        constraints.toEntityPredicate(
-            pathIter != null ? pathIter.getStorageKey() : null));
+  }
+
+  private static boolean isProjection(DatasetDescriptor descriptor,
+                                      Schema schema) {
+    return !descriptor.getSchema().equals(schema);
+  }
+
+  private static Schema avroReadSchema(DatasetDescriptor descriptor,
+                                       Schema schema) {
+    // Avro resolves a projection by skipping the fields that are not read,
+    // but specific records are filled in by field position and must be read
+    // with the full schema
+    Class<?> recordClass = SpecificData.get().getClass(descriptor.getSchema());
+    if (recordClass != null &&
+        SpecificRecord.class.isAssignableFrom(recordClass)) {
+      return descriptor.getSchema();
+    }
+    return schema;
   }
 
   @Override
@@ -169,6 +229,7 @@ class MultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
     return Objects.toStringHelper(this)
       .add("fileSystem", fileSystem)
       .add("descriptor", descriptor)
+      .add("schema", schema)
       .add("filesIter", filesIter)
       .add("reader", reader)
       .add("state", state)
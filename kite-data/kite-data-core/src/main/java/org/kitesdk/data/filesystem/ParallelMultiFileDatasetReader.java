@@ -0,0 +1,320 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.avro.Schema;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.DatasetReaderException;
+import org.kitesdk.data.Format;
+import org.kitesdk.data.Formats;
+import org.kitesdk.data.UnknownFormatException;
+import org.kitesdk.data.spi.AbstractDatasetReader;
+import org.kitesdk.data.spi.Constraints;
+import org.kitesdk.data.spi.ReaderWriterState;
+import org.kitesdk.data.spi.StorageKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DatasetReader} that reads several files at once using a bounded
+ * pool of threads.
+ *
+ * At most {@code threads} files are open at any time, and each file may decode
+ * up to {@code buffer-size} entities ahead of the caller. In ordered mode,
+ * entities are returned in the same order as {@link MultiFileDatasetReader}
+ * would return them. Otherwise, entities are returned as soon as any file
+ * produces them.
+ *
+ * This reader is used when a dataset's descriptor sets the
+ * {@code kite.reader.threads} property to more than one thread.
+ */
+class ParallelMultiFileDatasetReader<E> extends AbstractDatasetReader<E> {
+
+  private static final Logger logger = LoggerFactory
+      .getLogger(ParallelMultiFileDatasetReader.class);
+
+  public static final String THREADS_PROPERTY = "kite.reader.threads";
+  public static final String ORDERED_PROPERTY = "kite.reader.ordered";
+  public static final String BUFFER_SIZE_PROPERTY = "kite.reader.buffer-size";
+
+  public static final int DEFAULT_THREADS = 1;
+  public static final boolean DEFAULT_ORDERED = true;
+  public static final int DEFAULT_BUFFER_SIZE = 1000;
+
+  // marks the end of a file's entities in a buffer
+  private static final Object END = new Object();
+
+  private final FileSystem fileSystem;
+  private final DatasetDescriptor descriptor;
+  private final Schema schema;
+  private final Constraints constraints;
+  private final Iterator<Path> filesIter;
+  private final PathIterator pathIter;
+
+  // configuration
+  private final int threads;
+  private final boolean ordered;
+  private final int bufferSize;
+
+  // buffers for files that are being read, in file order
+  private final LinkedList<BlockingQueue<Object>> inFlight = Lists.newLinkedList();
+  private BlockingQueue<Object> shared = null;
+  private ExecutorService pool = null;
+
+  // state
+  private ReaderWriterState state;
+  private E next = null;
+
+  public ParallelMultiFileDatasetReader(FileSystem fileSystem,
+      Iterable<Path> files, DatasetDescriptor descriptor, Schema schema,
+      Constraints constraints) {
+    Preconditions.checkArgument(fileSystem != null, "FileSystem cannot be null");
+    Preconditions.checkArgument(descriptor != null, "Descriptor cannot be null");
+    Preconditions.checkArgument(files != null, "Partition paths cannot be null");
+
+    this.fileSystem = fileSystem;
+    this.descriptor = descriptor;
+    this.schema = schema;
+    this.constraints = constraints;
+    this.filesIter = files.iterator();
+    if (files instanceof PathIterator) {
+      this.pathIter = (PathIterator) files;
+    } else {
+      this.pathIter = null;
+    }
+
+    this.threads = threads(descriptor);
+    this.ordered = DescriptorUtil.getBoolean(
+        descriptor, ORDERED_PROPERTY, DEFAULT_ORDERED);
+    this.bufferSize = Math.max(1, DescriptorUtil.getInt(
+        descriptor, BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE));
+
+    this.state = ReaderWriterState.NEW;
+  }
+
+  /**
+   * Returns the number of threads that readers for the given descriptor should
+   * use to read files.
+   *
+   * @param descriptor a DatasetDescriptor
+   * @return the number of reader threads, at least 1
+   */
+  static int threads(DatasetDescriptor descriptor) {
+    return Math.max(1, DescriptorUtil.getInt(
+        descriptor, THREADS_PROPERTY, DEFAULT_THREADS));
+  }
+
+  @Override
+  public void open() {
+    Preconditions.checkState(state.equals(ReaderWriterState.NEW),
+      "A reader may not be opened more than once - current state:%s", state);
+
+    final Format format = descriptor.getFormat();
+    if (!(Formats.AVRO.equals(format) || Formats.PARQUET.equals(format)
+        || Formats.CSV.equals(format))) {
+      throw new UnknownFormatException("Cannot open format:" + format.getName());
+    }
+
+    this.pool = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("kite-reader-%d")
+        .build());
+    if (!ordered) {
+      this.shared = new ArrayBlockingQueue<Object>(bufferSize * threads);
+    }
+
+    this.state = ReaderWriterState.OPEN;
+  }
+
+  /**
+   * Starts reading files until {@code threads} files are in flight.
+   */
+  private void startReaders() {
+    while (inFlight.size() < threads && filesIter.hasNext()) {
+      Path file = filesIter.next();
+      StorageKey key = (pathIter != null ? pathIter.getStorageKey() : null);
+      if (key != null) {
+        // the partition iterator may reuse its key for the next partition
+        // while this file is still being read
+        key = StorageKey.copy(key);
+      }
+      BlockingQueue<Object> buffer = (ordered ?
+          new ArrayBlockingQueue<Object>(bufferSize) : shared);
+      pool.execute(new FileTask(file, key, buffer));
+      inFlight.add(buffer);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean hasNext() {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+      "Attempt to read from a file in state:%s", state);
+
+    while (next == null) {
+      startReaders();
+      if (inFlight.isEmpty()) {
+        return false;
+      }
+
+      // in unordered mode, every buffer in flight is the shared buffer
+      Object item;
+      try {
+        item = inFlight.getFirst().take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new DatasetReaderException("Interrupted while reading", e);
+      }
+
+      if (item == END) {
+        // a file is finished, which makes room for the next one
+        inFlight.removeFirst();
+      } else if (item instanceof Failure) {
+        inFlight.removeFirst();
+        throw ((Failure) item).propagate();
+      } else {
+        this.next = (E) item;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public E next() {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+      "Attempt to read from a file in state:%s", state);
+    if (hasNext()) {
+      E current = next;
+      this.next = null;
+      return current;
+    } else {
+      throw new NoSuchElementException();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!state.equals(ReaderWriterState.OPEN)) {
+      return;
+    }
+    // interrupts any file readers that are waiting on a full buffer
+    pool.shutdownNow();
+    inFlight.clear();
+    this.next = null;
+    this.state = ReaderWriterState.CLOSED;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return state.equals(ReaderWriterState.OPEN);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+      .add("fileSystem", fileSystem)
+      .add("descriptor", descriptor)
+      .add("schema", schema)
+      .add("threads", threads)
+      .add("ordered", ordered)
+      .add("bufferSize", bufferSize)
+      .add("state", state)
+      .toString();
+  }
+
+  /**
+   * Reads a single file into a buffer, followed by either {@code END} or a
+   * {@link Failure}.
+   */
+  private class FileTask implements Runnable {
+    private final Path file;
+    private final StorageKey key;
+    private final BlockingQueue<Object> buffer;
+
+    private FileTask(Path file, StorageKey key, BlockingQueue<Object> buffer) {
+      this.file = file;
+      this.key = key;
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void run() {
+      DatasetReader<E> reader = null;
+      try {
+        try {
+          reader = MultiFileDatasetReader.newFileReader(
+              fileSystem, file, descriptor, schema, constraints, key);
+          reader.open();
+          Predicate<E> predicate = constraints.toEntityPredicate(key);
+          while (reader.hasNext()) {
+            E entity = reader.next();
+            if (predicate.apply(entity)) {
+              buffer.put(entity);
+            }
+          }
+          buffer.put(END);
+        } catch (RuntimeException e) {
+          buffer.put(new Failure(e));
+        } catch (Error e) {
+          buffer.put(new Failure(e));
+        } finally {
+          if (reader != null) {
+            reader.close();
+          }
+        }
+      } catch (InterruptedException e) {
+        // the parallel reader was closed
+        logger.debug("Stopped reading file:{}", file);
+      } catch (RuntimeException e) {
+        logger.warn("Failed to close reader for file:" + file, e);
+      }
+    }
+  }
+
+  private static class Failure {
+    private final Throwable cause;
+
+    private Failure(Throwable cause) {
+      this.cause = cause;
+    }
+
+    private RuntimeException propagate() {
+      if (cause instanceof RuntimeException) {
+        return (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      return new DatasetReaderException(cause);
+    }
+  }
+}
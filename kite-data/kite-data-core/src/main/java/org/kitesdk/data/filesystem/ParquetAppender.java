@@ -24,6 +24,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.compress.SnappyCodec;
+import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.spi.DynMethods;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +36,9 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
 
   private static final Logger logger = LoggerFactory
     .getLogger(ParquetAppender.class);
-  private static final int DEFAULT_BLOCK_SIZE = 50 * 1024 * 1024;
+  static final int DEFAULT_BLOCK_SIZE = 50 * 1024 * 1024;
+  // the same property that ParquetOutputFormat uses
+  static final String BLOCK_SIZE_PROPERTY = "parquet.block.size";
 
   private static final DynMethods.StaticMethod isSnappyNative =
       new DynMethods.Builder("SnappyCodec.isNativeCodeLoaded")
@@ -47,15 +50,31 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
   private final Schema schema;
   private final FileSystem fileSystem;
   private final boolean enableCompression;
+  private final int blockSize;
 
   private AvroParquetWriter<E> avroParquetWriter = null;
 
   public ParquetAppender(FileSystem fileSystem, Path path,
                          Schema schema, boolean enableCompression) {
+    this(fileSystem, path, schema, enableCompression, DEFAULT_BLOCK_SIZE);
+  }
+
+  public ParquetAppender(FileSystem fileSystem, Path path, Schema schema,
+                         boolean enableCompression, int blockSize) {
     this.fileSystem = fileSystem;
     this.path = path;
     this.schema = schema;
     this.enableCompression = enableCompression;
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Returns the row group size for a dataset, which is how much data each
+   * open Parquet file buffers in memory before it is written.
+   */
+  static int blockSize(DatasetDescriptor descriptor) {
+    return Math.max(1, DescriptorUtil.getInt(
+        descriptor, BLOCK_SIZE_PROPERTY, DEFAULT_BLOCK_SIZE));
   }
 
   @Override
@@ -70,7 +89,7 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
       }
     }
     avroParquetWriter = new AvroParquetWriter<E>(fileSystem.makeQualified(path),
-        schema, codecName, DEFAULT_BLOCK_SIZE,
+        schema, codecName, blockSize,
         ParquetWriter.DEFAULT_PAGE_SIZE);
   }
 
@@ -79,6 +98,12 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
     avroParquetWriter.write(entity);
   }
 
+  @Override
+  public long getPos() {
+    // ParquetWriter doesn't expose the size of the file while writing
+    return -1;
+  }
+
   @Override
   public void flush() {
     // Parquet doesn't (currently) expose a flush operation
@@ -95,6 +120,7 @@ class ParquetAppender<E extends IndexedRecord> implements FileSystemWriter.FileA
       .add("path", path)
       .add("schema", schema)
       .add("fileSystem", fileSystem)
+      .add("blockSize", blockSize)
       .add("avroParquetWriter", avroParquetWriter)
       .toString();
   }
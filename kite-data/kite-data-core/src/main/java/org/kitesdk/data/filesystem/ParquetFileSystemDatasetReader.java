@@ -24,27 +24,53 @@ import java.io.EOFException;
 import java.io.IOException;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.IndexedRecord;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import parquet.avro.AvroParquetReader;
+import parquet.avro.AvroReadSupport;
+import parquet.filter.UnboundRecordFilter;
+import parquet.hadoop.ParquetFileReader;
+import parquet.hadoop.metadata.BlockMetaData;
 
 class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDatasetReader<E> {
 
   private FileSystem fileSystem;
   private Path path;
   private Schema schema;
+  private Schema projection;
+  private UnboundRecordFilter filter;
 
   private ReaderWriterState state;
   private AvroParquetReader<E> reader;
 
   private E next;
+  // with a filter, the number of reads left before the end of the file
+  private long remainingReads;
 
   private static final Logger logger = LoggerFactory
     .getLogger(ParquetFileSystemDatasetReader.class);
 
   public ParquetFileSystemDatasetReader(FileSystem fileSystem, Path path, Schema schema) {
+    this(fileSystem, path, schema, null, null);
+  }
+
+  /**
+   * Creates a reader that only decodes the columns in {@code projection} and
+   * skips records rejected by {@code filter} before they are assembled.
+   *
+   * Records are materialized with the file's schema, so fields that are not
+   * in the projection are left unset.
+   *
+   * @param projection a projection of {@code schema}, or null to read all
+   *                   columns
+   * @param filter an UnboundRecordFilter, or null to read all records
+   */
+  public ParquetFileSystemDatasetReader(FileSystem fileSystem, Path path,
+                                        Schema schema, Schema projection,
+                                        UnboundRecordFilter filter) {
     Preconditions.checkArgument(fileSystem != null, "FileSystem cannot be null");
     Preconditions.checkArgument(path != null, "Path cannot be null");
     Preconditions.checkArgument(schema != null, "Schema cannot be null");
@@ -52,6 +78,8 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
     this.fileSystem = fileSystem;
     this.path = path;
     this.schema = schema;
+    this.projection = projection;
+    this.filter = filter;
 
     this.state = ReaderWriterState.NEW;
   }
@@ -63,8 +91,27 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
 
     logger.debug("Opening reader on path:{}", path);
 
+    // ParquetReader lists the file using the default FileSystem
+    Configuration conf = new Configuration(fileSystem.getConf());
+    FileSystem.setDefaultUri(conf, fileSystem.getUri());
+    if (projection != null) {
+      AvroReadSupport.setRequestedProjection(conf, projection);
+    }
+
     try {
-      reader = new AvroParquetReader<E>(fileSystem.makeQualified(path));
+      Path qualified = fileSystem.makeQualified(path);
+      if (filter != null) {
+        // a filtered read returns null when there are no more matches in the
+        // current row group, which is not the end of the file. each read
+        // consumes one of the file's records, so the file is exhausted after
+        // as many reads as it has records.
+        remainingReads = 0;
+        for (BlockMetaData block :
+            ParquetFileReader.readFooter(conf, qualified).getBlocks()) {
+          remainingReads += block.getRowCount();
+        }
+      }
+      reader = new AvroParquetReader<E>(conf, qualified, filter);
     } catch (IOException e) {
       throw new DatasetReaderException("Unable to create reader path:" + path, e);
     }
@@ -76,16 +123,23 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
   public boolean hasNext() {
     Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
       "Attempt to read from a file in state:%s", state);
-    if (next == null) {
+    while (next == null) {
+      if (filter != null && remainingReads <= 0) {
+        return false;
+      }
       try {
         next = reader.read();
+        remainingReads -= 1;
       } catch (EOFException e) {
         return false;
       } catch (IOException e) {
         throw new DatasetReaderException("Unable to read next record from: " + path, e);
       }
+      if (next == null && filter == null) {
+        return false;
+      }
     }
-    return next != null;
+    return true;
   }
 
   @Override
@@ -126,6 +180,8 @@ class ParquetFileSystemDatasetReader<E extends IndexedRecord> extends AbstractDa
       .add("fileSystem", fileSystem)
       .add("path", path)
       .add("schema", schema)
+      .add("projection", projection)
+      .add("filter", filter)
       .add("state", state)
       .add("reader", reader)
       .toString();
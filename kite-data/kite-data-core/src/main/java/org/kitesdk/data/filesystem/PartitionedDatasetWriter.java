@@ -15,8 +15,10 @@
  */
 package org.kitesdk.data.filesystem;
 
+import java.util.concurrent.TimeUnit;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.Formats;
 import org.kitesdk.data.PartitionStrategy;
 import org.kitesdk.data.spi.PartitionListener;
 import org.kitesdk.data.spi.StorageKey;
@@ -26,23 +28,53 @@ import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Writes entities to a {@link FileSystemWriter} for each partition.
+ *
+ * Partition writers are kept open in a pool of at most 10 writers. When the
+ * pool is full, the least-recently used writer is closed.
+ *
+ * If {@code kite.writer.memory-budget} is set, the pool is instead bounded by
+ * the memory the writers buffer, in bytes. A Parquet writer is weighed by the
+ * row group it buffers, which is set by the {@code parquet.block.size}
+ * property. Other formats only buffer their output streams, which are weighed
+ * at 1MB per writer. Writers that have not been used for
+ * {@code kite.writer.idle-timeout-ms} are also closed.
+ */
 class PartitionedDatasetWriter<E> implements DatasetWriter<E> {
 
   private static final Logger logger = LoggerFactory
     .getLogger(PartitionedDatasetWriter.class);
 
+  public static final String MEMORY_BUDGET_PROPERTY =
+      "kite.writer.memory-budget";
+  public static final String IDLE_TIMEOUT_PROPERTY =
+      "kite.writer.idle-timeout-ms";
+
+  // the number of open writers when no memory budget is set
+  static final int DEFAULT_MAX_WRITERS = 10;
+  // memory used by an open Avro file: buffers and HDFS packets
+  static final int AVRO_WRITER_SIZE = 1024 * 1024;
+
   private FileSystemView<E> view;
-  private int maxWriters;
+  private final int maxWriters;
+  private final int writerSize;
+  private final long memoryBudget;
+  private final long idleTimeout;
 
   private final PartitionStrategy partitionStrategy;
   private LoadingCache<StorageKey, DatasetWriter<E>> cachedWriters;
+  private DatasetWriterCacheLoader<E> loader;
+  private DatasetWriterCloser<E> closer;
 
   private final StorageKey reusedKey;
 
@@ -55,11 +87,26 @@ class PartitionedDatasetWriter<E> implements DatasetWriter<E> {
 
     this.view = view;
     this.partitionStrategy = descriptor.getPartitionStrategy();
-    this.maxWriters = Math.min(10, partitionStrategy.getCardinality());
+    this.maxWriters = Math.min(DEFAULT_MAX_WRITERS,
+        partitionStrategy.getCardinality());
+    this.writerSize = writerSize(descriptor);
+    long budget = DescriptorUtil.getLong(descriptor, MEMORY_BUDGET_PROPERTY, 0);
+    // if set, the budget must allow at least one open writer
+    this.memoryBudget = (budget > 0 ? Math.max(writerSize, budget) : 0);
+    this.idleTimeout = DescriptorUtil.getLong(
+        descriptor, IDLE_TIMEOUT_PROPERTY, 0);
     this.state = ReaderWriterState.NEW;
     this.reusedKey = new StorageKey(partitionStrategy);
   }
 
+  private static int writerSize(DatasetDescriptor descriptor) {
+    if (Formats.PARQUET.equals(descriptor.getFormat())) {
+      // Parquet buffers a row group in memory
+      return ParquetAppender.blockSize(descriptor);
+    }
+    return AVRO_WRITER_SIZE;
+  }
+
   @Override
   public void open() {
     Preconditions.checkState(state.equals(ReaderWriterState.NEW),
@@ -68,9 +115,23 @@ class PartitionedDatasetWriter<E> implements DatasetWriter<E> {
     logger.debug("Opening partitioned dataset writer w/strategy:{}",
       partitionStrategy);
 
-    cachedWriters = CacheBuilder.newBuilder().maximumSize(maxWriters)
-      .removalListener(new DatasetWriterCloser<E>())
-      .build(new DatasetWriterCacheLoader<E>(view));
+    this.loader = new DatasetWriterCacheLoader<E>(view);
+    this.closer = new DatasetWriterCloser<E>();
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+    if (memoryBudget > 0) {
+      // a single segment, so that the whole budget is shared by all writers
+      builder.concurrencyLevel(1)
+        .maximumWeight(memoryBudget)
+        .weigher(new FixedWeigher(writerSize));
+    } else {
+      builder.maximumSize(maxWriters);
+    }
+    if (idleTimeout > 0) {
+      builder.expireAfterAccess(idleTimeout, TimeUnit.MILLISECONDS);
+    }
+    cachedWriters = builder
+      .removalListener(closer)
+      .build(loader);
 
     state = ReaderWriterState.OPEN;
   }
@@ -132,10 +193,37 @@ class PartitionedDatasetWriter<E> implements DatasetWriter<E> {
         writer.close();
       }
 
+      logger.info("Closed partitioned writer for view:{} opened:{} " +
+          "evicted when full:{} evicted when idle:{}", new Object[] {
+          view, getOpenedCount(), closer.evictedWhenFull,
+          closer.evictedWhenIdle});
+
       state = ReaderWriterState.CLOSED;
     }
   }
 
+  /**
+   * Returns the number of partition writers opened by this writer.
+   */
+  long getOpenedCount() {
+    return loader.opened;
+  }
+
+  /**
+   * Returns the number of writers closed to stay within the writer limit or
+   * memory budget.
+   */
+  long getEvictedWhenFullCount() {
+    return closer.evictedWhenFull;
+  }
+
+  /**
+   * Returns the number of writers closed because they were idle.
+   */
+  long getEvictedWhenIdleCount() {
+    return closer.evictedWhenIdle;
+  }
+
   @Override
   public boolean isOpen() {
     return state.equals(ReaderWriterState.OPEN);
@@ -146,6 +234,9 @@ class PartitionedDatasetWriter<E> implements DatasetWriter<E> {
     return Objects.toStringHelper(this)
         .add("partitionStrategy", partitionStrategy)
         .add("maxWriters", maxWriters)
+        .add("memoryBudget", memoryBudget)
+        .add("writerSize", writerSize)
+        .add("idleTimeout", idleTimeout)
         .add("view", view)
         .add("cachedWriters", cachedWriters)
         .toString();
@@ -156,6 +247,7 @@ class PartitionedDatasetWriter<E> implements DatasetWriter<E> {
 
     private final FileSystemView<E> view;
     private final PathConversion convert;
+    private long opened = 0;
 
     public DatasetWriterCacheLoader(FileSystemView<E> view) {
       this.view = view;
@@ -164,39 +256,76 @@ class PartitionedDatasetWriter<E> implements DatasetWriter<E> {
 
     @Override
     public DatasetWriter<E> load(StorageKey key) throws Exception {
-      Preconditions.checkState(view.getDataset() instanceof FileSystemDataset,
-          "FileSystemWriters cannot create writer for " + view.getDataset());
-
-      FileSystemDataset dataset = (FileSystemDataset) view.getDataset();
-      Path partition = convert.fromKey(key);
-      DatasetWriter<E> writer = new FileSystemWriter<E>(
-          dataset.getFileSystem(),
-          new Path(dataset.getDirectory(), partition),
-          dataset.getDescriptor());
-
-      PartitionListener listener = dataset.getPartitionListener();
-      if (listener != null) {
-        listener.partitionAdded(dataset.getName(), partition.toString());
-      }
+      DatasetWriter<E> writer = newPartitionWriter(view, key, convert);
+      opened += 1;
+      return writer;
+    }
 
-      writer.open();
+  }
 
-      return writer;
+  /**
+   * Opens a {@link FileSystemWriter} for the partition identified by a key.
+   *
+   * @param view the view that is being written to
+   * @param key a StorageKey for the partition
+   * @param convert a PathConversion to find the partition's directory
+   * @return an open DatasetWriter for the partition
+   */
+  static <E> DatasetWriter<E> newPartitionWriter(FileSystemView<E> view,
+      StorageKey key, PathConversion convert) {
+    Preconditions.checkState(view.getDataset() instanceof FileSystemDataset,
+        "FileSystemWriters cannot create writer for " + view.getDataset());
+
+    FileSystemDataset dataset = (FileSystemDataset) view.getDataset();
+    Path partition = convert.fromKey(key);
+    DatasetWriter<E> writer = new FileSystemWriter<E>(
+        dataset.getFileSystem(),
+        new Path(dataset.getDirectory(), partition),
+        dataset.getDescriptor());
+
+    PartitionListener listener = dataset.getPartitionListener();
+    if (listener != null) {
+      listener.partitionAdded(dataset.getName(), partition.toString());
     }
 
+    writer.open();
+
+    return writer;
+  }
+
+  private static class FixedWeigher implements Weigher<Object, Object> {
+    private final int weight;
+
+    private FixedWeigher(int weight) {
+      this.weight = weight;
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+      return weight;
+    }
   }
 
   private static class DatasetWriterCloser<E> implements
     RemovalListener<StorageKey, DatasetWriter<E>> {
 
+    private long evictedWhenFull = 0;
+    private long evictedWhenIdle = 0;
+
     @Override
     public void onRemoval(
       RemovalNotification<StorageKey, DatasetWriter<E>> notification) {
 
       DatasetWriter<E> writer = notification.getValue();
 
-      logger.debug("Closing writer:{} for partition:{}", writer,
-        notification.getKey());
+      if (RemovalCause.EXPIRED == notification.getCause()) {
+        evictedWhenIdle += 1;
+      } else if (RemovalCause.SIZE == notification.getCause()) {
+        evictedWhenFull += 1;
+      }
+
+      logger.debug("Closing writer:{} for partition:{} ({})", new Object[] {
+        writer, notification.getKey(), notification.getCause()});
 
       writer.close();
     }
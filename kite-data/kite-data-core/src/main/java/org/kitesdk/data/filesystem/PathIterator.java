@@ -18,30 +18,31 @@ package org.kitesdk.data.filesystem;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
-import java.io.IOException;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import org.apache.hadoop.fs.FileStatus;
-import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.kitesdk.data.DatasetIOException;
 import org.kitesdk.data.spi.Pair;
 import org.kitesdk.data.spi.StorageKey;
 
 class PathIterator implements Iterator<Path>, Iterable<Path> {
-  private final FileSystem fs;
+  private final DirectoryLister lister;
   private final Path root;
   private final Iterator<Pair<StorageKey, Path>> directories;
+  // listed partitions that have not been returned yet
+  private final LinkedList<Pair<StorageKey, List<Path>>> listed =
+      Lists.newLinkedList();
   private StorageKey key = null;
   private Iterator<Path> files = null;
 
-  public PathIterator(FileSystem fs, Path root,
+  public PathIterator(DirectoryLister lister, Path root,
                       Iterator<Pair<StorageKey, Path>> directories) {
     Preconditions.checkArgument(directories != null,
         "Directories cannot be null");
 
-    this.fs = fs;
+    this.lister = lister;
     this.root = root;
     this.directories = directories;
   }
@@ -80,37 +81,57 @@ class PathIterator implements Iterator<Path>, Iterable<Path> {
     throw new UnsupportedOperationException("Not supported.");
   }
 
-  @SuppressWarnings("deprecation")
   private boolean advance() {
     while (true) {
-      if (directories.hasNext()) {
-        Pair<StorageKey, Path> pair = directories.next();
-        try {
-          FileStatus[] stats = fs.listStatus(
-              new Path(root, pair.second()), PathFilters.notHidden());
-          this.key = pair.first();
-          List<Path> nextFileSet = Lists.newArrayListWithCapacity(stats.length);
-          for (FileStatus stat : stats) {
-            if (!stat.isDir()) {
-              nextFileSet.add(stat.getPath());
-            }
-          }
-          if (nextFileSet.size() > 0) {
-            this.files = nextFileSet.iterator();
-            return true;
-          }
-        } catch (IOException ex) {
-          throw new DatasetIOException("Cannot list files in " + pair.second(), ex);
-        }
-      } else {
+      if (listed.isEmpty() && !listNextDirectories()) {
         return false;
       }
+      Pair<StorageKey, List<Path>> next = listed.removeFirst();
+      if (next.second().size() > 0) {
+        this.key = next.first();
+        this.files = next.second().iterator();
+        return true;
+      }
     }
   }
 
+  /**
+   * Lists the next group of directories, one for each listing thread.
+   *
+   * @return false if there are no more directories to list
+   */
+  @SuppressWarnings("deprecation")
+  private boolean listNextDirectories() {
+    List<Pair<StorageKey, Path>> batch = Lists.newArrayList();
+    while (batch.size() < lister.getThreads() && directories.hasNext()) {
+      batch.add(directories.next());
+    }
+    if (batch.isEmpty()) {
+      return false;
+    }
+
+    List<Path> dirs = Lists.newArrayListWithCapacity(batch.size());
+    for (Pair<StorageKey, Path> pair : batch) {
+      dirs.add(new Path(root, pair.second()));
+    }
+
+    List<FileStatus[]> listings = lister.listAll(dirs);
+    for (int i = 0, n = batch.size(); i < n; i += 1) {
+      FileStatus[] stats = listings.get(i);
+      List<Path> nextFileSet = Lists.newArrayListWithCapacity(stats.length);
+      for (FileStatus stat : stats) {
+        if (!stat.isDir()) {
+          nextFileSet.add(stat.getPath());
+        }
+      }
+      listed.add(Pair.of(batch.get(i).first(), nextFileSet));
+    }
+
+    return true;
+  }
+
   @Override
   public Iterator<Path> iterator() {
     return this;
   }
 }
-
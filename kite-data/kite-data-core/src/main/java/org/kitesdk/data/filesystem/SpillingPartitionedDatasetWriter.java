@@ -0,0 +1,306 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.UUID;
+import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetIOException;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.spi.ReaderWriterState;
+import org.kitesdk.data.spi.StorageKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A partitioned {@link DatasetWriter} that groups entities by partition and
+ * writes one file per partition when it is closed.
+ *
+ * Entities are buffered in memory, grouped by {@link StorageKey}. When
+ * {@code kite.writer.spill-records} entities are buffered, each partition's
+ * group is spilled to an Avro file in a local directory (under
+ * {@code kite.writer.spill-dir}, or the system temporary directory). When the
+ * writer is closed, partitions are written in key order, and each partition's
+ * spill files and buffered entities are written to a single new file.
+ *
+ * This writer is used when a dataset's descriptor sets {@code kite.writer.spill}
+ * to true. It is intended for partition strategies with more partitions than
+ * can be kept open at once, where {@link PartitionedDatasetWriter} would
+ * create a new file each time a partition writer is closed and reopened.
+ *
+ * Buffered entities are held by reference until they are spilled, so callers
+ * must not reuse entity objects. Entities are not visible in the dataset until
+ * this writer is closed; {@link #flush()} only spills buffered entities.
+ */
+class SpillingPartitionedDatasetWriter<E> implements DatasetWriter<E> {
+
+  private static final Logger logger = LoggerFactory
+      .getLogger(SpillingPartitionedDatasetWriter.class);
+
+  public static final String SPILL_PROPERTY = "kite.writer.spill";
+  public static final String SPILL_RECORDS_PROPERTY = "kite.writer.spill-records";
+  public static final String SPILL_DIR_PROPERTY = "kite.writer.spill-dir";
+
+  public static final long DEFAULT_SPILL_RECORDS = 100000;
+
+  private final FileSystemView<E> view;
+  private final Schema schema;
+  private final PartitionStrategy partitionStrategy;
+  private final long spillRecords;
+  private final String spillDirName;
+  private final StorageKey reusedKey;
+  private final PathConversion convert = new PathConversion();
+
+  private final SortedMap<StorageKey, List<E>> buffered = Maps.newTreeMap();
+  private final SortedMap<StorageKey, List<Path>> spilled = Maps.newTreeMap();
+  private long bufferedCount = 0;
+  private int spillCount = 0;
+
+  private FileSystem localFS = null;
+  private Path spillDirectory = null;
+  private ReaderWriterState state;
+
+  public SpillingPartitionedDatasetWriter(FileSystemView<E> view) {
+    final DatasetDescriptor descriptor = view.getDataset().getDescriptor();
+    Preconditions.checkArgument(descriptor.isPartitioned(),
+        "Dataset " + view.getDataset() + " is not partitioned");
+
+    this.view = view;
+    this.schema = descriptor.getSchema();
+    this.partitionStrategy = descriptor.getPartitionStrategy();
+    this.spillRecords = Math.max(1, DescriptorUtil.getLong(descriptor,
+        SPILL_RECORDS_PROPERTY, DEFAULT_SPILL_RECORDS));
+    this.spillDirName = descriptor.getProperty(SPILL_DIR_PROPERTY);
+    this.reusedKey = new StorageKey(partitionStrategy);
+    this.state = ReaderWriterState.NEW;
+  }
+
+  /**
+   * Returns whether datasets with the given descriptor should be written by a
+   * {@code SpillingPartitionedDatasetWriter}.
+   *
+   * @param descriptor a DatasetDescriptor
+   * @return true if {@code kite.writer.spill} is true
+   */
+  static boolean isEnabled(DatasetDescriptor descriptor) {
+    return Boolean.parseBoolean(descriptor.getProperty(SPILL_PROPERTY));
+  }
+
+  @Override
+  public void open() {
+    Preconditions.checkState(state.equals(ReaderWriterState.NEW),
+        "Unable to open a writer from state:%s", state);
+
+    File dir;
+    if (spillDirName != null) {
+      dir = new File(spillDirName, "kite-spill-" + UUID.randomUUID());
+      if (!dir.mkdirs()) {
+        this.state = ReaderWriterState.ERROR;
+        throw new DatasetIOException("Failed to create spill directory " + dir,
+            new IOException("Cannot create " + dir));
+      }
+    } else {
+      dir = Files.createTempDir();
+    }
+    this.spillDirectory = new Path(dir.getAbsolutePath());
+
+    try {
+      this.localFS = FileSystem.getLocal(new Configuration());
+    } catch (IOException ex) {
+      this.state = ReaderWriterState.ERROR;
+      throw new DatasetIOException("Cannot get the local file system", ex);
+    }
+
+    logger.debug("Opened spilling writer for view:{} spilling to:{}",
+        view, spillDirectory);
+
+    this.state = ReaderWriterState.OPEN;
+  }
+
+  @Override
+  public void write(E entity) {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+        "Attempt to write to a writer in state:%s", state);
+
+    reusedKey.reuseFor(entity);
+
+    List<E> group = buffered.get(reusedKey);
+    if (group == null) {
+      // only check whether the entity belongs in the view for new partitions
+      if (!spilled.containsKey(reusedKey)) {
+        Preconditions.checkArgument(view.includes(entity),
+            "View %s does not include entity %s", view, entity);
+      }
+      group = Lists.newArrayList();
+      // get a new key because it is stored in the map
+      buffered.put(StorageKey.copy(reusedKey), group);
+    }
+
+    group.add(entity);
+    bufferedCount += 1;
+
+    if (bufferedCount >= spillRecords) {
+      spill();
+    }
+  }
+
+  /**
+   * Moves buffered entities to local spill files. Entities are not written to
+   * the dataset until this writer is closed.
+   */
+  @Override
+  public void flush() {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+        "Attempt to write to a writer in state:%s", state);
+    spill();
+  }
+
+  private void spill() {
+    logger.debug("Spilling {} entities in {} partitions",
+        bufferedCount, buffered.size());
+
+    for (Map.Entry<StorageKey, List<E>> entry : buffered.entrySet()) {
+      Path file = new Path(spillDirectory, "spill-" + spillCount + ".avro");
+      spillCount += 1;
+
+      AvroAppender<E> appender = new AvroAppender<E>(
+          localFS, file, schema, false);
+      try {
+        appender.open();
+        for (E entity : entry.getValue()) {
+          appender.append(entity);
+        }
+        appender.close();
+      } catch (IOException ex) {
+        this.state = ReaderWriterState.ERROR;
+        throw new DatasetIOException("Failed to spill to " + file, ex);
+      }
+
+      List<Path> files = spilled.get(entry.getKey());
+      if (files == null) {
+        files = Lists.newArrayList();
+        spilled.put(entry.getKey(), files);
+      }
+      files.add(file);
+    }
+
+    buffered.clear();
+    this.bufferedCount = 0;
+  }
+
+  @Override
+  public void close() {
+    if (state.equals(ReaderWriterState.OPEN)) {
+      try {
+        SortedSet<StorageKey> keys = Sets.newTreeSet(spilled.keySet());
+        keys.addAll(buffered.keySet());
+
+        logger.debug("Writing {} partitions for view:{}", keys.size(), view);
+
+        for (StorageKey key : keys) {
+          writePartition(key);
+        }
+      } catch (RuntimeException ex) {
+        this.state = ReaderWriterState.ERROR;
+        throw ex;
+      } finally {
+        cleanUp();
+      }
+
+      this.state = ReaderWriterState.CLOSED;
+
+    } else if (state.equals(ReaderWriterState.ERROR)) {
+      cleanUp();
+      this.state = ReaderWriterState.CLOSED;
+    }
+  }
+
+  private void writePartition(StorageKey key) {
+    DatasetWriter<E> writer = PartitionedDatasetWriter.newPartitionWriter(
+        view, key, convert);
+    try {
+      List<Path> files = spilled.get(key);
+      if (files != null) {
+        for (Path file : files) {
+          FileSystemDatasetReader<E> reader = new FileSystemDatasetReader<E>(
+              localFS, file, schema);
+          reader.open();
+          try {
+            while (reader.hasNext()) {
+              writer.write(reader.next());
+            }
+          } finally {
+            reader.close();
+          }
+        }
+      }
+      List<E> group = buffered.get(key);
+      if (group != null) {
+        for (E entity : group) {
+          writer.write(entity);
+        }
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  private void cleanUp() {
+    buffered.clear();
+    spilled.clear();
+    this.bufferedCount = 0;
+    if (localFS != null && spillDirectory != null) {
+      try {
+        localFS.delete(spillDirectory, true);
+      } catch (IOException ex) {
+        logger.warn("Failed to remove spill directory " + spillDirectory, ex);
+      }
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return state.equals(ReaderWriterState.OPEN);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("partitionStrategy", partitionStrategy)
+        .add("spillRecords", spillRecords)
+        .add("spillDirectory", spillDirectory)
+        .add("view", view)
+        .add("state", state)
+        .toString();
+  }
+}
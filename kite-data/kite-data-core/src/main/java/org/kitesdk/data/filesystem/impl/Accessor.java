@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.List;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputFormat;
 
 /**
  * <p>
@@ -78,4 +79,15 @@ public abstract class Accessor {
   public abstract void ensureExists(DatasetDescriptor descriptor, Configuration conf);
 
   public abstract <E> PartitionKey fromDirectoryName(Dataset<E> dataset, Path dir);
+
+  /**
+   * Returns an {@code InputFormat} like the given one that groups its splits
+   * into splits of about {@code splitSize} bytes.
+   * @param format an {@code InputFormat} returned by a {@link Dataset} or {@link View}
+   * @param splitSize the target size of each split, in bytes
+   * @return the combining {@code InputFormat}
+   * @throws UnsupportedOperationException if the format is not for a file system dataset
+   */
+  public abstract <E> InputFormat<E, Void> combineSplits(
+      InputFormat<E, Void> format, long splitSize);
 }
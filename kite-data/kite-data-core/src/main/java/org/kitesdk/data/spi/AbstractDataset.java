@@ -87,10 +87,33 @@ public abstract class AbstractDataset<E> implements Dataset<E>, RefinableView<E>
     return asRefinableView().toBefore(name, value);
   }
 
+  /**
+   * Returns a view of this dataset that reads only the given fields of each
+   * entity.
+   *
+   * @param names the field names of the entity to read
+   * @return the projected view
+   * @see AbstractRefinableView#select(String...)
+   */
+  public AbstractRefinableView<E> select(String... names) {
+    return ((AbstractRefinableView<E>) asRefinableView()).select(names);
+  }
+
   public InputFormat<E, Void> getDelegateInputFormat() {
     throw new UnsupportedOperationException("No delegate input format defined.");
   }
 
+  /**
+   * Returns a view of this dataset that contains the entities that satisfy the
+   * given {@link Constraints}.
+   *
+   * @param constraints Constraints for the dataset's schema
+   * @return a view of this dataset
+   */
+  public AbstractRefinableView<E> filter(Constraints constraints) {
+    return ((AbstractRefinableView<E>) asRefinableView()).filter(constraints);
+  }
+
   @Override
   public boolean deleteAll() {
     throw new UnsupportedOperationException(
@@ -16,11 +16,18 @@
 
 package org.kitesdk.data.spi;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import java.util.Set;
+import org.apache.avro.Schema;
+import org.apache.hadoop.mapreduce.InputFormat;
 import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetDescriptor;
 import com.google.common.base.Objects;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
 import org.kitesdk.data.RefinableView;
@@ -41,6 +48,9 @@ public abstract class AbstractRefinableView<E> implements RefinableView<E> {
   protected final MarkerComparator comparator;
   protected final Constraints constraints;
   protected final Predicate<E> entityTest;
+  // null when all fields are selected
+  @Nullable
+  protected final Set<String> selected;
 
   // This class is Immutable and must be thread-safe
   protected final ThreadLocal<StorageKey> keys;
@@ -62,30 +72,93 @@ public abstract class AbstractRefinableView<E> implements RefinableView<E> {
     }
     this.constraints = new Constraints(dataset.getDescriptor().getSchema());
     this.entityTest = constraints.toEntityPredicate();
+    this.selected = null;
   }
 
   protected AbstractRefinableView(AbstractRefinableView<E> view, Constraints constraints) {
+    this(view, constraints, view.selected);
+  }
+
+  protected AbstractRefinableView(AbstractRefinableView<E> view,
+                                  Constraints constraints,
+                                  @Nullable Set<String> selected) {
     this.dataset = view.dataset;
     this.comparator = view.comparator;
     this.constraints = constraints;
     this.entityTest = constraints.toEntityPredicate();
     // thread-safe, so okay to reuse when views share a partition strategy
     this.keys = view.keys;
+    this.selected = (selected == null ? null : ImmutableSet.copyOf(selected));
   }
 
   protected abstract AbstractRefinableView<E> filter(Constraints c);
 
+  /**
+   * Returns a view with the same constraints as this one that reads only the
+   * given fields.
+   *
+   * Implementations that support projection should override this method. By
+   * default, this view is returned and readers populate all fields, which
+   * satisfies the contract of {@link #select(String...)}.
+   *
+   * @param selected a Set of field names
+   * @return a projected view
+   */
+  protected AbstractRefinableView<E> project(Set<String> selected) {
+    return this;
+  }
+
+  /**
+   * Returns the {@link Schema} that readers for this view should use.
+   *
+   * If fields have been selected, this is a projection of the dataset schema
+   * that includes the selected fields and the fields needed to check this
+   * view's constraints. Otherwise, it is the dataset schema.
+   *
+   * @return the read Schema for this view
+   */
+  protected Schema getReadSchema() {
+    Schema schema = dataset.getDescriptor().getSchema();
+    if (selected == null) {
+      return schema;
+    }
+    Set<String> fields = Sets.newHashSet(selected);
+    fields.addAll(constraints.toFieldPredicates(null).keySet());
+    return SchemaUtil.project(schema, fields);
+  }
+
   @Override
   public Dataset<E> getDataset() {
     return dataset;
   }
 
+  /**
+   * Returns the {@link Constraints} that entities in this view satisfy.
+   *
+   * @return the Constraints of this view
+   */
+  public Constraints getConstraints() {
+    return constraints;
+  }
+
   @Override
   public boolean deleteAll() {
     throw new UnsupportedOperationException(
         "This Dataset does not support bulk deletion");
   }
 
+  /**
+   * Returns an {@code InputFormat} that reads the entities in this view.
+   *
+   * Implementations that support MapReduce should override this method.
+   *
+   * @return an InputFormat for this view
+   */
+  public InputFormat<E, Void> getDelegateInputFormat() {
+    throw new UnsupportedOperationException(
+        "No delegate input format defined for view: " + this);
+  }
+
   /**
    * Returns an Iterable of non-overlapping {@link View} objects that partition
    * the underlying {@link org.kitesdk.data.Dataset} and cover this {@code View}.
@@ -143,6 +216,32 @@ public abstract class AbstractRefinableView<E> implements RefinableView<E> {
     return filter(constraints.toBefore(name, value));
   }
 
+  /**
+   * Creates a sub-{@code View} that reads only the given fields of each entity.
+   *
+   * Readers for the returned view are only required to populate the selected
+   * fields and any fields that are used by the view's constraints; other
+   * fields may be omitted or left unset, depending on the dataset format.
+   * Datasets that do not support projection return a view that reads full
+   * entities.
+   *
+   * @param names the field names of the entity to read
+   * @return the projected view
+   * @throws IllegalArgumentException
+   *      If no fields are given, a field is not in the dataset schema, or a
+   *      field is not selected by this view.
+   */
+  public AbstractRefinableView<E> select(String... names) {
+    Set<String> fields = ImmutableSet.copyOf(names);
+    Preconditions.checkArgument(!fields.isEmpty(), "No fields selected");
+    // validate the field names
+    SchemaUtil.project(dataset.getDescriptor().getSchema(), fields);
+    // a view can only narrow the fields selected by its parent
+    Preconditions.checkArgument(selected == null || selected.containsAll(fields),
+        "Fields %s are not all selected by %s", fields, this);
+    return project(fields);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -155,12 +254,13 @@ public abstract class AbstractRefinableView<E> implements RefinableView<E> {
 
     AbstractRefinableView that = (AbstractRefinableView) o;
     return (Objects.equal(this.dataset, that.dataset) &&
-        Objects.equal(this.constraints, that.constraints));
+        Objects.equal(this.constraints, that.constraints) &&
+        Objects.equal(this.selected, that.selected));
   }
 
   @Override
   public int hashCode() {
-    return Objects.hashCode(getClass(), dataset, constraints);
+    return Objects.hashCode(getClass(), dataset, constraints, selected);
   }
 
   @Override
@@ -168,6 +268,7 @@ public abstract class AbstractRefinableView<E> implements RefinableView<E> {
     return Objects.toStringHelper(this)
         .add("dataset", dataset)
         .add("constraints", constraints)
+        .add("selected", selected)
         .toString();
   }
 }
@@ -29,7 +29,6 @@ import com.google.common.collect.Ranges;
 import com.google.common.collect.Sets;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Parser;
-import org.apache.avro.generic.GenericRecord;
 import org.kitesdk.data.PartitionStrategy;
 import org.kitesdk.data.spi.partition.CalendarFieldPartitioner;
 import org.slf4j.Logger;
@@ -37,13 +36,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -85,6 +80,15 @@ public class Constraints implements Serializable{
     return new EntityPredicate<E>(constraints);
   }
 
+  /**
+   * Returns whether these constraints accept all entities.
+   *
+   * @return true if there are no constraints
+   */
+  public boolean isUnbounded() {
+    return constraints.isEmpty();
+  }
+
   /**
    * Get a {@link Predicate} for testing entity objects that match the given
    * {@link StorageKey}.
@@ -104,6 +108,23 @@ public class Constraints implements Serializable{
     return toEntityPredicate();
   }
 
+  /**
+   * Get the field {@link Predicate} constraints that entities in the partition
+   * identified by the given {@link StorageKey} must still satisfy.
+   *
+   * Constraints that are satisfied by the partition are removed. If the key is
+   * null, all of the field constraints are returned.
+   *
+   * @param key a StorageKey for entities tested with the predicates, or null
+   * @return a Map from field name to the Predicate for that field
+   */
+  public Map<String, Predicate> toFieldPredicates(@Nullable StorageKey key) {
+    if (key != null) {
+      return minimizeFor(key);
+    }
+    return constraints;
+  }
+
   @VisibleForTesting
   @SuppressWarnings("unchecked")
   Map<String, Predicate> minimizeFor(StorageKey key) {
@@ -491,30 +512,7 @@ public class Constraints implements Serializable{
     }
 
     private static Object get(Object entity, String name) {
-      if (entity instanceof GenericRecord) {
-        return ((GenericRecord) entity).get(name);
-      } else {
-        try {
-          PropertyDescriptor propertyDescriptor = new PropertyDescriptor(name,
-              entity.getClass(), getter(name), null /* assume read only */);
-          return propertyDescriptor.getReadMethod().invoke(entity);
-        } catch (IllegalAccessException e) {
-          throw new IllegalStateException("Cannot read property " + name +
-              " from " + entity, e);
-        } catch (InvocationTargetException e) {
-          throw new IllegalStateException("Cannot read property " + name +
-              " from " + entity, e);
-        } catch (IntrospectionException e) {
-          throw new IllegalStateException("Cannot read property " + name +
-              " from " + entity, e);
-        }
-      }
-    }
-
-    private static String getter(String name) {
-      return "get" +
-          name.substring(0, 1).toUpperCase(Locale.ENGLISH) +
-          name.substring(1);
+      return FieldAccessors.get(entity, name);
     }
 
     @Override
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * Reads named fields from entities, such as the source fields of a
+ * {@link org.kitesdk.data.PartitionStrategy}.
+ *
+ * Generic records are read by field name. For other entities, an accessor is
+ * resolved once per class and field name and then cached: specific records are
+ * read by field position, and all other entities through the field's getter
+ * method, e.g. {@code getUserId()} for the field {@code userId}.
+ *
+ * @since 0.12.0
+ */
+public class FieldAccessors {
+
+  private static final Object[] NO_ARGS = new Object[0];
+
+  // accessors reference their entity class through a getter Method, so weak
+  // keys alone would never be collected. soft values let the GC drop the
+  // accessors, and then the class, when memory is low; they are rebuilt if the
+  // class is used again.
+  private static final LoadingCache<Class<?>, ConcurrentMap<String, FieldAccessor>>
+      ACCESSORS = CacheBuilder.newBuilder().weakKeys().softValues().build(
+      new CacheLoader<Class<?>, ConcurrentMap<String, FieldAccessor>>() {
+        @Override
+        public ConcurrentMap<String, FieldAccessor> load(Class<?> entityClass) {
+          return new ConcurrentHashMap<String, FieldAccessor>();
+        }
+      });
+
+  private FieldAccessors() {
+  }
+
+  /**
+   * Returns the value of the field {@code name} of the given {@code entity}.
+   *
+   * @param entity an entity
+   * @param name a field name
+   * @return the value of the field
+   * @throws IllegalStateException
+   *      If the field cannot be read from the entity
+   */
+  public static Object get(Object entity, String name) {
+    if (entity instanceof GenericRecord && !(entity instanceof SpecificRecord)) {
+      return ((GenericRecord) entity).get(name);
+    }
+    ConcurrentMap<String, FieldAccessor> accessors =
+        ACCESSORS.getUnchecked(entity.getClass());
+    FieldAccessor accessor = accessors.get(name);
+    if (accessor == null) {
+      accessor = newAccessor(entity, name);
+      accessors.putIfAbsent(name, accessor);
+    }
+    return accessor.get(entity, name);
+  }
+
+  private static FieldAccessor newAccessor(Object entity, String name) {
+    if (entity instanceof SpecificRecord) {
+      // the schema of a specific record is fixed for its class
+      Schema.Field field = ((SpecificRecord) entity).getSchema().getField(name);
+      if (field != null) {
+        return new PositionAccessor(field.pos());
+      }
+    }
+    try {
+      Method method = entity.getClass().getMethod(getter(name));
+      try {
+        method.setAccessible(true); // skip access checks on every call
+      } catch (SecurityException e) {
+        // fall back to checked access
+      }
+      return new MethodAccessor(method);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException("Cannot read property " + name +
+          " from " + entity, e);
+    }
+  }
+
+  private static String getter(String name) {
+    return "get" +
+        name.substring(0, 1).toUpperCase(Locale.ENGLISH) +
+        name.substring(1);
+  }
+
+  private abstract static class FieldAccessor {
+    abstract Object get(Object entity, String name);
+  }
+
+  private static class PositionAccessor extends FieldAccessor {
+    private final int pos;
+
+    PositionAccessor(int pos) {
+      this.pos = pos;
+    }
+
+    @Override
+    Object get(Object entity, String name) {
+      return ((SpecificRecord) entity).get(pos);
+    }
+  }
+
+  private static class MethodAccessor extends FieldAccessor {
+    private final Method method;
+
+    MethodAccessor(Method method) {
+      this.method = method;
+    }
+
+    @Override
+    Object get(Object entity, String name) {
+      try {
+        return method.invoke(entity, NO_ARGS);
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Cannot read property " + name +
+            " from " + entity, e);
+      } catch (InvocationTargetException e) {
+        throw new IllegalStateException("Cannot read property " + name +
+            " from " + entity, e);
+      }
+    }
+  }
+}
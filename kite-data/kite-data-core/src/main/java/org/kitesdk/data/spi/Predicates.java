@@ -139,7 +139,7 @@ public abstract class Predicates {
       return new In<V>(Iterables.transform(set, function));
     }
 
-    Set<T> getSet() {
+    public Set<T> getSet() {
       return set;
     }
 
@@ -20,6 +20,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import java.nio.ByteBuffer;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import org.apache.avro.Schema;
@@ -81,6 +82,40 @@ public class SchemaUtil {
     return (schema.getField(fieldName) != null);
   }
 
+  /**
+   * Returns a record {@link Schema} with only the named fields of
+   * {@code schema}, in the order they are declared in {@code schema}.
+   *
+   * The projected schema has the same full name as the original so that it
+   * can be used to resolve data written with the original schema.
+   *
+   * @param schema a record Schema
+   * @param fieldNames the names of fields to keep
+   * @return a record Schema with only the named fields
+   */
+  public static Schema project(Schema schema, Collection<String> fieldNames) {
+    Preconditions.checkArgument(Schema.Type.RECORD == schema.getType(),
+        "Cannot project non-record schema %s", schema);
+    for (String fieldName : fieldNames) {
+      Preconditions.checkArgument(hasField(schema, fieldName),
+          "No field '%s' in schema %s", fieldName, schema);
+    }
+
+    List<Schema.Field> fields = Lists.newArrayList();
+    for (Schema.Field field : schema.getFields()) {
+      if (fieldNames.contains(field.name())) {
+        // fields cannot be reused in another record schema
+        fields.add(new Schema.Field(field.name(), field.schema(), field.doc(),
+            field.defaultValue(), field.order()));
+      }
+    }
+
+    Schema projection = Schema.createRecord(schema.getName(), schema.getDoc(),
+        schema.getNamespace(), schema.isError());
+    projection.setFields(fields);
+    return projection;
+  }
+
   public static void checkPartitionedBy(DatasetDescriptor descriptor,
                                          String fieldName) {
     Preconditions.checkArgument(descriptor.isPartitioned(),
@@ -26,14 +26,9 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import org.apache.avro.generic.GenericRecord;
 
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
@@ -145,27 +140,7 @@ public class StorageKey extends Marker implements Comparable<StorageKey> {
 
     for (int i = 0; i < partitioners.size(); i++) {
       final FieldPartitioner fp = partitioners.get(i);
-      final Object value;
-      // TODO: this should probably live elsewhere and be extensible
-      if (entity instanceof GenericRecord) {
-        value = ((GenericRecord) entity).get(fp.getSourceName());
-      } else {
-        final String name = fp.getSourceName();
-        try {
-          PropertyDescriptor propertyDescriptor = new PropertyDescriptor(name,
-              entity.getClass(), getter(name), null /* assume read only */);
-          value = propertyDescriptor.getReadMethod().invoke(entity);
-        } catch (IllegalAccessException e) {
-          throw new IllegalStateException("Cannot read property " + name +
-              " from " + entity, e);
-        } catch (InvocationTargetException e) {
-          throw new IllegalStateException("Cannot read property " + name +
-              " from " + entity, e);
-        } catch (IntrospectionException e) {
-          throw new IllegalStateException("Cannot read property " + name +
-              " from " + entity, e);
-        }
-      }
+      final Object value = FieldAccessors.get(entity, fp.getSourceName());
       replace(i, fp.apply(value));
     }
 
@@ -211,12 +186,6 @@ public class StorageKey extends Marker implements Comparable<StorageKey> {
     return Objects.toStringHelper(this).add("values", values).toString();
   }
 
-  private static String getter(String name) {
-    return "get" +
-        name.substring(0, 1).toUpperCase(Locale.ENGLISH) +
-        name.substring(1);
-  }
-
   /**
    * A convenience method to make a copy of a {@link StorageKey}.
    *
@@ -39,6 +39,12 @@ import org.kitesdk.data.spi.FieldPartitioner;
 public class CalendarFieldPartitioner extends FieldPartitioner<Long, Integer> {
 
   protected static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+  private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+  // start of the Gregorian calendar (1582-10-15); Calendar uses the Julian
+  // calendar for earlier dates
+  private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
   protected int calendarField;
 
   public CalendarFieldPartitioner(String sourceName, String name,
@@ -49,11 +55,70 @@ public class CalendarFieldPartitioner extends FieldPartitioner<Long, Integer> {
 
   @Override
   public Integer apply(@Nonnull Long timestamp) {
+    return get(timestamp, calendarField);
+  }
+
+  /**
+   * Returns the same value as {@link Calendar#get(int)} for a UTC
+   * {@code Calendar} set to the given timestamp.
+   *
+   * Common fields are calculated directly, without allocating a
+   * {@code Calendar}.
+   */
+  static int get(long timestamp, int calendarField) {
+    if (timestamp >= GREGORIAN_CUTOVER) {
+      long days = floorDiv(timestamp, MILLIS_PER_DAY);
+      int millisOfDay = (int) (timestamp - days * MILLIS_PER_DAY);
+      switch (calendarField) {
+        case Calendar.MILLISECOND:
+          return millisOfDay % 1000;
+        case Calendar.SECOND:
+          return (millisOfDay / 1000) % 60;
+        case Calendar.MINUTE:
+          return (millisOfDay / (60 * 1000)) % 60;
+        case Calendar.HOUR_OF_DAY:
+          return millisOfDay / (60 * 60 * 1000);
+        case Calendar.YEAR:
+        case Calendar.MONTH:
+        case Calendar.DAY_OF_MONTH:
+          return getDateField(days, calendarField);
+        default:
+          break;
+      }
+    }
     Calendar cal = Calendar.getInstance(UTC);
     cal.setTimeInMillis(timestamp);
     return cal.get(calendarField);
   }
 
+  /**
+   * Converts days since epoch to a proleptic Gregorian year, month or day of
+   * month, using the civil_from_days algorithm by Howard Hinnant.
+   */
+  private static int getDateField(long epochDays, int calendarField) {
+    long days = epochDays + 719468; // shift the epoch to 0000-03-01
+    long era = floorDiv(days, 146097); // 400 year cycles
+    int dayOfEra = (int) (days - era * 146097);
+    int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 -
+        dayOfEra / 146096) / 365;
+    int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    int shiftedMonth = (5 * dayOfYear + 2) / 153; // 0 = March
+    switch (calendarField) {
+      case Calendar.DAY_OF_MONTH:
+        return dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+      case Calendar.MONTH:
+        return shiftedMonth < 10 ? shiftedMonth + 2 : shiftedMonth - 10;
+      default:
+        long year = yearOfEra + era * 400;
+        return (int) (shiftedMonth < 10 ? year : year + 1);
+    }
+  }
+
+  static long floorDiv(long x, long y) {
+    long q = x / y;
+    return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+  }
+
   @Override
   public Predicate<Integer> project(Predicate<Long> predicate) {
     return null;
@@ -33,6 +33,10 @@ import org.kitesdk.data.spi.Predicates;
  *  epoch, such as those returned by {@link System#currentTimeMillis()}, using
  * {@link SimpleDateFormat}.
  *
+ * Each thread formats with its own copy of the {@code SimpleDateFormat}. For
+ * UTC, consecutive timestamps in the same period of the pattern's smallest
+ * field, e.g. the same hour for "yyyy-MM-dd-HH", reuse the last result.
+ *
  * @since 0.9.0
  */
 @edu.umd.cs.findbugs.annotations.SuppressWarnings(value={
@@ -43,7 +47,14 @@ import org.kitesdk.data.spi.Predicates;
 public class DateFormatPartitioner extends FieldPartitioner<Long, String> {
 
   private static final String DEFAULT_TIME_ZONE = "UTC";
-  private final SimpleDateFormat format;
+  private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+  private static final long SECOND = 1000L;
+  private static final long MINUTE = 60 * SECOND;
+  private static final long HOUR = 60 * MINUTE;
+  private static final long DAY = 24 * HOUR;
+
+  private final SimpleDateFormat format; // prototype, not used for formatting
+  private final ThreadLocal<CachedFormat> formats;
 
   /**
    * Construct a new {@link DateFormatPartitioner} for Universal Coordinated
@@ -73,6 +84,14 @@ public class DateFormatPartitioner extends FieldPartitioner<Long, String> {
         "Illegal format: \"/\" is not allowed (use multiple partition fields)");
     this.format = new SimpleDateFormat(format);
     this.format.setTimeZone(zone);
+    final long period = getPeriod(format, zone);
+    this.formats = new ThreadLocal<CachedFormat>() {
+      @Override
+      protected CachedFormat initialValue() {
+        return new CachedFormat(
+            (SimpleDateFormat) DateFormatPartitioner.this.format.clone(), period);
+      }
+    };
   }
 
   String getPattern() {
@@ -81,7 +100,7 @@ public class DateFormatPartitioner extends FieldPartitioner<Long, String> {
 
   @Override
   public String apply(Long value) {
-    return format.format(new Date(value));
+    return formats.get().format(value);
   }
 
   @Override
@@ -141,4 +160,71 @@ public class DateFormatPartitioner extends FieldPartitioner<Long, String> {
     return Objects.hashCode(getSourceName(), getName(), format, getCardinality());
   }
 
+  /**
+   * Returns the length in milliseconds of the periods in which all timestamps
+   * are formatted to the same string, or 0 if there is no such period.
+   */
+  private static long getPeriod(String pattern, TimeZone zone) {
+    if (!zone.hasSameRules(UTC)) {
+      return 0; // period boundaries would depend on the zone's offsets
+    }
+    long period = DAY;
+    boolean isQuoted = false;
+    for (int i = 0; i < pattern.length(); i += 1) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        isQuoted = !isQuoted;
+      } else if (!isQuoted &&
+          ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+        switch (c) {
+          case 'G': case 'y': case 'Y': case 'M': case 'L': case 'w': case 'W':
+          case 'D': case 'd': case 'F': case 'E': case 'u':
+          case 'z': case 'Z': case 'X':
+            break;
+          case 'a': case 'H': case 'k': case 'K': case 'h':
+            period = Math.min(period, HOUR);
+            break;
+          case 'm':
+            period = Math.min(period, MINUTE);
+            break;
+          case 's':
+            period = Math.min(period, SECOND);
+            break;
+          default:
+            return 0; // milliseconds or unknown
+        }
+      }
+    }
+    return period;
+  }
+
+  /**
+   * A per-thread {@link SimpleDateFormat} that remembers its last result.
+   */
+  private static class CachedFormat {
+    private final SimpleDateFormat format;
+    private final long period;
+    private final Date date = new Date(0);
+    private long lastPeriod;
+    private String lastResult = null;
+
+    private CachedFormat(SimpleDateFormat format, long period) {
+      this.format = format;
+      this.period = period;
+    }
+
+    public String format(long timestamp) {
+      if (period > 0) {
+        long current = CalendarFieldPartitioner.floorDiv(timestamp, period);
+        if (lastResult != null && current == lastPeriod) {
+          return lastResult;
+        }
+        this.lastPeriod = current;
+      }
+      date.setTime(timestamp);
+      this.lastResult = format.format(date);
+      return lastResult;
+    }
+  }
+
 }
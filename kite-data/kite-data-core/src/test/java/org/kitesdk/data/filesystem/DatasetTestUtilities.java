@@ -19,6 +19,7 @@ import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetReader;
 import org.kitesdk.data.DatasetWriter;
 import org.kitesdk.data.PartitionKey;
+import org.kitesdk.data.View;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
@@ -133,7 +134,7 @@ public class DatasetTestUtilities {
     Assert.assertTrue(usernames.isEmpty());
   }
 
-  public static <E> Set<E> materialize(Dataset<E> ds) {
+  public static <E> Set<E> materialize(View<E> ds) {
     Set<E> records = Sets.newHashSet();
     DatasetReader<E> reader = null;
     try {
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.DatasetWriterException;
+
+public class TestAsyncDatasetWriter {
+
+  /**
+   * Collects entities and records the thread that writes them.
+   */
+  private static class CollectingWriter implements DatasetWriter<String> {
+    private final List<String> written = Lists.newArrayList();
+    private final String failOn;
+    private volatile Thread writeThread = null;
+    private boolean open = false;
+    private int flushes = 0;
+
+    private CollectingWriter(String failOn) {
+      this.failOn = failOn;
+    }
+
+    @Override
+    public void open() {
+      this.open = true;
+    }
+
+    @Override
+    public void write(String entity) {
+      this.writeThread = Thread.currentThread();
+      if (entity.equals(failOn)) {
+        throw new IllegalStateException("Failed on " + entity);
+      }
+      written.add(entity);
+    }
+
+    @Override
+    public void flush() {
+      flushes += 1;
+    }
+
+    @Override
+    public void close() {
+      this.open = false;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+  }
+
+  @Test
+  public void testWritesInBackground() {
+    CollectingWriter collector = new CollectingWriter(null);
+    AsyncDatasetWriter<String> writer =
+        new AsyncDatasetWriter<String>(collector, 7);
+    writer.open();
+    Assert.assertTrue(writer.isOpen());
+    for (int i = 0; i < 100; i += 1) {
+      writer.write("entity-" + i);
+    }
+    writer.flush();
+    Assert.assertEquals("Should write all entities before flush returns",
+        100, collector.written.size());
+    Assert.assertEquals(1, collector.flushes);
+    Assert.assertNotSame("Should write on a background thread",
+        Thread.currentThread(), collector.writeThread);
+
+    writer.write("last");
+    writer.close();
+    Assert.assertFalse(writer.isOpen());
+    Assert.assertFalse("Should close the underlying writer", collector.open);
+    Assert.assertEquals(101, collector.written.size());
+    for (int i = 0; i < 100; i += 1) {
+      Assert.assertEquals("entity-" + i, collector.written.get(i));
+    }
+  }
+
+  @Test
+  public void testFailurePropagatesToFlush() {
+    CollectingWriter collector = new CollectingWriter("entity-3");
+    AsyncDatasetWriter<String> writer =
+        new AsyncDatasetWriter<String>(collector, 7);
+    writer.open();
+    try {
+      // the failure may be reported by a later write or by flush
+      for (int i = 0; i < 10; i += 1) {
+        writer.write("entity-" + i);
+      }
+      writer.flush();
+      Assert.fail("Should throw the background failure");
+    } catch (DatasetWriterException ex) {
+      Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+    Assert.assertFalse("Should not be open after a failure", writer.isOpen());
+    Assert.assertEquals("Should stop writing after a failure",
+        3, collector.written.size());
+
+    writer.close();
+    Assert.assertFalse(writer.isOpen());
+    Assert.assertFalse("Should close the underlying writer before returning",
+        collector.isOpen());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWriteBeforeOpenFails() {
+    new AsyncDatasetWriter<String>(new CollectingWriter(null), 7).write("a");
+  }
+}
@@ -16,7 +16,10 @@
 
 package org.kitesdk.data.filesystem;
 
+import java.io.IOException;
 import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Test;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetWriter;
 
@@ -29,4 +32,53 @@ public class TestAvroWriter extends TestFileSystemWriters<Object> {
             .format("avro")
             .build());
   }
+
+  private DatasetWriter<Object> newWriter(String property, String value) {
+    return new FileSystemWriter<Object>(fs, testDirectory,
+        new DatasetDescriptor.Builder()
+            .schemaLiteral("\"string\"")
+            .format("avro")
+            .property(property, value)
+            .build());
+  }
+
+  @Test
+  public void testRollByRecords() throws IOException {
+    DatasetWriter<Object> writer = newWriter(
+        FileSystemWriter.ROLL_RECORDS_PROPERTY, "10");
+    writer.open();
+    for (int i = 0; i < 25; i += 1) {
+      writer.write("entry " + i);
+    }
+    writer.close();
+    Assert.assertEquals("Should roll after every 10 records",
+        3, fs.listStatus(testDirectory, PathFilters.notHidden()).length);
+  }
+
+  @Test
+  public void testRollByBytes() throws IOException {
+    DatasetWriter<Object> writer = newWriter(
+        FileSystemWriter.ROLL_BYTES_PROPERTY, "1");
+    writer.open();
+    for (int i = 0; i < 5; i += 1) {
+      writer.write("entry " + i);
+    }
+    writer.close();
+    Assert.assertEquals("Should roll when the file header is written",
+        5, fs.listStatus(testDirectory, PathFilters.notHidden()).length);
+  }
+
+  @Test
+  public void testRollByInterval() throws Exception {
+    DatasetWriter<Object> writer = newWriter(
+        FileSystemWriter.ROLL_INTERVAL_PROPERTY, "50");
+    writer.open();
+    writer.write("first");
+    Thread.sleep(100);
+    writer.write("second");
+    writer.write("third");
+    writer.close();
+    Assert.assertEquals("Should roll on the first write after the interval",
+        2, fs.listStatus(testDirectory, PathFilters.notHidden()).length);
+  }
 }
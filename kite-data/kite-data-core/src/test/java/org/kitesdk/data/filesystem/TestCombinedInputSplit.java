@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCombinedInputSplit {
+
+  @Test
+  public void testCombineByHost() throws Exception {
+    List<InputSplit> splits = Lists.<InputSplit>newArrayList(
+        split("a", 40, "host1"),
+        split("b", 40, "host2"),
+        split("c", 40, "host1"),
+        split("d", 40, "host2"),
+        split("e", 40, "host1"),
+        split("f", 10, "host3"));
+
+    List<InputSplit> combined = CombinedInputSplit.combine(splits, 80);
+
+    Assert.assertEquals(3, combined.size());
+    assertSplit(combined.get(0), 80, new String[] {"host1"}, "a", "c");
+    assertSplit(combined.get(1), 80, new String[] {"host2"}, "b", "d");
+    // left over from host1 and host3, host1 stores the most data
+    assertSplit(combined.get(2), 50, new String[] {"host1", "host3"}, "e", "f");
+  }
+
+  @Test
+  public void testEverySplitIsCombinedOnce() throws Exception {
+    List<InputSplit> splits = Lists.newArrayList();
+    long expectedLength = 0;
+    for (int i = 0; i < 100; i += 1) {
+      expectedLength += 1 + (i % 7);
+      splits.add(split("file-" + i, 1 + (i % 7),
+          "host" + (i % 5), "host" + ((i + 1) % 5), "host" + ((i + 2) % 5)));
+    }
+
+    List<InputSplit> combined = CombinedInputSplit.combine(splits, 20);
+
+    Set<String> paths = Sets.newHashSet();
+    long length = 0;
+    for (InputSplit split : combined) {
+      long splitLength = 0;
+      for (InputSplit file : ((CombinedInputSplit) split).getSplits()) {
+        Assert.assertTrue(paths.add(((FileSplit) file).getPath().getName()));
+        splitLength += file.getLength();
+      }
+      Assert.assertEquals(splitLength, split.getLength());
+      length += splitLength;
+    }
+    Assert.assertEquals(splits.size(), paths.size());
+    Assert.assertEquals(expectedLength, length);
+    Assert.assertTrue(combined.size() < splits.size());
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    CombinedInputSplit split = (CombinedInputSplit) CombinedInputSplit.combine(
+        Lists.<InputSplit>newArrayList(
+            split("a", 40, "host1"), split("b", 30, "host1")), 100).get(0);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    split.write(new DataOutputStream(bytes));
+    CombinedInputSplit copy = new CombinedInputSplit();
+    copy.readFields(new DataInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())));
+
+    Assert.assertEquals(70, copy.getLength());
+    Assert.assertEquals(2, copy.getSplits().size());
+    FileSplit second = (FileSplit) copy.getSplits().get(1);
+    Assert.assertEquals(new Path("/data/b"), second.getPath());
+    Assert.assertEquals(30, second.getLength());
+  }
+
+  private static void assertSplit(InputSplit split, long length,
+      String[] hosts, String... names) throws Exception {
+    Assert.assertEquals(length, split.getLength());
+    Assert.assertEquals(Arrays.asList(hosts),
+        Arrays.asList(split.getLocations()));
+    List<String> actual = Lists.newArrayList();
+    for (InputSplit file : ((CombinedInputSplit) split).getSplits()) {
+      actual.add(((FileSplit) file).getPath().getName());
+    }
+    Assert.assertEquals(Arrays.asList(names), actual);
+  }
+
+  private static FileSplit split(String name, long length, String... hosts) {
+    return new FileSplit(new Path("/data/" + name), 0, length, hosts);
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.spi.Constraints;
+import parquet.avro.AvroParquetWriter;
+import parquet.column.ColumnReader;
+import parquet.filter.RecordFilter;
+import parquet.filter.UnboundRecordFilter;
+import parquet.hadoop.ParquetFileReader;
+import parquet.hadoop.metadata.CompressionCodecName;
+
+public class TestConstraintsRecordFilter {
+
+  private static final Schema SCHEMA = SchemaBuilder.record("Event").fields()
+      .requiredLong("id")
+      .requiredString("name")
+      .optionalInt("score")
+      .endRecord();
+
+  private FileSystem fs;
+  private Path testDirectory;
+  private Path file;
+
+  @Before
+  public void writeTestFile() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testDirectory = new Path(Files.createTempDir().getAbsolutePath());
+    this.file = new Path(testDirectory, "events.parquet");
+
+    ParquetAppender<GenericData.Record> appender =
+        new ParquetAppender<GenericData.Record>(fs, file, SCHEMA, false);
+    appender.open();
+    for (long i = 0; i < 100; i += 1) {
+      GenericRecordBuilder builder = new GenericRecordBuilder(SCHEMA)
+          .set("id", i)
+          .set("name", "name-" + i);
+      if (i % 2 == 0) {
+        builder.set("score", (int) i);
+      }
+      appender.append(builder.build());
+    }
+    appender.close();
+  }
+
+  @After
+  public void removeTestFile() throws IOException {
+    fs.delete(testDirectory, true);
+  }
+
+  @Test
+  public void testNoConstraints() {
+    Assert.assertNull("Should not create a filter without constraints",
+        ConstraintsRecordFilter.forConstraints(
+            SCHEMA, new Constraints(SCHEMA), null));
+    Assert.assertEquals(100, read(new Constraints(SCHEMA)).size());
+  }
+
+  @Test
+  public void testIn() {
+    Set<Long> ids = read(new Constraints(SCHEMA).with("id", 5L, 34L, 200L));
+    Assert.assertEquals(Sets.newHashSet(5L, 34L), ids);
+  }
+
+  @Test
+  public void testRange() {
+    Set<Long> ids = read(new Constraints(SCHEMA)
+        .from("id", 10L).toBefore("id", 15L));
+    Assert.assertEquals(Sets.newHashSet(10L, 11L, 12L, 13L, 14L), ids);
+  }
+
+  @Test
+  public void testString() {
+    Set<Long> ids = read(new Constraints(SCHEMA).with("name", "name-42"));
+    Assert.assertEquals(Sets.newHashSet(42L), ids);
+  }
+
+  @Test
+  public void testNullableField() {
+    Assert.assertEquals("Should only match non-null scores",
+        50, read(new Constraints(SCHEMA).with("score")).size());
+    Set<Long> ids = read(new Constraints(SCHEMA)
+        .from("score", 90).to("score", 95));
+    Assert.assertEquals(Sets.newHashSet(90L, 92L, 94L), ids);
+  }
+
+  @Test
+  public void testMultipleFields() {
+    Set<Long> ids = read(new Constraints(SCHEMA)
+        .from("id", 20L).toBefore("id", 30L)
+        .with("score"));
+    Assert.assertEquals(Sets.newHashSet(20L, 22L, 24L, 26L, 28L), ids);
+  }
+
+  @Test
+  public void testMissingColumn() {
+    Schema evolved = SchemaBuilder.record("Event").fields()
+        .requiredLong("id")
+        .requiredString("name")
+        .optionalInt("score")
+        .optionalString("added")
+        .endRecord();
+    // the column is not in the file, so the filter should not reject records
+    ParquetFileSystemDatasetReader<GenericData.Record> reader =
+        new ParquetFileSystemDatasetReader<GenericData.Record>(
+            fs, file, SCHEMA, null,
+            ConstraintsRecordFilter.forConstraints(evolved,
+                new Constraints(evolved).with("added", "a"), null));
+    int count = 0;
+    reader.open();
+    try {
+      while (reader.hasNext()) {
+        reader.next();
+        count += 1;
+      }
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(100, count);
+  }
+
+  @Test
+  public void testMultipleRowGroups() throws IOException {
+    Path multiple = new Path(testDirectory, "row-groups.parquet");
+    // a tiny block size starts a new row group every time the writer checks
+    AvroParquetWriter<GenericData.Record> writer =
+        new AvroParquetWriter<GenericData.Record>(fs.makeQualified(multiple),
+            SCHEMA, CompressionCodecName.UNCOMPRESSED, 1024, 1024);
+    for (long i = 0; i < 1000; i += 1) {
+      writer.write(new GenericRecordBuilder(SCHEMA)
+          .set("id", i)
+          .set("name", "name-" + i)
+          .build());
+    }
+    writer.close();
+    Assert.assertTrue("Should write several row groups",
+        ParquetFileReader.readFooter(fs.getConf(), fs.makeQualified(multiple))
+            .getBlocks().size() > 1);
+
+    Set<Long> ids = read(multiple, new SlowFilter(
+        ConstraintsRecordFilter.forConstraints(SCHEMA, new Constraints(SCHEMA)
+            .with("id", 5L, 250L, 555L, 999L), null)));
+    Assert.assertEquals(Sets.newHashSet(5L, 250L, 555L, 999L), ids);
+    Assert.assertEquals(500, read(multiple, new SlowFilter(
+        ConstraintsRecordFilter.forConstraints(SCHEMA, new Constraints(SCHEMA)
+            .from("id", 500L), null))).size());
+  }
+
+  private Set<Long> read(Constraints constraints) {
+    return read(file,
+        ConstraintsRecordFilter.forConstraints(SCHEMA, constraints, null));
+  }
+
+  private Set<Long> read(Path path, UnboundRecordFilter filter) {
+    ParquetFileSystemDatasetReader<GenericData.Record> reader =
+        new ParquetFileSystemDatasetReader<GenericData.Record>(
+            fs, path, SCHEMA, null, filter);
+    Set<Long> ids = Sets.newHashSet();
+    reader.open();
+    try {
+      while (reader.hasNext()) {
+        ids.add((Long) reader.next().get("id"));
+      }
+    } finally {
+      reader.close();
+    }
+    return ids;
+  }
+
+  /**
+   * Parquet 1.2.5 divides by the time spent on a row group when it moves on to
+   * the next one, which fails if the row group took no time at all. Filtering
+   * the tiny row groups in these tests can be that fast, so this filter spends
+   * a few milliseconds on the first record of each row group.
+   */
+  private static class SlowFilter implements UnboundRecordFilter {
+    private final UnboundRecordFilter filter;
+
+    private SlowFilter(UnboundRecordFilter filter) {
+      this.filter = filter;
+    }
+
+    @Override
+    public RecordFilter bind(Iterable<ColumnReader> readers) {
+      final RecordFilter bound = filter.bind(readers);
+      return new RecordFilter() {
+        private boolean first = true;
+
+        @Override
+        public boolean isMatch() {
+          if (first) {
+            first = false;
+            Uninterruptibles.sleepUninterruptibly(2, TimeUnit.MILLISECONDS);
+          }
+          return bound.isMatch();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.DatasetDescriptor;
+
+public class TestDirectoryLister {
+
+  private FileSystem fs;
+  private Path testDirectory;
+  private List<Path> dirs;
+
+  @Before
+  public void createDirectories() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.testDirectory = fs.makeQualified(
+        new Path(Files.createTempDir().getAbsolutePath()));
+    this.dirs = Lists.newArrayList();
+    for (int i = 0; i < 20; i += 1) {
+      Path dir = new Path(testDirectory, "dir-" + i);
+      fs.mkdirs(dir);
+      fs.createNewFile(new Path(dir, "file-" + i));
+      fs.createNewFile(new Path(dir, ".hidden"));
+      dirs.add(dir);
+    }
+  }
+
+  @After
+  public void removeDirectories() throws IOException {
+    fs.delete(testDirectory, true);
+  }
+
+  @Test
+  public void testDescriptorProperties() {
+    DirectoryLister lister = new DirectoryLister(fs,
+        new DatasetDescriptor.Builder()
+            .schemaLiteral("\"string\"")
+            .property(DirectoryLister.THREADS_PROPERTY, "3")
+            .build());
+    Assert.assertEquals(3, lister.getThreads());
+  }
+
+  @Test
+  public void testListAllKeepsOrder() {
+    DirectoryLister lister = new DirectoryLister(fs, 4, 0, 0);
+    List<FileStatus[]> listings = lister.listAll(dirs);
+    Assert.assertEquals(dirs.size(), listings.size());
+    for (int i = 0; i < dirs.size(); i += 1) {
+      FileStatus[] stats = listings.get(i);
+      Assert.assertEquals("Should skip hidden files", 1, stats.length);
+      Assert.assertEquals("file-" + i, stats[0].getPath().getName());
+    }
+  }
+
+  @Test
+  public void testUncached() throws IOException {
+    DirectoryLister lister = new DirectoryLister(fs, 4, 0, 0);
+    Path dir = dirs.get(0);
+    Assert.assertEquals(1, lister.list(dir).length);
+    fs.createNewFile(new Path(dir, "added"));
+    Assert.assertEquals(2, lister.list(dir).length);
+  }
+
+  @Test
+  public void testCached() throws IOException {
+    DirectoryLister lister = new DirectoryLister(fs, 4, 60000, 100);
+    Path dir = dirs.get(0);
+    Assert.assertEquals(1, lister.list(dir).length);
+    fs.createNewFile(new Path(dir, "added"));
+    Assert.assertEquals("Should reuse the cached listing",
+        1, lister.listAll(Lists.newArrayList(dir, dirs.get(1))).get(0).length);
+
+    lister.invalidate();
+    Set<String> names = Sets.newHashSet();
+    for (FileStatus stat : lister.list(dir)) {
+      names.add(stat.getPath().getName());
+    }
+    Assert.assertEquals(Sets.newHashSet("file-0", "added"), names);
+  }
+}
@@ -62,10 +62,7 @@ public class TestFileSystemDataset extends MiniDFSTest {
     Object[][] data = new Object[][] {
         { Formats.AVRO, getDFS() },
         { Formats.AVRO, getFS() },
-        // Parquet fails when testing with HDFS because
-        // parquet.hadoop.ParquetReader calls new Configuration(), which does
-        // not work with the mini-cluster (not set up through env).
-        //{ Formats.PARQUET, getDFS() },
+        { Formats.PARQUET, getDFS() },
         { Formats.PARQUET, getFS() } };
     return Arrays.asList(data);
   }
@@ -109,6 +106,52 @@ public class TestFileSystemDataset extends MiniDFSTest {
     checkTestUsers(ds, 10);
   }
 
+  @Test
+  public void testSelect() throws IOException {
+    FileSystemDataset<Record> ds = new FileSystemDataset.Builder()
+        .name("test")
+        .configuration(getConfiguration())
+        .descriptor(new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .format(format)
+            .location(testDirectory)
+            .build())
+        .build();
+
+    writeTestUsers(ds, 10);
+
+    Set<String> usernames = Sets.newHashSet();
+    for (Record record : materialize(ds.select("username"))) {
+      usernames.add((String) record.get("username"));
+      Assert.assertNull("Unselected field should not be read",
+          record.get("email"));
+    }
+    Assert.assertEquals(10, usernames.size());
+
+    // fields used by constraints are read to filter entities
+    Set<Record> records = materialize(
+        ds.select("username").with("email", "email-3"));
+    Assert.assertEquals(1, records.size());
+    Record record = records.iterator().next();
+    Assert.assertEquals("test-3", record.get("username"));
+    Assert.assertEquals("email-3", record.get("email"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSelectMissingField() throws IOException {
+    FileSystemDataset<Record> ds = new FileSystemDataset.Builder()
+        .name("test")
+        .configuration(getConfiguration())
+        .descriptor(new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .format(format)
+            .location(testDirectory)
+            .build())
+        .build();
+
+    ds.select("username", "no_such_field");
+  }
+
   @Test
   @SuppressWarnings("deprecation")
   public void testPartitionedWriterSingle() throws IOException {
@@ -342,6 +385,47 @@ public class TestFileSystemDataset extends MiniDFSTest {
 
   }
 
+  @Test
+  public void testMergeWithThreads() throws IOException {
+    PartitionStrategy partitionStrategy = new PartitionStrategy.Builder().hash(
+        "username", 4).build();
+
+    FileSystemDataset<Record> ds = new FileSystemDataset.Builder()
+        .name("partitioned-users")
+        .configuration(getConfiguration())
+        .descriptor(new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .format(format)
+            .location(testDirectory)
+            .partitionStrategy(partitionStrategy)
+            .property(FileSystemDataset.MERGE_THREADS_PROPERTY, "3")
+            .build())
+        .build();
+
+    writeTestUsers(ds, 10);
+
+    Path newTestDirectory = fileSystem.makeQualified(
+        new Path(Files.createTempDir().getAbsolutePath()));
+
+    FileSystemDataset<Record> dsUpdate = new FileSystemDataset.Builder()
+        .name("partitioned-users")
+        .configuration(getConfiguration())
+        .descriptor(new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .format(format)
+            .location(newTestDirectory)
+            .partitionStrategy(partitionStrategy)
+            .build())
+        .build();
+
+    writeTestUsers(dsUpdate, 20, 10);
+
+    ds.merge(dsUpdate);
+
+    checkTestUsers(dsUpdate, 0);
+    checkTestUsers(ds, 30);
+  }
+
   @Test(expected = DatasetRepositoryException.class)
   public void testCannotMergeDatasetsWithDifferentFormats() throws IOException {
     FileSystemDataset<Record> ds = new FileSystemDataset.Builder()
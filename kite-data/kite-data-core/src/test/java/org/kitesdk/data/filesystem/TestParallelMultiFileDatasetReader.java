@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+import java.io.IOException;
+import java.util.List;
+import org.apache.avro.generic.GenericData.Record;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.DatasetReaderException;
+import org.kitesdk.data.TestDatasetReaders;
+
+import static org.kitesdk.data.filesystem.DatasetTestUtilities.*;
+import static org.kitesdk.data.filesystem.TestMultiFileDatasetReader.CONSTRAINTS;
+import static org.kitesdk.data.filesystem.TestMultiFileDatasetReader.TEST_FILE;
+import static org.kitesdk.data.filesystem.TestMultiFileDatasetReader.VALIDATOR;
+
+public class TestParallelMultiFileDatasetReader extends TestDatasetReaders {
+
+  // a small buffer ensures that file readers block on the consumer
+  public static final DatasetDescriptor ORDERED = new DatasetDescriptor
+      .Builder()
+      .schema(STRING_SCHEMA)
+      .property(ParallelMultiFileDatasetReader.THREADS_PROPERTY, "3")
+      .property(ParallelMultiFileDatasetReader.BUFFER_SIZE_PROPERTY, "7")
+      .build();
+  public static final DatasetDescriptor UNORDERED = new DatasetDescriptor
+      .Builder(ORDERED)
+      .property(ParallelMultiFileDatasetReader.ORDERED_PROPERTY, "false")
+      .build();
+
+  private static List<Path> files(int count) {
+    List<Path> files = Lists.newArrayList();
+    for (int i = 0; i < count; i += 1) {
+      files.add(TEST_FILE);
+    }
+    return files;
+  }
+
+  @Override
+  public DatasetReader newReader() throws IOException {
+    return new ParallelMultiFileDatasetReader<Record>(
+        FileSystem.get(new Configuration()), files(5),
+        ORDERED, STRING_SCHEMA, CONSTRAINTS);
+  }
+
+  @Override
+  public int getTotalRecords() {
+    return 500;
+  }
+
+  @Override
+  public DatasetTestUtilities.RecordValidator getValidator() {
+    return VALIDATOR;
+  }
+
+  private FileSystem fileSystem;
+
+  @Before
+  public void setUp() throws IOException {
+    this.fileSystem = FileSystem.get(new Configuration());
+  }
+
+  @Test
+  public void testThreadsProperty() {
+    Assert.assertEquals(1, ParallelMultiFileDatasetReader.threads(
+        new DatasetDescriptor.Builder().schema(STRING_SCHEMA).build()));
+    Assert.assertEquals(3, ParallelMultiFileDatasetReader.threads(ORDERED));
+  }
+
+  @Test
+  public void testEmptyPathList() throws IOException {
+    checkReaderBehavior(new ParallelMultiFileDatasetReader<Record>(
+        fileSystem, Lists.<Path>newArrayList(), ORDERED, STRING_SCHEMA,
+        CONSTRAINTS), 0, VALIDATOR);
+  }
+
+  @Test
+  public void testUnordered() throws IOException {
+    ParallelMultiFileDatasetReader<Record> reader =
+        new ParallelMultiFileDatasetReader<Record>(
+            fileSystem, files(5), UNORDERED, STRING_SCHEMA, CONSTRAINTS);
+
+    Multiset<String> values = HashMultiset.create();
+    reader.open();
+    try {
+      for (Record record : reader) {
+        values.add(record.get("text").toString());
+      }
+    } finally {
+      reader.close();
+    }
+
+    Assert.assertEquals(500, values.size());
+    for (int i = 0; i < 100; i += 1) {
+      Assert.assertEquals(5, values.count(String.valueOf(i)));
+    }
+  }
+
+  @Test
+  public void testCloseBeforeFinished() throws IOException {
+    ParallelMultiFileDatasetReader<Record> reader =
+        new ParallelMultiFileDatasetReader<Record>(
+            fileSystem, files(5), ORDERED, STRING_SCHEMA, CONSTRAINTS);
+    reader.open();
+    Assert.assertTrue(reader.hasNext());
+    reader.next();
+    reader.close();
+    Assert.assertFalse("Reader should be closed", reader.isOpen());
+  }
+
+  @Test(expected = DatasetReaderException.class)
+  public void testMissingPath() throws IOException {
+    Path missingFile = new Path("data/no-such-file.avro");
+    ParallelMultiFileDatasetReader<Record> reader =
+        new ParallelMultiFileDatasetReader<Record>(
+            fileSystem, Lists.newArrayList(TEST_FILE, missingFile, TEST_FILE),
+            ORDERED, STRING_SCHEMA, CONSTRAINTS);
+
+    reader.open();
+    try {
+      checkReaderIteration(reader, 300, VALIDATOR);
+    } finally {
+      reader.close();
+    }
+  }
+}
@@ -16,8 +16,13 @@
 
 package org.kitesdk.data.filesystem;
 
+import java.io.IOException;
+import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericRecordBuilder;
 import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Test;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.DatasetWriter;
 
@@ -32,4 +37,24 @@ public class TestParquetWriter extends TestFileSystemWriters<Object> {
             .format("parquet")
             .build());
   }
+
+  @Test
+  public void testRollByRecords() throws IOException {
+    Schema schema = SchemaBuilder.record("test").fields()
+        .requiredString("s")
+        .endRecord();
+    DatasetWriter<Object> writer = new FileSystemWriter<Object>(
+        fs, testDirectory, new DatasetDescriptor.Builder()
+            .schema(schema)
+            .format("parquet")
+            .property(FileSystemWriter.ROLL_RECORDS_PROPERTY, "10")
+            .build());
+    writer.open();
+    for (int i = 0; i < 20; i += 1) {
+      writer.write(new GenericRecordBuilder(schema).set("s", "s-" + i).build());
+    }
+    writer.close();
+    Assert.assertEquals("Should roll after every 10 records",
+        2, fs.listStatus(testDirectory, PathFilters.notHidden()).length);
+  }
 }
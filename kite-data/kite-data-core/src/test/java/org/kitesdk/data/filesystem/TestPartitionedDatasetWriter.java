@@ -16,6 +16,7 @@
 package org.kitesdk.data.filesystem;
 
 import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.Formats;
 import org.kitesdk.data.MetadataProvider;
 import org.kitesdk.data.PartitionStrategy;
 import com.google.common.io.Closeables;
@@ -27,6 +28,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -88,6 +90,131 @@ public class TestPartitionedDatasetWriter {
     }
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testDefaultWriterLimit() throws IOException {
+    FileSystemDataset<Object> dataset = (FileSystemDataset<Object>) repo.create(
+        "limited",
+        new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .hash("username", 50).build())
+            .build());
+    PartitionedDatasetWriter<Object> limited =
+        new PartitionedDatasetWriter<Object>(new FileSystemView<Object>(dataset));
+    limited.open();
+    try {
+      for (int i = 0; i < 200; i += 1) {
+        limited.write(new GenericRecordBuilder(USER_SCHEMA)
+            .set("username", "user-" + i)
+            .set("email", i + "@example.com")
+            .build());
+      }
+    } finally {
+      limited.close();
+    }
+    Assert.assertTrue("Should open more writers than the default limit",
+        limited.getOpenedCount() > PartitionedDatasetWriter.DEFAULT_MAX_WRITERS);
+    Assert.assertEquals("Should keep at most the default number of writers",
+        limited.getOpenedCount() - PartitionedDatasetWriter.DEFAULT_MAX_WRITERS,
+        limited.getEvictedWhenFullCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testMemoryBudget() throws IOException {
+    PartitionedDatasetWriter<Object> budgeted = newWriter("budgeted",
+        PartitionedDatasetWriter.MEMORY_BUDGET_PROPERTY,
+        String.valueOf(2 * PartitionedDatasetWriter.AVRO_WRITER_SIZE));
+    budgeted.open();
+    try {
+      for (int i = 0; i < 100; i += 1) {
+        budgeted.write(new GenericRecordBuilder(USER_SCHEMA)
+            .set("username", "user-" + i)
+            .set("email", i + "@example.com")
+            .build());
+      }
+    } finally {
+      budgeted.close();
+    }
+    Assert.assertTrue("Should open more writers than fit in the budget",
+        budgeted.getOpenedCount() > 2);
+    Assert.assertEquals("Should close writers to stay within the budget",
+        budgeted.getOpenedCount() - 2, budgeted.getEvictedWhenFullCount());
+    Assert.assertEquals(0, budgeted.getEvictedWhenIdleCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testParquetMemoryBudget() throws IOException {
+    int blockSize = 1024 * 1024;
+    FileSystemDataset<Object> dataset = (FileSystemDataset<Object>) repo.create(
+        "parquet",
+        new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .format(Formats.PARQUET)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .hash("username", 10).build())
+            .property(ParquetAppender.BLOCK_SIZE_PROPERTY,
+                String.valueOf(blockSize))
+            .property(PartitionedDatasetWriter.MEMORY_BUDGET_PROPERTY,
+                String.valueOf(3 * blockSize))
+            .build());
+    PartitionedDatasetWriter<Object> budgeted =
+        new PartitionedDatasetWriter<Object>(new FileSystemView<Object>(dataset));
+    budgeted.open();
+    try {
+      for (int i = 0; i < 100; i += 1) {
+        budgeted.write(new GenericRecordBuilder(USER_SCHEMA)
+            .set("username", "user-" + i)
+            .set("email", i + "@example.com")
+            .build());
+      }
+    } finally {
+      budgeted.close();
+    }
+    Assert.assertTrue("Should open more writers than fit in the budget",
+        budgeted.getOpenedCount() > 3);
+    Assert.assertEquals("Should weigh writers by the Parquet block size",
+        budgeted.getOpenedCount() - 3, budgeted.getEvictedWhenFullCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testIdleTimeout() throws Exception {
+    PartitionedDatasetWriter<Object> idle = newWriter("idle",
+        PartitionedDatasetWriter.IDLE_TIMEOUT_PROPERTY, "10");
+    Record record = new GenericRecordBuilder(USER_SCHEMA)
+        .set("username", "test1").set("email", "a@example.com").build();
+    idle.open();
+    try {
+      idle.write(record);
+      Thread.sleep(50);
+      idle.write(record);
+    } finally {
+      idle.close();
+    }
+    Assert.assertEquals("Should reopen the idle partition writer",
+        2, idle.getOpenedCount());
+    Assert.assertEquals(1, idle.getEvictedWhenIdleCount());
+    Assert.assertEquals(0, idle.getEvictedWhenFullCount());
+  }
+
+  @SuppressWarnings("unchecked")
+  private PartitionedDatasetWriter<Object> newWriter(
+      String name, String property, String value) {
+    FileSystemDataset<Object> dataset = (FileSystemDataset<Object>) repo.create(
+        name,
+        new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .hash("username", 10).build())
+            .property(property, value)
+            .build());
+    return new PartitionedDatasetWriter<Object>(
+        new FileSystemView<Object>(dataset));
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testWriteToClosedWriterFails() throws IOException {
     Record record = new GenericRecordBuilder(USER_SCHEMA)
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.filesystem;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import org.apache.avro.generic.GenericData.Record;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.PartitionStrategy;
+
+import static org.kitesdk.data.filesystem.DatasetTestUtilities.USER_SCHEMA;
+import static org.kitesdk.data.filesystem.DatasetTestUtilities.datasetSize;
+
+public class TestSpillingPartitionedDatasetWriter {
+
+  private FileSystem fileSystem;
+  private Path testDirectory;
+  private File spillDirectory;
+  private FileSystemDatasetRepository repo;
+
+  @Before
+  public void setUp() throws IOException {
+    Configuration conf = new Configuration();
+    this.fileSystem = FileSystem.get(conf);
+    this.testDirectory = new Path(Files.createTempDir().getAbsolutePath());
+    this.spillDirectory = Files.createTempDir();
+    this.repo = new FileSystemDatasetRepository.Builder().configuration(conf)
+        .rootDirectory(testDirectory).build();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    fileSystem.delete(testDirectory, true);
+    fileSystem.delete(new Path(spillDirectory.getAbsolutePath()), true);
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testOneFilePerPartition() throws IOException {
+    FileSystemDataset<Record> users = (FileSystemDataset) repo.create(
+        "users",
+        new DatasetDescriptor.Builder()
+            .schema(USER_SCHEMA)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .hash("username", 10).build())
+            .property(SpillingPartitionedDatasetWriter.SPILL_PROPERTY, "true")
+            .property(SpillingPartitionedDatasetWriter.SPILL_RECORDS_PROPERTY, "7")
+            .property(SpillingPartitionedDatasetWriter.SPILL_DIR_PROPERTY,
+                spillDirectory.getAbsolutePath())
+            .build());
+
+    DatasetWriter<Record> writer = users.newWriter();
+    Assert.assertTrue("Should use a spilling writer",
+        writer instanceof SpillingPartitionedDatasetWriter);
+
+    writer.open();
+    try {
+      for (int i = 0; i < 100; i += 1) {
+        writer.write(new GenericRecordBuilder(USER_SCHEMA)
+            .set("username", "user-" + i)
+            .set("email", i + "@example.com")
+            .build());
+      }
+      writer.flush();
+      Assert.assertEquals("Should not write to the dataset until closed",
+          0, datasetSize(users));
+    } finally {
+      writer.close();
+    }
+
+    Assert.assertEquals(100, datasetSize(users));
+
+    int partitions = 0;
+    Iterator<Path> dirs = users.dirIterator();
+    while (dirs.hasNext()) {
+      Path dir = dirs.next();
+      Assert.assertEquals("Should write one file for partition " + dir,
+          1, fileSystem.listStatus(dir, PathFilters.notHidden()).length);
+      partitions += 1;
+    }
+    Assert.assertTrue("Should write to several partitions", partitions > 1);
+
+    Assert.assertEquals("Should remove spill files",
+        0, spillDirectory.listFiles().length);
+  }
+}
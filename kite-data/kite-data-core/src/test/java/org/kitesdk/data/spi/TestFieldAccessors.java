@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.data.PartitionKey;
+import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.event.StandardEvent;
+
+public class TestFieldAccessors {
+
+  public static class User {
+    private final String username;
+    private final long timestamp;
+
+    public User(String username, long timestamp) {
+      this.username = username;
+      this.timestamp = timestamp;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public long getTimestamp() {
+      return timestamp;
+    }
+  }
+
+  @Test
+  public void testReflect() {
+    User user = new User("test", 1379020547042L);
+    Assert.assertEquals("test", FieldAccessors.get(user, "username"));
+    Assert.assertEquals(1379020547042L, FieldAccessors.get(user, "timestamp"));
+    // cached accessors must not mix up entities or fields
+    Assert.assertEquals("other",
+        FieldAccessors.get(new User("other", 0L), "username"));
+    Assert.assertEquals(1379020547042L, FieldAccessors.get(user, "timestamp"));
+  }
+
+  @Test
+  public void testSpecific() {
+    StandardEvent event = StandardEvent.newBuilder()
+        .setEventInitiator("TestFieldAccessors")
+        .setEventName("TestEvent")
+        .setUserId(34)
+        .setSessionId("session-0")
+        .setIp("localhost")
+        .setTimestamp(1379020547042L)
+        .build();
+    Assert.assertEquals(34L, FieldAccessors.get(event, "user_id"));
+    Assert.assertEquals(1379020547042L, FieldAccessors.get(event, "timestamp"));
+  }
+
+  @Test
+  public void testGeneric() {
+    Schema schema = SchemaBuilder.record("User").fields()
+        .requiredString("username")
+        .requiredLong("timestamp")
+        .endRecord();
+    GenericData.Record record = new GenericData.Record(schema);
+    record.put("username", "test");
+    record.put("timestamp", 1379020547042L);
+    Assert.assertEquals("test", FieldAccessors.get(record, "username"));
+    Assert.assertEquals(1379020547042L, FieldAccessors.get(record, "timestamp"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testMissingProperty() {
+    FieldAccessors.get(new User("test", 0L), "email");
+  }
+
+  @Test
+  public void testPartitionKeyForEntity() {
+    PartitionStrategy strategy = new PartitionStrategy.Builder()
+        .identity("username", "username_copy", String.class, 10)
+        .year("timestamp")
+        .build();
+    PartitionKey key = strategy.partitionKeyForEntity(
+        new User("test", 1379020547042L));
+    Assert.assertEquals("test", key.get(0));
+    Assert.assertEquals(2013, key.get(1));
+  }
+}
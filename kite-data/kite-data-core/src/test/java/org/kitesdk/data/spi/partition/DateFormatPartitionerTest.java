@@ -20,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.kitesdk.data.PartitionStrategy;
 import org.kitesdk.data.impl.Accessor;
 
@@ -38,6 +39,58 @@ public class DateFormatPartitionerTest {
     Assert.assertEquals("2013-11-20", yyyyMMdd_PDT.apply(time));
   }
 
+  @Test
+  public void testReusesFormattedPeriods() {
+    DateFormatPartitioner hours = new DateFormatPartitioner(
+        "sourceField", "hour", "yyyy-MM-dd-HH");
+    long hour = 1384912800000L; // 2013-11-20 02:00 UTC
+    Assert.assertEquals("2013-11-20-01", hours.apply(hour - 1));
+    Assert.assertEquals("2013-11-20-02", hours.apply(hour));
+    Assert.assertEquals("2013-11-20-02", hours.apply(hour + 3599999L));
+    Assert.assertEquals("2013-11-20-03", hours.apply(hour + 3600000L));
+    Assert.assertEquals("2013-11-20-02", hours.apply(hour + 1));
+    Assert.assertEquals("1969-12-31-23", hours.apply(-1L));
+    Assert.assertEquals("1970-01-01-00", hours.apply(0L));
+
+    DateFormatPartitioner quoted = new DateFormatPartitioner(
+        "sourceField", "day", "yyyy-MM-dd'T'");
+    Assert.assertEquals("2013-11-20T", quoted.apply(hour));
+    Assert.assertEquals("2013-11-21T", quoted.apply(hour + 86400000L));
+
+    DateFormatPartitioner pacific = new DateFormatPartitioner(
+        "sourceField", "day", "yyyy-MM-dd", 1095,
+        TimeZone.getTimeZone("America/Los_Angeles"));
+    Assert.assertEquals("2013-11-19", pacific.apply(hour));
+    Assert.assertEquals("2013-11-20", pacific.apply(hour + 8 * 3600000L));
+  }
+
+  @Test
+  public void testConcurrentApply() throws InterruptedException {
+    final DateFormatPartitioner minutes = new DateFormatPartitioner(
+        "sourceField", "minute", "yyyy-MM-dd-HH-mm");
+    final AtomicInteger failures = new AtomicInteger(0);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t += 1) {
+      final long start = 1384912800000L + t * 86400000L;
+      final String expected = minutes.apply(start);
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10000; i += 1) {
+            if (!expected.equals(minutes.apply(start + (i % 60) * 1000L))) {
+              failures.incrementAndGet();
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(0, failures.get());
+  }
+
   @Test
   public void testExpressionRoundTrip() {
     PartitionStrategy strategy = new PartitionStrategy.Builder()
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kitesdk.data.spi.partition;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCalendarFieldPartitioner {
+
+  private static final int[] FIELDS = new int[] {
+      Calendar.YEAR, Calendar.MONTH, Calendar.DAY_OF_MONTH,
+      Calendar.HOUR_OF_DAY, Calendar.MINUTE, Calendar.SECOND,
+      Calendar.MILLISECOND, Calendar.DAY_OF_WEEK };
+
+  @Test
+  public void testMatchesCalendar() {
+    long[] timestamps = new long[] {
+        0L, -1L, 1L, 951782400000L /* 2000-02-29 */, 951868799999L,
+        4107542400000L /* 2100-03-01 */, -12219292800001L, -12219292800000L,
+        -62135769600000L /* 0001-01-01 */, 1384912178434L };
+    for (long timestamp : timestamps) {
+      assertMatchesCalendar(timestamp);
+    }
+    Random random = new Random(1384912178434L);
+    for (int i = 0; i < 100000; i += 1) {
+      // roughly 1600 to 2400
+      assertMatchesCalendar(
+          (long) (random.nextDouble() * 25300000000000L) - 11700000000000L);
+    }
+  }
+
+  @Test
+  public void testSubclasses() {
+    long time = 1384912178434L; // 2013-11-20 01:49:38.434 UTC
+    Assert.assertEquals(2013, (int) new YearFieldPartitioner("t").apply(time));
+    Assert.assertEquals(11, (int) new MonthFieldPartitioner("t").apply(time));
+    Assert.assertEquals(20, (int) new DayOfMonthFieldPartitioner("t").apply(time));
+    Assert.assertEquals(1, (int) new HourFieldPartitioner("t").apply(time));
+    Assert.assertEquals(49, (int) new MinuteFieldPartitioner("t").apply(time));
+  }
+
+  private static void assertMatchesCalendar(long timestamp) {
+    Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    cal.setTimeInMillis(timestamp);
+    for (int field : FIELDS) {
+      Assert.assertEquals("Field " + field + " of " + timestamp,
+          cal.get(field), CalendarFieldPartitioner.get(timestamp, field));
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase;
+
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.concurrent.Immutable;
+import org.kitesdk.data.Key;
+import org.kitesdk.data.RandomAccessDataset;
+
+/**
+ * A {@link RandomAccessDataset} that can fetch several entities at once.
+ *
+ * Datasets returned by {@link HBaseDatasetRepository} implement this
+ * interface.
+ *
+ * @param <E> The type of entities stored in this dataset.
+ */
+@Immutable
+public interface BatchRandomAccessDataset<E> extends RandomAccessDataset<E> {
+
+  /**
+   * Return the entities stored in the dataset at the rows specified by the
+   * given {@link Key keys}. The rows are fetched with batched gets, which make
+   * one round trip per region server instead of one per key.
+   *
+   * @param keys
+   *          The keys of the entities to get
+   * @return A list of entities of type E, in the same order as the keys. The
+   *         list contains null for each key that is not found.
+   */
+  public List<E> get(Collection<Key> keys);
+
+}
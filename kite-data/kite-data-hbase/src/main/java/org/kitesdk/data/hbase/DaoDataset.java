@@ -15,18 +15,22 @@
  */
 package org.kitesdk.data.hbase;
 
+import com.google.common.collect.Lists;
+import java.util.Collection;
+import java.util.List;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetDescriptor;
 import org.kitesdk.data.Key;
 import org.kitesdk.data.PartitionKey;
 import org.kitesdk.data.PartitionStrategy;
-import org.kitesdk.data.RandomAccessDataset;
 import org.kitesdk.data.RefinableView;
+import org.kitesdk.data.hbase.impl.BaseDao;
+import org.kitesdk.data.hbase.impl.CompositeBaseDao;
 import org.kitesdk.data.hbase.impl.Dao;
 import org.kitesdk.data.spi.AbstractDataset;
 
-class DaoDataset<E> extends AbstractDataset<E> implements RandomAccessDataset<E> {
+class DaoDataset<E> extends AbstractDataset<E> implements BatchRandomAccessDataset<E> {
 
   private String name;
   private Dao<E> dao;
@@ -80,6 +84,27 @@ class DaoDataset<E> extends AbstractDataset<E> implements RandomAccessDataset<E>
     return dao.get(keyFor(getDescriptor().getPartitionStrategy(), key));
   }
 
+  @Override
+  @SuppressWarnings("deprecation")
+  public List<E> get(Collection<Key> keys) {
+    PartitionStrategy strategy = getDescriptor().getPartitionStrategy();
+    List<PartitionKey> partitionKeys = Lists.newArrayListWithCapacity(keys.size());
+    for (Key key : keys) {
+      partitionKeys.add(keyFor(strategy, key));
+    }
+    if (dao instanceof BaseDao) {
+      return ((BaseDao<E>) dao).get(partitionKeys);
+    } else if (dao instanceof CompositeBaseDao) {
+      return ((CompositeBaseDao<E, ?>) dao).get(partitionKeys);
+    }
+    // other DAOs cannot batch gets
+    List<E> entities = Lists.newArrayListWithCapacity(partitionKeys.size());
+    for (PartitionKey key : partitionKeys) {
+      entities.add(dao.get(key));
+    }
+    return entities;
+  }
+
   @Override
   public boolean put(E entity) {
     return dao.put(entity);
@@ -15,21 +15,34 @@
  */
 package org.kitesdk.data.hbase;
 
-import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import com.google.common.collect.Iterators;
-import com.google.common.collect.UnmodifiableIterator;
-import java.util.Iterator;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
 import org.kitesdk.data.DatasetReader;
 import org.kitesdk.data.DatasetWriter;
 import org.kitesdk.data.spi.FieldPartitioner;
 import org.kitesdk.data.PartitionKey;
 import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.hbase.impl.BaseDao;
+import org.kitesdk.data.hbase.impl.Dao;
+import org.kitesdk.data.hbase.impl.EntityScanner;
+import org.kitesdk.data.hbase.impl.EntityScannerBuilder;
+import org.kitesdk.data.hbase.impl.EntitySchema;
+import org.kitesdk.data.hbase.impl.EntitySchema.FieldMapping;
+import org.kitesdk.data.hbase.impl.MappingType;
 import org.kitesdk.data.spi.AbstractRefinableView;
 import org.kitesdk.data.spi.Constraints;
 import org.kitesdk.data.spi.StorageKey;
 import org.kitesdk.data.spi.Marker;
 import org.kitesdk.data.spi.MarkerRange;
+import org.kitesdk.data.spi.Predicates;
 import java.util.List;
 
 class DaoView<E> extends AbstractRefinableView<E> {
@@ -54,56 +67,66 @@ class DaoView<E> extends AbstractRefinableView<E> {
   @Override
   public DatasetReader<E> newReader() {
     PartitionStrategy partitionStrategy = dataset.getDescriptor().getPartitionStrategy();
-    Iterable<MarkerRange> markerRanges = constraints.toKeyRanges(partitionStrategy);
-    // TODO: combine all ranges into a single reader
-    MarkerRange range = Iterables.getOnlyElement(markerRanges);
-    final DatasetReader<E> wrappedReader = dataset.getDao().getScanner(
-        toPartitionKey(range.getStart()), range.getStart().isInclusive(),
-        toPartitionKey(range.getEnd()), range.getEnd().isInclusive());
-    final UnmodifiableIterator<E> filteredIterator =
-        Iterators.filter(wrappedReader.iterator(), constraints.toEntityPredicate());
-    return new DatasetReader<E>() {
-      @Override
-      public void open() {
-        wrappedReader.open();
-      }
-
-      @Override
-      public boolean hasNext() {
-        Preconditions.checkState(isOpen(),
-            "Attempt to read from a scanner that is not open");
-        return filteredIterator.hasNext();
-      }
-
-      @Override
-      public E next() {
-        Preconditions.checkState(isOpen(),
-            "Attempt to read from a scanner that is not open");
-        return filteredIterator.next();
-      }
-
-      @Override
-      public void remove() {
-        Preconditions.checkState(isOpen(),
-            "Attempt to read from a scanner that is not open");
-        filteredIterator.remove();
-      }
+    List<MarkerRange> markerRanges = Lists.newArrayList(
+        constraints.toKeyRanges(partitionStrategy));
+    // the ranges are disjoint, so scanning them in start order returns
+    // entities in key order
+    Collections.sort(markerRanges, new StartComparator());
+    final Map<String, Set<?>> filters = columnFilters();
+    return new MultiRangeDatasetReader<E>(
+        Iterators.transform(markerRanges.iterator(),
+            new Function<MarkerRange, EntityScanner<E>>() {
+              @Override
+              public EntityScanner<E> apply(MarkerRange range) {
+                return newScanner(range, filters);
+              }
+            }),
+        constraints.<E>toEntityPredicate());
+  }
 
-      @Override
-      public void close() {
-        wrappedReader.close();
-      }
+  private EntityScanner<E> newScanner(MarkerRange range,
+                                      Map<String, Set<?>> filters) {
+    Dao<E> dao = dataset.getDao();
+    if (filters.isEmpty() || !(dao instanceof BaseDao)) {
+      return dao.getScanner(
+          toPartitionKey(range.getStart()), range.getStart().isInclusive(),
+          toPartitionKey(range.getEnd()), range.getEnd().isInclusive());
+    }
 
-      @Override
-      public boolean isOpen() {
-        return wrappedReader.isOpen();
-      }
+    EntityScannerBuilder<E> builder = ((BaseDao<E>) dao).getScannerBuilder()
+        .setStartKey(toPartitionKey(range.getStart()))
+        .setStartInclusive(range.getStart().isInclusive())
+        .setStopKey(toPartitionKey(range.getEnd()))
+        .setStopInclusive(range.getEnd().isInclusive());
+    for (Map.Entry<String, Set<?>> filter : filters.entrySet()) {
+      builder.addInFilter(filter.getKey(), filter.getValue());
+    }
+    return builder.build();
+  }
 
-      @Override
-      public Iterator<E> iterator() {
-        return filteredIterator;
+  /**
+   * Returns the values that column-mapped fields must match, for constraints
+   * that can be checked by HBase before rows are returned.
+   *
+   * Only "in" constraints are pushed to HBase because serialized column values
+   * are compared as bytes, which does not preserve the order used by range
+   * constraints. Rows that are missing a column are not filtered by HBase, so
+   * the entity predicate must still be applied to the scanned entities.
+   */
+  private Map<String, Set<?>> columnFilters() {
+    EntitySchema schema = dataset.getDao().getEntitySchema();
+    Map<String, Set<?>> filters = Maps.newHashMap();
+    for (Map.Entry<String, Predicate> entry :
+        constraints.toFieldPredicates(null).entrySet()) {
+      FieldMapping mapping = schema.getFieldMapping(entry.getKey());
+      if (mapping != null &&
+          mapping.getMappingType() == MappingType.COLUMN &&
+          entry.getValue() instanceof Predicates.In) {
+        filters.put(entry.getKey(),
+            ((Predicates.In<?>) entry.getValue()).getSet());
       }
-    };
+    }
+    return filters;
   }
 
   @Override
@@ -167,4 +190,19 @@ class DaoView<E> extends AbstractRefinableView<E> {
 
     return strategy.partitionKey(values);
   }
+
+  /**
+   * Orders {@link MarkerRange} objects by their start boundaries.
+   */
+  private static class StartComparator
+      implements Comparator<MarkerRange>, Serializable {
+    private static final long serialVersionUID = 0;
+    private final Comparator<MarkerRange.Boundary> boundaries =
+        new MarkerRange.Boundary.LeftComparator();
+
+    @Override
+    public int compare(MarkerRange r1, MarkerRange r2) {
+      return boundaries.compare(r1.getStart(), r2.getStart());
+    }
+  }
 }
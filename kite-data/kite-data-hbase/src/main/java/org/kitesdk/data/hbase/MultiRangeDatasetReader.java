@@ -0,0 +1,145 @@
+/**
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.spi.AbstractDatasetReader;
+import org.kitesdk.data.spi.ReaderWriterState;
+
+/**
+ * A {@link DatasetReader} that reads from a series of scanners, one for each
+ * key range in a view, and returns the entities that match a predicate.
+ *
+ * Scanners are opened one at a time, when the previous scanner is exhausted,
+ * so only one HBase scanner is held open at once. When the scanners cover
+ * disjoint key ranges and are given in key order, entities are returned in
+ * key order.
+ *
+ * @param <E> The type of entities returned by this reader.
+ */
+class MultiRangeDatasetReader<E> extends AbstractDatasetReader<E> {
+
+  private final Iterator<? extends DatasetReader<E>> scanners;
+  private final Predicate<E> predicate;
+
+  private DatasetReader<E> scanner = null;
+  private E next = null;
+  private ReaderWriterState state;
+
+  /**
+   * @param scanners an Iterator of unopened scanners, one per key range
+   * @param predicate a Predicate that returned entities must match
+   */
+  public MultiRangeDatasetReader(Iterator<? extends DatasetReader<E>> scanners,
+                                 Predicate<E> predicate) {
+    Preconditions.checkArgument(scanners != null, "Scanners cannot be null");
+    Preconditions.checkArgument(predicate != null, "Predicate cannot be null");
+    this.scanners = scanners;
+    this.predicate = predicate;
+    this.state = ReaderWriterState.NEW;
+  }
+
+  @Override
+  public void open() {
+    Preconditions.checkState(state.equals(ReaderWriterState.NEW),
+        "A reader may not be opened more than once - current state:%s", state);
+    this.state = ReaderWriterState.OPEN;
+  }
+
+  @Override
+  public boolean hasNext() {
+    Preconditions.checkState(state.equals(ReaderWriterState.OPEN),
+        "Attempt to read from a scanner that is not open");
+    while (next == null) {
+      if (scanner != null && scanner.hasNext()) {
+        E entity = scanner.next();
+        if (predicate.apply(entity)) {
+          this.next = entity;
+        }
+      } else if (!advance()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public E next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    E entity = next;
+    this.next = null;
+    return entity;
+  }
+
+  /**
+   * Closes the current scanner and opens the next one.
+   *
+   * @return false if there are no more scanners
+   */
+  private boolean advance() {
+    closeScanner();
+    if (!scanners.hasNext()) {
+      return false;
+    }
+    this.scanner = scanners.next();
+    try {
+      scanner.open();
+    } catch (RuntimeException ex) {
+      this.state = ReaderWriterState.ERROR;
+      throw ex;
+    }
+    return true;
+  }
+
+  private void closeScanner() {
+    if (scanner != null) {
+      DatasetReader<E> current = scanner;
+      this.scanner = null;
+      current.close();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!state.equals(ReaderWriterState.OPEN) &&
+        !state.equals(ReaderWriterState.ERROR)) {
+      return;
+    }
+    closeScanner();
+    this.next = null;
+    this.state = ReaderWriterState.CLOSED;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return state.equals(ReaderWriterState.OPEN);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("scanner", scanner)
+        .add("state", state)
+        .toString();
+  }
+}
@@ -25,8 +25,7 @@ import org.kitesdk.data.hbase.impl.MappingType;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,6 +35,8 @@ import org.apache.avro.Schema.Type;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.Decoder;
@@ -45,6 +46,7 @@ import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.specific.SpecificDatumReader;
 import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.util.Utf8;
+import org.apache.hadoop.hbase.util.Bytes;
 
 /**
  * An EntitySerDe implementation that serializes and deserializes Avro records.
@@ -91,6 +93,17 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
    */
   private final Map<String, Map<String, DatumWriter<Object>>> kacRecordDatumWriters = new HashMap<String, Map<String, DatumWriter<Object>>>();
 
+  /**
+   * Output buffers, encoders, and decoders reused by each thread to avoid
+   * allocating them for every column value.
+   */
+  private final ThreadLocal<ColumnBuffers> buffers = new ThreadLocal<ColumnBuffers>() {
+    @Override
+    protected ColumnBuffers initialValue() {
+      return new ColumnBuffers();
+    }
+  };
+
   /**
    * Constructor for AvroEntitySerDe instances.
    * 
@@ -162,11 +175,11 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
           + fieldName);
     }
 
-    ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-    Encoder encoder = getColumnEncoder(field.schema(), byteOut);
-    AvroUtils.writeAvroEntity(columnValue, encoder,
-        fieldDatumWriters.get(fieldName));
-    return byteOut.toByteArray();
+    ColumnBuffers columnBuffers = buffers.get();
+    columnBuffers.out.reset();
+    Encoder encoder = getColumnEncoder(field.schema(), columnBuffers);
+    AvroUtils.writeAvroEntity(columnValue, encoder, datumWriter);
+    return columnBuffers.out.toByteArray();
   }
 
   @Override
@@ -185,7 +198,7 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
         throw new SchemaValidationException("No datum writer for field name: "
             + fieldName);
       }
-      return AvroUtils.writeAvroEntity(columnValue, datumWriter);
+      return writeBinary(columnValue, datumWriter);
     } else if (schemaType == Schema.Type.RECORD) {
       if (!kacRecordDatumWriters.containsKey(fieldName)) {
         throw new SchemaValidationException("Invalid field name " + fieldName
@@ -198,7 +211,7 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
       }
       DatumWriter<Object> datumWriter = kacRecordDatumWriters.get(fieldName)
           .get(columnKey.toString());
-      return AvroUtils.writeAvroEntity(columnValue, datumWriter);
+      return writeBinary(columnValue, datumWriter);
     } else {
       throw new SchemaValidationException("Unsupported type for keyAsColumn: "
           + schemaType);
@@ -208,12 +221,12 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
   @Override
   public byte[] serializeKeyAsColumnKeyToBytes(String fieldName,
       CharSequence columnKey) {
-    if (columnKey.getClass().isAssignableFrom(String.class)) {
-      return ((String) columnKey).getBytes();
-    } else if (columnKey.getClass().isAssignableFrom(Utf8.class)) {
-      return ((Utf8) columnKey).getBytes();
+    if (columnKey instanceof Utf8) {
+      Utf8 utf8 = (Utf8) columnKey;
+      // the backing array may be longer than the string
+      return Arrays.copyOf(utf8.getBytes(), utf8.getByteLength());
     } else {
-      return columnKey.toString().getBytes();
+      return Bytes.toBytes(columnKey.toString());
     }
   }
 
@@ -230,8 +243,7 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
           + fieldName);
     }
 
-    ByteArrayInputStream byteIn = new ByteArrayInputStream(bytes);
-    Decoder decoder = getColumnDecoder(field.schema(), byteIn);
+    Decoder decoder = getColumnDecoder(field.schema(), bytes);
     return AvroUtils.readAvroEntity(decoder, datumReader);
   }
 
@@ -251,20 +263,20 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
         throw new SchemaValidationException("No datum reader for field name: "
             + fieldName);
       }
-      return AvroUtils.readAvroEntity(columnValueBytes, datumReader);
+      return readBinary(columnValueBytes, datumReader);
     } else if (schemaType == Schema.Type.RECORD) {
       if (!kacRecordDatumReaders.containsKey(fieldName)) {
         throw new SchemaValidationException("Invalid field name " + fieldName
             + " for schema " + avroSchema.toString());
       }
-      String columnKey = new String(columnKeyBytes);
+      String columnKey = Bytes.toString(columnKeyBytes);
       if (!kacRecordDatumReaders.get(fieldName).containsKey(columnKey)) {
         throw new SchemaValidationException("Invalid key in record: "
             + fieldName + "." + columnKey);
       }
       DatumReader<Object> datumReader = kacRecordDatumReaders.get(fieldName)
           .get(columnKey);
-      return AvroUtils.readAvroEntity(columnValueBytes, datumReader);
+      return readBinary(columnValueBytes, datumReader);
     } else {
       throw new SchemaValidationException("Unsupported type for keyAsColumn: "
           + schemaType);
@@ -284,12 +296,12 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
     if (schemaType == Schema.Type.MAP) {
       String stringProp = field.schema().getProp("avro.java.string");
       if (stringProp != null && stringProp.equals("String")) {
-        return new String(columnKeyBytes);
+        return Bytes.toString(columnKeyBytes);
       } else {
         return new Utf8(columnKeyBytes);
       }
     } else if (schemaType == Schema.Type.RECORD) {
-      return new String(columnKeyBytes);
+      return Bytes.toString(columnKeyBytes);
     } else {
       throw new SchemaValidationException("Unsupported type for keyAsColumn: "
           + schemaType);
@@ -339,44 +351,80 @@ public class AvroEntitySerDe<E extends IndexedRecord> extends EntitySerDe<E> {
     }
   }
 
+  /**
+   * Encodes a value with this thread's reusable Avro binary encoder.
+   */
+  private byte[] writeBinary(Object value, DatumWriter<Object> datumWriter) {
+    ColumnBuffers columnBuffers = buffers.get();
+    columnBuffers.out.reset();
+    AvroUtils.writeAvroEntity(value, columnBuffers.binaryEncoder, datumWriter);
+    return columnBuffers.out.toByteArray();
+  }
+
+  /**
+   * Decodes a value, reusing this thread's Avro binary decoder.
+   */
+  private Object readBinary(byte[] bytes, DatumReader<Object> datumReader) {
+    return AvroUtils.readAvroEntity(
+        buffers.get().binaryDecoder(bytes), datumReader);
+  }
+
   /**
    * Returns an Avro Decoder. The implementation it chooses will depend on the
    * schema of the field.
    * 
-   * @param in
-   *          InputStream to decode bytes from
+   * @param bytes
+   *          The bytes to decode
    * @return The avro decoder.
    */
-  private Decoder getColumnDecoder(Schema writtenFieldAvroSchema, InputStream in) {
+  private Decoder getColumnDecoder(Schema writtenFieldAvroSchema, byte[] bytes) {
     // Use a special Avro decoder that has special handling for int, long,
     // and String types. See ColumnDecoder for more information.
     if (writtenFieldAvroSchema.getType() == Type.INT
         || writtenFieldAvroSchema.getType() == Type.LONG
         || writtenFieldAvroSchema.getType() == Type.STRING) {
-      return new ColumnDecoder(in);
+      return new ColumnDecoder(new ByteArrayInputStream(bytes));
     } else {
-      return DecoderFactory.get().binaryDecoder(in, null);
+      return buffers.get().binaryDecoder(bytes);
     }
   }
 
   /**
-   * Returns an Avro Encoder. The implementation it chooses will depend on the
-   * schema of the field.
+   * Returns an Avro Encoder that writes to the given buffers' output stream.
+   * The implementation it chooses will depend on the schema of the field.
    * 
-   * @param out
-   *          Output stream to encode bytes to
+   * @param columnBuffers
+   *          This thread's reusable buffers
    * @return The avro encoder
    */
-  private Encoder getColumnEncoder(Schema fieldAvroSchema, OutputStream out) {
+  private Encoder getColumnEncoder(Schema fieldAvroSchema,
+      ColumnBuffers columnBuffers) {
     // Use a special Avro encoder that has special handling for int, long,
     // and String types. See ColumnEncoder for more information.
     if (fieldAvroSchema.getType() == Type.INT
         || fieldAvroSchema.getType() == Type.LONG
         || fieldAvroSchema.getType() == Type.STRING) {
-      return new ColumnEncoder(out);
+      return columnBuffers.columnEncoder;
     } else {
-      return EncoderFactory.get().binaryEncoder(out, null);
+      return columnBuffers.binaryEncoder;
     }
   }
 
+  /**
+   * An output buffer with the encoders that write to it, and a binary decoder
+   * that is reconfigured for each value. Used by only one thread.
+   */
+  private static class ColumnBuffers {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ColumnEncoder columnEncoder = new ColumnEncoder(out);
+    private final BinaryEncoder binaryEncoder =
+        EncoderFactory.get().binaryEncoder(out, null);
+    private BinaryDecoder binaryDecoder = null;
+
+    private BinaryDecoder binaryDecoder(byte[] bytes) {
+      this.binaryDecoder = DecoderFactory.get()
+          .binaryDecoder(bytes, binaryDecoder);
+      return binaryDecoder;
+    }
+  }
 }
@@ -18,25 +18,24 @@ package org.kitesdk.data.hbase.avro;
 import org.kitesdk.data.DatasetException;
 import org.kitesdk.data.PartitionKey;
 import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.SerializationException;
 import org.kitesdk.data.hbase.avro.io.MemcmpDecoder;
 import org.kitesdk.data.hbase.avro.io.MemcmpEncoder;
 import org.kitesdk.data.hbase.impl.KeySerDe;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
-import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.Decoder;
-import org.apache.avro.io.Encoder;
 
 /**
  * Avro implementation of the KeySerDe interface. This will serialize Keys and
@@ -48,75 +47,75 @@ import org.apache.avro.io.Encoder;
 public class AvroKeySerDe implements KeySerDe {
 
   private final Schema schema;
-  private final Schema[] partialSchemas;
   private final PartitionStrategy partitionStrategy;
+  // writers for each key field, so that partial keys use a prefix of the array
+  private final DatumWriter<Object>[] fieldWriters;
+  private final DatumReader<GenericRecord> datumReader;
 
+  // output buffers are reused by each thread to avoid allocating per key
+  private final ThreadLocal<KeyBuffer> buffers = new ThreadLocal<KeyBuffer>() {
+    @Override
+    protected KeyBuffer initialValue() {
+      return new KeyBuffer();
+    }
+  };
+
+  @SuppressWarnings("unchecked")
   public AvroKeySerDe(Schema schema, PartitionStrategy partitionStrategy) {
     this.schema = schema;
-    int fieldSize = schema.getFields().size();
-    partialSchemas = new Schema[fieldSize];
-    for (int i = 0; i < fieldSize; i++) {
-      if (i == (fieldSize - 1)) {
-        break;
-      }
-      List<Field> partialFieldList = new ArrayList<Field>();
-      for (Field field : schema.getFields().subList(0, i + 1)) {
-        partialFieldList.add(AvroUtils.cloneField(field));
-      }
-      partialSchemas[i] = Schema.createRecord(partialFieldList);
+    List<Field> fields = schema.getFields();
+    this.fieldWriters = new DatumWriter[fields.size()];
+    for (int i = 0; i < fieldWriters.length; i++) {
+      fieldWriters[i] = new GenericDatumWriter<Object>(fields.get(i).schema());
     }
+    this.datumReader = new GenericDatumReader<GenericRecord>(schema);
     this.partitionStrategy = partitionStrategy;
   }
 
   @Override
   public byte[] serialize(PartitionKey key) {
-    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    Encoder encoder = new MemcmpEncoder(outputStream);
-
-    Schema schemaToUse;
-    if (key.getLength() == schema.getFields().size()) {
-      schemaToUse = schema;
-    } else {
-      schemaToUse = partialSchemas[key.getLength() - 1];
+    KeyBuffer buffer = buffers.get();
+    buffer.out.reset();
+    try {
+      for (int i = 0; i < key.getLength(); i++) {
+        Object keyPart = key.get(i);
+        if (keyPart == null) {
+          // keyPart is null, let's make sure we check that the key can support
+          // a null value so we can throw a friendly exception if it can't.
+          checkNullable(schema.getFields().get(i).schema());
+        }
+        fieldWriters[i].write(keyPart, buffer.encoder);
+      }
+      buffer.encoder.flush();
+    } catch (IOException e) {
+      throw new SerializationException("Could not serialize Avro entity", e);
     }
-    DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<GenericRecord>(
-        schemaToUse);
-    GenericRecord record = new GenericData.Record(schemaToUse);
-    for (int i = 0; i < key.getLength(); i++) {
-      Object keyPart = key.get(i);
-      if (keyPart == null) {
-        // keyPart is null, let's make sure we check that the key can support a
-        // null value so we can throw a friendly exception if it can't.
-        Schema fieldSchema = schemaToUse.getFields().get(i).schema();
-        if (fieldSchema.getType() != Schema.Type.NULL
-            && fieldSchema.getType() != Schema.Type.UNION) {
-          throw new DatasetException(
-              "Null key field only supported in null type or union type that has a null type.");
-        } else if (fieldSchema.getType() == Schema.Type.UNION) {
-          boolean foundNullInUnion = false;
-          for (Schema unionSchema : fieldSchema.getTypes()) {
-            if (unionSchema.getType() == Schema.Type.NULL) {
-              foundNullInUnion = true;
-            }
-          }
-          if (!foundNullInUnion) {
-            throw new DatasetException(
-                "Null key field only supported in union type that has a null type.");
-          }
+    return buffer.out.toByteArray();
+  }
+
+  private static void checkNullable(Schema fieldSchema) {
+    if (fieldSchema.getType() != Schema.Type.NULL
+        && fieldSchema.getType() != Schema.Type.UNION) {
+      throw new DatasetException(
+          "Null key field only supported in null type or union type that has a null type.");
+    } else if (fieldSchema.getType() == Schema.Type.UNION) {
+      boolean foundNullInUnion = false;
+      for (Schema unionSchema : fieldSchema.getTypes()) {
+        if (unionSchema.getType() == Schema.Type.NULL) {
+          foundNullInUnion = true;
         }
       }
-      record.put(i, keyPart);
+      if (!foundNullInUnion) {
+        throw new DatasetException(
+            "Null key field only supported in union type that has a null type.");
+      }
     }
-    AvroUtils.writeAvroEntity(record, encoder, datumWriter);
-    return outputStream.toByteArray();
   }
 
   @Override
   public PartitionKey deserialize(byte[] keyBytes) {
     ByteArrayInputStream inputStream = new ByteArrayInputStream(keyBytes);
     Decoder decoder = new MemcmpDecoder(inputStream);
-    DatumReader<GenericRecord> datumReader = new GenericDatumReader<GenericRecord>(
-        schema);
     GenericRecord genericRecord = AvroUtils
         .readAvroEntity(decoder, datumReader);
 
@@ -131,4 +130,12 @@ public class AvroKeySerDe implements KeySerDe {
   public byte[] serialize(Object... keyPartValues) {
     return serialize(partitionStrategy.partitionKey(keyPartValues));
   }
+
+  /**
+   * An output buffer and the encoder that writes to it, used by one thread.
+   */
+  private static class KeyBuffer {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final MemcmpEncoder encoder = new MemcmpEncoder(out);
+  }
 }
@@ -24,7 +24,6 @@ import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.util.Utf8;
-import org.apache.hadoop.hbase.util.Bytes;
 
 /**
  * An Avro Decoder implementation used for decoding Avro instances from HBase
@@ -40,56 +39,61 @@ import org.apache.hadoop.hbase.util.Bytes;
  */
 public class ColumnDecoder extends Decoder {
 
-  private final BinaryDecoder wrappedDecoder;
   private final InputStream in;
   private final DataInputStream dataIn;
+  // created when first needed because int, long, and string columns don't use
+  // it, and a binary decoder allocates a large read buffer
+  private BinaryDecoder wrappedDecoder = null;
 
   public ColumnDecoder(InputStream in) {
     this.in = in;
-    this.wrappedDecoder = new DecoderFactory().binaryDecoder(in, null);
     this.dataIn = new DataInputStream(in);
   }
 
+  private BinaryDecoder wrappedDecoder() {
+    if (wrappedDecoder == null) {
+      this.wrappedDecoder = DecoderFactory.get().binaryDecoder(in, null);
+    }
+    return wrappedDecoder;
+  }
+
   @Override
   public void readNull() throws IOException {
-    wrappedDecoder.readNull();
+    wrappedDecoder().readNull();
   }
 
   @Override
   public boolean readBoolean() throws IOException {
-    return wrappedDecoder.readBoolean();
+    return wrappedDecoder().readBoolean();
   }
 
   @Override
   public int readInt() throws IOException {
-    byte[] b = new byte[4];
-    dataIn.readFully(b);
-    return Bytes.toInt(b);
+    return dataIn.readInt();
   }
 
   @Override
   public long readLong() throws IOException {
-    byte[] b = new byte[8];
-    dataIn.readFully(b);
-    return Bytes.toLong(b);
+    return dataIn.readLong();
   }
 
   @Override
   public float readFloat() throws IOException {
-    return wrappedDecoder.readFloat();
+    return wrappedDecoder().readFloat();
   }
 
   @Override
   public double readDouble() throws IOException {
-    return wrappedDecoder.readDouble();
+    return wrappedDecoder().readDouble();
   }
 
   @Override
   public Utf8 readString(Utf8 old) throws IOException {
     int bytesAvailable = in.available(); // assumes 'in' is ByteArrayInputStream so knows length
-    byte[] bytes = new byte[bytesAvailable];
-    in.read(bytes);
-    return new Utf8(bytes);
+    Utf8 utf8 = (old != null ? old : new Utf8());
+    utf8.setByteLength(bytesAvailable);
+    dataIn.readFully(utf8.getBytes(), 0, bytesAvailable);
+    return utf8;
   }
 
   @Override
@@ -105,62 +109,62 @@ public class ColumnDecoder extends Decoder {
 
   @Override
   public ByteBuffer readBytes(ByteBuffer old) throws IOException {
-    return wrappedDecoder.readBytes(old);
+    return wrappedDecoder().readBytes(old);
   }
 
   @Override
   public void skipBytes() throws IOException {
-    wrappedDecoder.skipBytes();
+    wrappedDecoder().skipBytes();
   }
 
   @Override
   public void readFixed(byte[] bytes, int start, int length) throws IOException {
-    wrappedDecoder.readFixed(bytes, start, length);
+    wrappedDecoder().readFixed(bytes, start, length);
   }
 
   @Override
   public void skipFixed(int length) throws IOException {
-    wrappedDecoder.skipFixed(length);
+    wrappedDecoder().skipFixed(length);
   }
 
   @Override
   public int readEnum() throws IOException {
-    return wrappedDecoder.readEnum();
+    return wrappedDecoder().readEnum();
   }
 
   @Override
   public long readArrayStart() throws IOException {
-    return wrappedDecoder.readArrayStart();
+    return wrappedDecoder().readArrayStart();
   }
 
   @Override
   public long arrayNext() throws IOException {
-    return wrappedDecoder.arrayNext();
+    return wrappedDecoder().arrayNext();
   }
 
   @Override
   public long skipArray() throws IOException {
-    return wrappedDecoder.skipArray();
+    return wrappedDecoder().skipArray();
   }
 
   @Override
   public long readMapStart() throws IOException {
-    return wrappedDecoder.readMapStart();
+    return wrappedDecoder().readMapStart();
   }
 
   @Override
   public long mapNext() throws IOException {
-    return wrappedDecoder.mapNext();
+    return wrappedDecoder().mapNext();
   }
 
   @Override
   public long skipMap() throws IOException {
-    return wrappedDecoder.skipMap();
+    return wrappedDecoder().skipMap();
   }
 
   @Override
   public int readIndex() throws IOException {
-    return wrappedDecoder.readIndex();
+    return wrappedDecoder().readIndex();
   }
 
 }
@@ -42,15 +42,17 @@ public class ColumnEncoder extends Encoder {
 
   private final BinaryEncoder wrappedEncoder;
   private final OutputStream out;
+  // reused for int and long values to avoid allocating a buffer per value
+  private final byte[] buffer = new byte[8];
 
   public ColumnEncoder(OutputStream out) {
     this.out = out;
-    wrappedEncoder = new EncoderFactory().binaryEncoder(out, null);
+    wrappedEncoder = EncoderFactory.get().binaryEncoder(out, null);
   }
   
   public ColumnEncoder(OutputStream out, ColumnEncoder reuse) {
     this.out = out;
-    wrappedEncoder = new EncoderFactory().binaryEncoder(out, reuse.wrappedEncoder);
+    wrappedEncoder = EncoderFactory.get().binaryEncoder(out, reuse.wrappedEncoder);
   }
 
   @Override
@@ -70,12 +72,14 @@ public class ColumnEncoder extends Encoder {
 
   @Override
   public void writeInt(int n) throws IOException {
-    out.write(Bytes.toBytes(n));
+    Bytes.putInt(buffer, 0, n);
+    out.write(buffer, 0, 4);
   }
 
   @Override
   public void writeLong(long n) throws IOException {
-    out.write(Bytes.toBytes(n));
+    Bytes.putLong(buffer, 0, n);
+    out.write(buffer, 0, 8);
   }
 
   @Override
@@ -90,7 +94,7 @@ public class ColumnEncoder extends Encoder {
 
   @Override
   public void writeString(Utf8 utf8) throws IOException {
-    out.write(utf8.getBytes());
+    out.write(utf8.getBytes(), 0, utf8.getByteLength());
   }
 
   @Override
@@ -27,6 +27,8 @@ import org.apache.avro.io.Encoder;
  */
 public class MemcmpEncoder extends Encoder {
   private OutputStream out;
+  // reused for int and long values to avoid allocating a buffer per value
+  private final byte[] buffer = new byte[8];
 
   public MemcmpEncoder(OutputStream out) {
     this.out = out;
@@ -63,9 +65,11 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeInt(int n) throws IOException {
-    byte[] intBytes = new byte[] { (byte) ((n >>> 24) ^ 0x80),
-        (byte) (n >>> 16), (byte) (n >>> 8), (byte) n };
-    out.write(intBytes);
+    buffer[0] = (byte) ((n >>> 24) ^ 0x80);
+    buffer[1] = (byte) (n >>> 16);
+    buffer[2] = (byte) (n >>> 8);
+    buffer[3] = (byte) n;
+    out.write(buffer, 0, 4);
   }
 
   /**
@@ -77,10 +81,15 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeLong(long n) throws IOException {
-    byte[] intBytes = new byte[] { (byte) ((n >>> 56) ^ 0x80),
-        (byte) (n >>> 48), (byte) (n >>> 40), (byte) (n >>> 32),
-        (byte) (n >>> 24), (byte) (n >>> 16), (byte) (n >>> 8), (byte) n };
-    out.write(intBytes);
+    buffer[0] = (byte) ((n >>> 56) ^ 0x80);
+    buffer[1] = (byte) (n >>> 48);
+    buffer[2] = (byte) (n >>> 40);
+    buffer[3] = (byte) (n >>> 32);
+    buffer[4] = (byte) (n >>> 24);
+    buffer[5] = (byte) (n >>> 16);
+    buffer[6] = (byte) (n >>> 8);
+    buffer[7] = (byte) n;
+    out.write(buffer, 0, 8);
   }
 
   /**
@@ -175,14 +184,17 @@ public class MemcmpEncoder extends Encoder {
    */
   @Override
   public void writeBytes(byte[] bytes, int start, int len) throws IOException {
+    // write runs of non-zero bytes at once, escaping each 0x00 between them
+    int runStart = start;
     for (int i = start; i < start + len; ++i) {
       if (bytes[i] == 0x00) {
+        out.write(bytes, runStart, i - runStart);
         out.write(0);
         out.write(1);
-      } else {
-        out.write((int) bytes[i]);
+        runStart = i + 1;
       }
     }
+    out.write(bytes, runStart, start + len - runStart);
     out.write(0);
     out.write(0);
   }
@@ -15,6 +15,8 @@
  */
 package org.kitesdk.data.hbase.impl;
 
+import java.util.Collection;
+import java.util.List;
 import org.kitesdk.data.PartitionKey;
 import org.kitesdk.data.PartitionStrategy;
 
@@ -70,6 +72,20 @@ public class BaseDao<E> implements Dao<E> {
     return clientTemplate.get(key, entityMapper);
   }
 
+  /**
+   * Return the entities stored in HBase at the rows keyed on the given
+   * PartitionKeys. The rows are fetched with batched gets, which make one
+   * round trip per region server instead of one per key.
+   * 
+   * @param keys
+   *          The keys of the rows to fetch
+   * @return A list of entities of type E, in the same order as the keys. The
+   *         list contains null for each key that is not found.
+   */
+  public List<E> get(Collection<PartitionKey> keys) {
+    return clientTemplate.get(keys, entityMapper);
+  }
+
   @Override
   public boolean put(E entity) {
     return clientTemplate.put(entity, entityMapper);
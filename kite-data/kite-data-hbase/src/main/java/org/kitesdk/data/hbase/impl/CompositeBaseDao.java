@@ -22,6 +22,7 @@ import org.kitesdk.data.hbase.impl.EntitySchema.FieldMapping;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -177,6 +178,20 @@ public abstract class CompositeBaseDao<E, S> implements CompositeDao<E, S> {
     return baseDao.get(key);
   }
 
+  /**
+   * Return the entities stored in HBase at the rows keyed on the given
+   * PartitionKeys. The rows are fetched with batched gets, which make one
+   * round trip per region server instead of one per key.
+   * 
+   * @param keys
+   *          The keys of the rows to fetch
+   * @return A list of entities of type E, in the same order as the keys. The
+   *         list contains null for each key that is not found.
+   */
+  public List<E> get(Collection<PartitionKey> keys) {
+    return baseDao.get(keys);
+  }
+
   @Override
   public boolean put(E entity) {
     return baseDao.put(entity);
@@ -21,6 +21,7 @@ import java.util.List;
 import org.apache.hadoop.hbase.client.HTablePool;
 import org.apache.hadoop.hbase.filter.CompareFilter;
 import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 
 import org.kitesdk.data.PartitionKey;
@@ -224,6 +225,29 @@ public abstract class EntityScannerBuilder<E> {
     return this;
   }
 
+  /**
+   * Add a Set Membership Filter to the Scanner, Will Filter Results Not Equal
+   * to Any of the Filter Values
+   * 
+   * @param fieldName
+   *          The name of the column you want to apply the filter on
+   * @param filterValues
+   *          The values for comparison
+   * @return ScannerBuilder
+   */
+  public EntityScannerBuilder<E> addInFilter(String fieldName,
+      Iterable<?> filterValues) {
+    FilterList anyEqual = new FilterList(FilterList.Operator.MUST_PASS_ONE);
+    for (Object filterValue : filterValues) {
+      SingleFieldEntityFilter singleFieldEntityFilter = new SingleFieldEntityFilter(
+          entityMapper.getEntitySchema(), entityMapper.getEntitySerDe(),
+          fieldName, filterValue, CompareFilter.CompareOp.EQUAL);
+      anyEqual.addFilter(singleFieldEntityFilter.getFilter());
+    }
+    filterList.add(anyEqual);
+    return this;
+  }
+
   /**
    * Add an Inequality Filter to the Scanner, Will Filter Results Not Equal to
    * the Filter Value
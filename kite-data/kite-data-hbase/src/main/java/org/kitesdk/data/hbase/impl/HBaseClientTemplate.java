@@ -21,6 +21,7 @@ import com.google.common.annotations.VisibleForTesting;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -258,6 +259,71 @@ public class HBaseClientTemplate {
     return get(get);
   }
 
+  /**
+   * Execute a list of Gets on HBase as a single batch. The HBase client groups
+   * the Gets by region server, so this makes one round trip per server rather
+   * than one per Get.
+   * 
+   * Any GetModifers registered with registerGetModifier will be invoked on
+   * each Get before the batch is executed.
+   * 
+   * @param gets
+   *          The Gets to execute
+   * @return Results returned from the Gets, in the same order as the Gets.
+   */
+  public Result[] get(List<Get> gets) {
+    List<Get> modified = new ArrayList<Get>(gets.size());
+    for (Get get : gets) {
+      for (GetModifier getModifier : getModifiers) {
+        get = getModifier.modifyGet(get);
+      }
+      modified.add(get);
+    }
+    HTableInterface table = pool.getTable(tableName);
+    try {
+      try {
+        return table.get(modified);
+      } catch (IOException e) {
+        throw new DatasetIOException("Error performing multi-get", e);
+      }
+    } finally {
+      if (table != null) {
+        try {
+          table.close();
+        } catch (IOException e) {
+          throw new DatasetIOException("Error putting table back into pool",
+              e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Execute a list of Gets on HBase as a single batch, invoking the
+   * getModifier on each Get before executing the batch if getModifier is not
+   * null.
+   * 
+   * Any GetModifers registered with registerGetModifier will be invoked on
+   * each Get after the getModifier passed to this function is called.
+   * 
+   * @param gets
+   *          The Gets to execute.
+   * @param getModifier
+   *          Invoked on each Get to give callers a chance to modify the Gets
+   *          before they are executed.
+   * @return Results returned from the Gets, in the same order as the Gets.
+   */
+  public Result[] get(List<Get> gets, GetModifier getModifier) {
+    if (getModifier != null) {
+      List<Get> modified = new ArrayList<Get>(gets.size());
+      for (Get get : gets) {
+        modified.add(getModifier.modifyGet(get));
+      }
+      gets = modified;
+    }
+    return get(gets);
+  }
+
   /**
    * Execute a Get on HBase, creating the Get from the key's toByteArray method.
    * The returned Result of the Get will be mapped to an entity with the
@@ -310,6 +376,66 @@ public class HBaseClientTemplate {
     }
   }
 
+  /**
+   * Execute a batch of Gets on HBase, creating a Get for each key. The
+   * returned Results will be mapped to entities with the entityMapper.
+   * 
+   * Any GetModifers registered with registerGetModifier will be invoked before
+   * the Gets are executed.
+   * 
+   * @param keys
+   *          The keys to create Gets from.
+   * @param entityMapper
+   *          The EntityMapper to use to map the Results to entities to return.
+   * @return The entities created by the entityMapper, in the same order as the
+   *         keys. The list contains null for keys that were not found.
+   */
+  public <E> List<E> get(Collection<PartitionKey> keys,
+      EntityMapper<E> entityMapper) {
+    return get(keys, null, entityMapper);
+  }
+
+  /**
+   * Execute a batch of Gets on HBase, creating a Get for each key. The
+   * returned Results will be mapped to entities with the entityMapper.
+   * 
+   * If the getModifier is not null, it will be invoked on each created Get
+   * before the Gets are executed.
+   * 
+   * Any GetModifers registered with registerGetModifier will be invoked after
+   * the getModifier passed to this method is invoked, and before the Gets are
+   * executed.
+   * 
+   * @param keys
+   *          The keys to create Gets from.
+   * @param getModifier
+   *          Invoked on each Get to give callers a chance to modify the Gets
+   *          before they are executed.
+   * @param entityMapper
+   *          The EntityMapper to use to map the Results to entities to return.
+   * @return The entities created by the entityMapper, in the same order as the
+   *         keys. The list contains null for keys that were not found.
+   */
+  public <E> List<E> get(Collection<PartitionKey> keys,
+      GetModifier getModifier, EntityMapper<E> entityMapper) {
+    List<Get> gets = new ArrayList<Get>(keys.size());
+    for (PartitionKey key : keys) {
+      Get get = new Get(entityMapper.getKeySerDe().serialize(key));
+      HBaseUtils.addColumnsToGet(entityMapper.getRequiredColumns(), get);
+      gets.add(get);
+    }
+    Result[] results = get(gets, getModifier);
+    List<E> entities = new ArrayList<E>(results.length);
+    for (Result result : results) {
+      if (result == null || result.isEmpty()) {
+        entities.add(null);
+      } else {
+        entities.add(entityMapper.mapToEntity(result));
+      }
+    }
+    return entities;
+  }
+
   /**
    * Execute a Put on HBase.
    * 
@@ -28,7 +28,9 @@ import org.kitesdk.data.hbase.testing.HBaseTestUtils;
 
 import org.kitesdk.data.spi.AbstractRefinableView;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 
 import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.After;
@@ -141,6 +143,59 @@ public class DaoViewTest {
     validRange(range, 0, 9);
   }
 
+  @Test
+  public void testMultipleRanges() {
+    populateTestEntities(10);
+
+    View<TestEntity> view = new DaoView<TestEntity>(ds)
+        .with(NAMES[0], "7", "3", "1")
+        .with(NAMES[1], "7", "3", "1");
+
+    DatasetReader<TestEntity> reader = view.newReader();
+    reader.open();
+    List<String> parts = new ArrayList<String>();
+    try {
+      for (TestEntity entity : reader) {
+        Assert.assertEquals(entity.getPart1(), entity.getPart2());
+        parts.add(entity.getPart1());
+      }
+    } finally {
+      reader.close();
+    }
+
+    Assert.assertEquals("Should read all ranges in key order",
+        Arrays.asList("1", "3", "7"), parts);
+  }
+
+  @Test
+  public void testColumnConstraints() {
+    for (int i = 0; i < 10; i++) {
+      ds.put(TestEntity
+          .newBuilder(newTestEntity(Integer.toString(i), Integer.toString(i)))
+          .setField1(i % 3 == 0 ? "fizz" : "field1")
+          .build());
+    }
+
+    View<TestEntity> view = new DaoView<TestEntity>(ds)
+        .from(NAMES[0], "1").to(NAMES[0], "9")
+        .from(NAMES[1], "1").to(NAMES[1], "9")
+        .with("field1", "fizz");
+
+    DatasetReader<TestEntity> reader = view.newReader();
+    reader.open();
+    List<String> parts = new ArrayList<String>();
+    try {
+      for (TestEntity entity : reader) {
+        Assert.assertEquals("fizz", entity.getField1());
+        parts.add(entity.getPart1());
+      }
+    } finally {
+      reader.close();
+    }
+
+    Assert.assertEquals(Arrays.asList("3", "6", "9"), parts);
+  }
+
   @Test
   public void testLimitedWriter() {
     final View<TestEntity> range = ds
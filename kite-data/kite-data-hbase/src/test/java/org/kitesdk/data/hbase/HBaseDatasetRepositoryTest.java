@@ -233,6 +233,37 @@ public class HBaseDatasetRepositoryTest {
     assertNull(deletedRecord);
   }
 
+  @Test
+  public void testBatchGet() throws Exception {
+    String datasetName = tableName + ".TestEntity";
+    HBaseDatasetRepository repo = new HBaseDatasetRepository.Builder()
+        .configuration(HBaseTestUtils.getConf()).build();
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schemaLiteral(testEntity)
+        .build();
+    RandomAccessDataset<TestEntity> created = repo.create(datasetName, descriptor);
+    for (int i = 0; i < 10; ++i) {
+      created.put(createSpecificEntity(i));
+    }
+
+    BatchRandomAccessDataset<TestEntity> ds =
+        (BatchRandomAccessDataset<TestEntity>) repo.<TestEntity>load(datasetName);
+    List<Key> keys = new ArrayList<Key>();
+    for (String iStr : new String[] { "7", "missing", "0", "3" }) {
+      keys.add(new Key.Builder(ds)
+          .add("part1", "part1_" + iStr)
+          .add("part2", "part2_" + iStr).build());
+    }
+
+    List<TestEntity> entities = ds.get(keys);
+    assertEquals(4, entities.size());
+    compareEntitiesWithString(7, entities.get(0));
+    assertNull(entities.get(1));
+    compareEntitiesWithString(0, entities.get(2));
+    compareEntitiesWithString(3, entities.get(3));
+  }
+
   @Test
   public void testDeleteDataset() throws Exception {
 
@@ -221,6 +221,29 @@ public class AvroDaoTest {
     assertNull(dao.get(deleteKey));
   }
 
+  @Test
+  public void testMultiGet() throws Exception {
+    SpecificAvroDao<TestRecord> dao = new SpecificAvroDao<TestRecord>(tablePool,
+      tableName, schemaString, TestRecord.class);
+
+    for (TestRecord testRecord : this.createSpecificEntities(10)) {
+      assertTrue(dao.put(testRecord));
+    }
+
+    List<PartitionKey> keys = new ArrayList<PartitionKey>();
+    for (int i : new int[] { 7, 2, 11, 5 }) {
+      keys.add(dao.getPartitionStrategy().partitionKey(
+          "part1_" + i, "part2_" + i));
+    }
+
+    List<TestRecord> records = dao.get(keys);
+    assertEquals(4, records.size());
+    assertEquals("field1_7", records.get(0).getField1());
+    assertEquals("field1_2", records.get(1).getField1());
+    assertNull("Missing keys should return null", records.get(2));
+    assertEquals("field1_5", records.get(3).getField1());
+  }
+
   @Test
   public void testIncrement() {
     Dao<TestIncrement> dao = new SpecificAvroDao<TestIncrement>(tablePool,
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.hbase.avro;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.PartitionKey;
+
+public class AvroKeySerDeTest {
+
+  private static final String schemaString = "{ \"name\": \"test\", "
+      + "\"type\": \"record\", "
+      + "\"fields\": [ "
+      + "{ \"name\": \"id\", \"type\": \"int\", "
+      + "    \"mapping\": { \"type\": \"key\", \"value\": \"0\" } }, "
+      + "{ \"name\": \"name\", \"type\": \"string\", "
+      + "    \"mapping\": { \"type\": \"key\", \"value\": \"1\" } }, "
+      + "{ \"name\": \"field1\", \"type\": \"int\", "
+      + "    \"mapping\": { \"type\": \"column\", \"value\": \"int:1\" } } "
+      + "]}";
+
+  private AvroKeySerDe keySerDe;
+
+  @Before
+  public void setUp() {
+    AvroKeySchema keySchema = new AvroKeyEntitySchemaParser()
+        .parseKeySchema(schemaString);
+    keySerDe = new AvroKeySerDe(keySchema.getAvroSchema(),
+        keySchema.getPartitionStrategy());
+  }
+
+  @Test
+  public void testRoundTrip() {
+    byte[] keyBytes = keySerDe.serialize(1, "a\u0000b");
+    assertArrayEquals(new byte[] { (byte) 0x80, 0, 0, 1,
+        'a', 0, 1, 'b', 0, 0 }, keyBytes);
+
+    PartitionKey key = keySerDe.deserialize(keyBytes);
+    assertEquals(1, key.get(0));
+    assertEquals("a\u0000b", key.get(1).toString());
+  }
+
+  @Test
+  public void testPartialKeyIsPrefix() {
+    byte[] partial = keySerDe.serialize(7);
+    byte[] full = keySerDe.serialize(7, "name");
+    assertEquals(4, partial.length);
+    assertArrayEquals(partial, Arrays.copyOf(full, partial.length));
+  }
+
+  @Test
+  public void testReusedBuffersAreNotShared() {
+    byte[] first = keySerDe.serialize(-1, "zz");
+    byte[] second = keySerDe.serialize(1, "a");
+    assertNotSame(first, second);
+    assertArrayEquals(new byte[] { 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+        'z', 'z', 0, 0 }, first);
+    assertTrue("Keys should sort by memcmp",
+        Bytes.compareTo(first, second) < 0);
+  }
+}
@@ -94,6 +94,10 @@ public class ColumnDecoderTest {
     in = new ByteArrayInputStream(s.getBytes("UTF-8"));
     decoder = new ColumnDecoder(in);
     assertEquals(s, decoder.readString(new Utf8()).toString());
+
+    in = new ByteArrayInputStream(s.getBytes("UTF-8"));
+    decoder = new ColumnDecoder(in);
+    assertEquals(s, decoder.readString(new Utf8("a longer string")).toString());
   }
 
   @Test
@@ -89,4 +89,14 @@ public class ColumnEncoderTest {
     assertArrayEquals(s.getBytes("UTF-8"), byteOutputStream.toByteArray());
   }
 
+  @Test
+  public void testWriteReusedUtf8() throws Exception {
+    // a reused Utf8 may have a backing array longer than its contents
+    Utf8 utf8 = new Utf8("hello world");
+    utf8.set("hi");
+    encoder.writeString(utf8);
+    encoder.flush();
+    assertArrayEquals("hi".getBytes("UTF-8"), byteOutputStream.toByteArray());
+  }
+
 }
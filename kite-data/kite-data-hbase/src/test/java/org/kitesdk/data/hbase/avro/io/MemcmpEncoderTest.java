@@ -74,4 +74,18 @@ public class MemcmpEncoderTest {
     assertArrayEquals(new byte[] { (byte) 0x01, (byte) 0x00, (byte) 0x01,
         (byte) 0xff, (byte) 0x00, (byte) 0x00 }, byteOutputStream.toByteArray());
   }
+
+  @Test
+  public void testWriteBytesWithZeroRuns() throws Exception {
+    encoder.writeBytes(new byte[] { (byte) 0x00, (byte) 0x02, (byte) 0x00,
+        (byte) 0x00 }, 0, 4);
+    assertArrayEquals(new byte[] { (byte) 0x00, (byte) 0x01, (byte) 0x02,
+        (byte) 0x00, (byte) 0x01, (byte) 0x00, (byte) 0x01, (byte) 0x00,
+        (byte) 0x00 }, byteOutputStream.toByteArray());
+    byteOutputStream.reset();
+    encoder.writeBytes(new byte[] { (byte) 0x05, (byte) 0x06, (byte) 0x07 }, 1,
+        2);
+    assertArrayEquals(new byte[] { (byte) 0x06, (byte) 0x07, (byte) 0x00,
+        (byte) 0x00 }, byteOutputStream.toByteArray());
+  }
 }
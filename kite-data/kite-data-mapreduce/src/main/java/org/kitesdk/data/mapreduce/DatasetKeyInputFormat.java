@@ -16,9 +16,16 @@
 package org.kitesdk.data.mapreduce;
 
 import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.net.URI;
 import java.util.List;
+import org.apache.commons.codec.binary.Base64;
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -31,9 +38,13 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetRepositories;
 import org.kitesdk.data.DatasetRepository;
+import org.kitesdk.data.DatasetException;
 import org.kitesdk.data.PartitionKey;
+import org.kitesdk.data.View;
 import org.kitesdk.data.filesystem.impl.Accessor;
 import org.kitesdk.data.spi.AbstractDataset;
+import org.kitesdk.data.spi.AbstractRefinableView;
+import org.kitesdk.data.spi.Constraints;
 
 /**
  * A MapReduce {@code InputFormat} for reading from a {@link Dataset}.
@@ -50,6 +61,8 @@ public class DatasetKeyInputFormat<E> extends InputFormat<E, Void>
   public static final String KITE_REPOSITORY_URI = "kite.inputRepositoryUri";
   public static final String KITE_DATASET_NAME = "kite.inputDatasetName";
   public static final String KITE_PARTITION_DIR = "kite.inputPartitionDir";
+  public static final String KITE_CONSTRAINTS = "kite.inputConstraints";
+  public static final String KITE_COMBINE_SPLIT_SIZE = "kite.inputCombineSplitSize";
 
   private Configuration conf;
   private InputFormat<E, Void> delegate;
@@ -62,6 +75,49 @@ public class DatasetKeyInputFormat<E> extends InputFormat<E, Void>
     job.getConfiguration().set(KITE_DATASET_NAME, name);
   }
 
+  /**
+   * Configures the job to read the entities in a {@link View}.
+   *
+   * Only the partitions that can contain entities in the view are read, and
+   * entities that are not in the view are filtered out by the record reader.
+   * The repository URI must still be set with
+   * {@link #setRepositoryUri(Job, URI)}.
+   *
+   * @param job a Job
+   * @param view a View of a dataset in the job's input repository
+   */
+  public static void setView(Job job, View<?> view) {
+    setDatasetName(job, view.getDataset().getName());
+    Constraints constraints = null;
+    if (view instanceof AbstractRefinableView) {
+      constraints = ((AbstractRefinableView) view).getConstraints();
+    }
+    if (constraints != null && !constraints.isUnbounded()) {
+      job.getConfiguration().set(KITE_CONSTRAINTS, serialize(constraints));
+    } else {
+      // remove constraints from a previous call
+      job.getConfiguration().unset(KITE_CONSTRAINTS);
+    }
+  }
+
+  /**
+   * Configures the job to group input files into splits of about
+   * {@code splitSize} bytes, preferring files that are stored on the same
+   * host.
+   *
+   * This reduces the number of map tasks for datasets with many files that
+   * are much smaller than a block. Each task reads the files in its split one
+   * after the other. Only supported for file system datasets.
+   *
+   * @param job a Job
+   * @param splitSize the target size of each split, in bytes
+   */
+  public static void setCombineSplitSize(Job job, long splitSize) {
+    Preconditions.checkArgument(splitSize > 0,
+        "Invalid combined split size: %s", splitSize);
+    job.getConfiguration().setLong(KITE_COMBINE_SPLIT_SIZE, splitSize);
+  }
+
   @Override
   public Configuration getConf() {
     return conf;
@@ -81,12 +137,22 @@ public class DatasetKeyInputFormat<E> extends InputFormat<E, Void>
       }
     }
 
-    if (dataset instanceof AbstractDataset) {
+    String constraints = conf.get(KITE_CONSTRAINTS);
+    if (dataset instanceof AbstractDataset && constraints != null) {
+      delegate = ((AbstractDataset<E>) dataset)
+          .filter(deserialize(constraints))
+          .getDelegateInputFormat();
+    } else if (dataset instanceof AbstractDataset) {
       delegate = ((AbstractDataset<E>) dataset).getDelegateInputFormat();
     } else {
       throw new UnsupportedOperationException("Incompatible Dataset: implementation " +
           "does not provide InputFormat support. Dataset: " + dataset);
     }
+
+    long combineSplitSize = conf.getLong(KITE_COMBINE_SPLIT_SIZE, 0);
+    if (combineSplitSize > 0) {
+      delegate = Accessor.getDefault().combineSplits(delegate, combineSplitSize);
+    }
   }
 
   private static <E> Dataset<E> loadDataset(Configuration conf) {
@@ -94,6 +160,36 @@ public class DatasetKeyInputFormat<E> extends InputFormat<E, Void>
     return repo.load(conf.get(KITE_DATASET_NAME));
   }
 
+  private static String serialize(Constraints constraints) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(constraints);
+      out.close();
+      return new String(Base64.encodeBase64(bytes.toByteArray()),
+          Charsets.US_ASCII);
+    } catch (IOException e) {
+      throw new DatasetException("Cannot serialize constraints: " +
+          constraints, e);
+    }
+  }
+
+  private static Constraints deserialize(String encoded) {
+    try {
+      ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+          Base64.decodeBase64(encoded.getBytes(Charsets.US_ASCII))));
+      try {
+        return (Constraints) in.readObject();
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      throw new DatasetException("Cannot deserialize constraints", e);
+    } catch (ClassNotFoundException e) {
+      throw new DatasetException("Cannot deserialize constraints", e);
+    }
+  }
+
   @Override
   @edu.umd.cs.findbugs.annotations.SuppressWarnings(value="UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR",
       justification="Delegate set by setConf")
@@ -42,6 +42,13 @@ import org.kitesdk.data.spi.Mergeable;
  * Since a {@code Dataset} only contains entities (not key/value pairs), this output
  * format ignores the value.
  *
+ * If the dataset supports merging (like file system datasets), each task
+ * attempt writes to its own staging dataset. Committed task attempts are
+ * merged into a job dataset and the job dataset is merged into the output
+ * dataset when the job commits, so failed or speculative task attempts leave
+ * no data behind. Otherwise, and on Hadoop 1, entities are written directly
+ * to the output dataset.
+ *
  * @param <E> The type of entities in the {@code Dataset}.
  */
 @Beta
@@ -79,6 +86,39 @@ public class DatasetKeyOutputFormat<E> extends OutputFormat<E, Void> {
     }
   }
 
+  /**
+   * Writes to the task attempt's staging dataset, which is created when the
+   * first entity is written. Attempts that write nothing create no dataset, so
+   * they have nothing to commit.
+   */
+  static class TaskAttemptRecordWriter<E> extends RecordWriter<E, Void> {
+
+    private final TaskAttemptContext taskContext;
+    private DatasetWriter<E> datasetWriter = null;
+
+    public TaskAttemptRecordWriter(TaskAttemptContext taskContext) {
+      this.taskContext = taskContext;
+    }
+
+    @Override
+    public void write(E key, Void v) {
+      if (datasetWriter == null) {
+        Dataset<E> dataset = loadOrCreateTaskAttemptDataset(taskContext);
+        this.datasetWriter = selectPartition(dataset,
+            taskContext.getConfiguration()).newWriter();
+        datasetWriter.open();
+      }
+      datasetWriter.write(key);
+    }
+
+    @Override
+    public void close(TaskAttemptContext taskAttemptContext) {
+      if (datasetWriter != null) {
+        datasetWriter.close();
+      }
+    }
+  }
+
   static class NullOutputCommitter extends OutputCommitter {
     @Override
     public void setupJob(JobContext jobContext) { }
@@ -120,12 +160,14 @@ public class DatasetKeyOutputFormat<E> extends OutputFormat<E, Void> {
 
     @Override
     public void setupTask(TaskAttemptContext taskContext) {
-      // do nothing: the task attempt dataset is created in getRecordWriter
+      // do nothing: the task attempt dataset is created by the record writer
     }
 
     @Override
     public boolean needsTaskCommit(TaskAttemptContext taskContext) {
-      return true;
+      // the task attempt dataset is only created when an entity is written
+      DatasetRepository repo = getDatasetRepository(taskContext);
+      return repo.exists(getTaskAttemptDatasetName(taskContext));
     }
 
     @Override
@@ -151,19 +193,22 @@ public class DatasetKeyOutputFormat<E> extends OutputFormat<E, Void> {
     Dataset<E> dataset = loadDataset(taskAttemptContext);
 
     if (usePerTaskAttemptDatasets(dataset)) {
-      dataset = loadOrCreateTaskAttemptDataset(taskAttemptContext);
+      return new TaskAttemptRecordWriter<E>(taskAttemptContext);
     }
 
+    return new DatasetRecordWriter<E>(selectPartition(dataset, conf));
+  }
+
+  private static <E> Dataset<E> selectPartition(Dataset<E> dataset, Configuration conf) {
     // TODO: the following should generalize with views
     String partitionDir = conf.get(KITE_PARTITION_DIR);
     if (dataset.getDescriptor().isPartitioned() && partitionDir != null) {
       PartitionKey key = Accessor.getDefault().fromDirectoryName(dataset, new Path(partitionDir));
       if (key != null) {
-        dataset = dataset.getPartition(key, true);
+        return dataset.getPartition(key, true);
       }
     }
-
-    return new DatasetRecordWriter<E>(dataset);
+    return dataset;
   }
 
   @Override
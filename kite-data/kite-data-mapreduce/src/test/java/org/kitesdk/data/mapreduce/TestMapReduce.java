@@ -45,6 +45,7 @@ import org.kitesdk.data.DatasetRepository;
 import org.kitesdk.data.Format;
 import org.kitesdk.data.Formats;
 import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.PartitionStrategy;
 import org.kitesdk.data.filesystem.FileSystemDatasetRepository;
 
 @RunWith(Parameterized.class)
@@ -124,6 +125,107 @@ public class TestMapReduce {
 
     Dataset<GenericData.Record> inputDataset = repo.create("in",
         new DatasetDescriptor.Builder().schema(STRING_SCHEMA).format(format).build());
+    populateInputDataset(inputDataset);
+
+    job.setInputFormatClass(DatasetKeyInputFormat.class);
+    DatasetKeyInputFormat.setRepositoryUri(job, repo.getUri());
+    DatasetKeyInputFormat.setDatasetName(job, inputDataset.getName());
+
+    Map<String, Integer> counts = runLineCountJob(job);
+
+    Assert.assertEquals(3, counts.get("apple").intValue());
+    Assert.assertEquals(2, counts.get("banana").intValue());
+    Assert.assertEquals(1, counts.get("carrot").intValue());
+
+  }
+
+  @Test
+  public void testJobPartitionedView() throws Exception {
+    Job job = new Job();
+
+    Dataset<GenericData.Record> inputDataset = repo.create("in",
+        new DatasetDescriptor.Builder().schema(STRING_SCHEMA).format(format)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .identity("text", "text_part", String.class, 3)
+                .build())
+            .build());
+    populateInputDataset(inputDataset);
+
+    job.setInputFormatClass(DatasetKeyInputFormat.class);
+    DatasetKeyInputFormat.setRepositoryUri(job, repo.getUri());
+    DatasetKeyInputFormat.setView(job,
+        inputDataset.with("text", "banana", "carrot"));
+
+    Map<String, Integer> counts = runLineCountJob(job);
+
+    Assert.assertNull(counts.get("apple"));
+    Assert.assertEquals(2, counts.get("banana").intValue());
+    Assert.assertEquals(1, counts.get("carrot").intValue());
+  }
+
+  @Test
+  public void testJobView() throws Exception {
+    Job job = new Job();
+
+    Dataset<GenericData.Record> inputDataset = repo.create("in",
+        new DatasetDescriptor.Builder().schema(STRING_SCHEMA).format(format).build());
+    populateInputDataset(inputDataset);
+
+    job.setInputFormatClass(DatasetKeyInputFormat.class);
+    DatasetKeyInputFormat.setRepositoryUri(job, repo.getUri());
+    // not partitioned, so the constraints are checked by the record reader
+    DatasetKeyInputFormat.setView(job,
+        inputDataset.fromAfter("text", "apple").toBefore("text", "carrot"));
+
+    Map<String, Integer> counts = runLineCountJob(job);
+
+    Assert.assertNull(counts.get("apple"));
+    Assert.assertEquals(2, counts.get("banana").intValue());
+    Assert.assertNull(counts.get("carrot"));
+  }
+
+  @Test
+  public void testSetUnboundedViewClearsConstraints() throws Exception {
+    Job job = new Job();
+
+    Dataset<GenericData.Record> inputDataset = repo.create("in",
+        new DatasetDescriptor.Builder().schema(STRING_SCHEMA).format(format).build());
+
+    DatasetKeyInputFormat.setView(job, inputDataset.with("text", "apple"));
+    Assert.assertNotNull(job.getConfiguration().get(
+        DatasetKeyInputFormat.KITE_CONSTRAINTS));
+
+    DatasetKeyInputFormat.setView(job, inputDataset);
+    Assert.assertNull("Should remove the constraints of the previous view",
+        job.getConfiguration().get(DatasetKeyInputFormat.KITE_CONSTRAINTS));
+  }
+
+  @Test
+  public void testJobCombinedSplits() throws Exception {
+    Job job = new Job();
+
+    // each partition is written to a separate small file
+    Dataset<GenericData.Record> inputDataset = repo.create("in",
+        new DatasetDescriptor.Builder().schema(STRING_SCHEMA).format(format)
+            .partitionStrategy(new PartitionStrategy.Builder()
+                .identity("text", "text_part", String.class, 3)
+                .build())
+            .build());
+    populateInputDataset(inputDataset);
+
+    job.setInputFormatClass(DatasetKeyInputFormat.class);
+    DatasetKeyInputFormat.setRepositoryUri(job, repo.getUri());
+    DatasetKeyInputFormat.setDatasetName(job, inputDataset.getName());
+    DatasetKeyInputFormat.setCombineSplitSize(job, 64 * 1024 * 1024);
+
+    Map<String, Integer> counts = runLineCountJob(job);
+
+    Assert.assertEquals(3, counts.get("apple").intValue());
+    Assert.assertEquals(2, counts.get("banana").intValue());
+    Assert.assertEquals(1, counts.get("carrot").intValue());
+  }
+
+  private void populateInputDataset(Dataset<GenericData.Record> inputDataset) {
     DatasetWriter<GenericData.Record> writer = inputDataset.newWriter();
     writer.open();
     writer.write(newStringRecord("apple"));
@@ -133,11 +235,9 @@ public class TestMapReduce {
     writer.write(newStringRecord("apple"));
     writer.write(newStringRecord("apple"));
     writer.close();
+  }
 
-    job.setInputFormatClass(DatasetKeyInputFormat.class);
-    DatasetKeyInputFormat.setRepositoryUri(job, repo.getUri());
-    DatasetKeyInputFormat.setDatasetName(job, inputDataset.getName());
-
+  private Map<String, Integer> runLineCountJob(Job job) throws Exception {
     job.setMapperClass(LineCountMapper.class);
     job.setMapOutputKeyClass(Text.class);
     job.setMapOutputValueClass(IntWritable.class);
@@ -160,11 +260,7 @@ public class TestMapReduce {
       counts.put(record.get("name").toString(), (Integer) record.get("count"));
     }
     reader.close();
-
-    Assert.assertEquals(3, counts.get("apple").intValue());
-    Assert.assertEquals(2, counts.get("banana").intValue());
-    Assert.assertEquals(1, counts.get("carrot").intValue());
-
+    return counts;
   }
 
   private GenericData.Record newStringRecord(String text) {
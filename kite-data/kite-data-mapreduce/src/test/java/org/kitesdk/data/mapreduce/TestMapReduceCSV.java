@@ -0,0 +1,118 @@
+/**
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.mapreduce;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.avro.generic.GenericData;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.Dataset;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetRepository;
+import org.kitesdk.data.Formats;
+import org.kitesdk.data.filesystem.FileSystemDatasetRepository;
+
+public class TestMapReduceCSV {
+
+  private DatasetRepository repo;
+  private File outputDirectory;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new Configuration();
+    FileSystem fileSystem = FileSystem.get(conf);
+    Path testDirectory = fileSystem.makeQualified(
+        new Path(Files.createTempDir().getAbsolutePath()));
+    this.repo = new FileSystemDatasetRepository.Builder().configuration(conf)
+        .rootDirectory(testDirectory).build();
+    this.outputDirectory = new File(Files.createTempDir(), "out");
+  }
+
+  private static class LineCountMapper
+      extends Mapper<GenericData.Record, Void, Text, IntWritable> {
+    @Override
+    protected void map(GenericData.Record record, Void value,
+        Context context)
+        throws IOException, InterruptedException {
+      context.write(new Text(record.get("text").toString()), new IntWritable(1));
+    }
+  }
+
+  private static class SumReducer
+      extends Reducer<Text, IntWritable, Text, IntWritable> {
+    @Override
+    protected void reduce(Text line, Iterable<IntWritable> counts, Context context)
+        throws IOException, InterruptedException {
+      int sum = 0;
+      for (IntWritable count : counts) {
+        sum += count.get();
+      }
+      context.write(line, new IntWritable(sum));
+    }
+  }
+
+  @Test
+  public void testJobView() throws Exception {
+    Dataset<GenericData.Record> inputDataset = repo.create("in",
+        new DatasetDescriptor.Builder()
+            .schema(TestMapReduce.STRING_SCHEMA)
+            .format(Formats.CSV)
+            .build());
+    Files.write("apple\nbanana\nbanana\ncarrot\napple\napple\n",
+        new File(new File(inputDataset.getDescriptor().getLocation()), "a.csv"),
+        Charsets.UTF_8);
+
+    Job job = new Job();
+    job.setInputFormatClass(DatasetKeyInputFormat.class);
+    DatasetKeyInputFormat.setRepositoryUri(job, repo.getUri());
+    DatasetKeyInputFormat.setView(job, inputDataset.with("text", "apple"));
+
+    job.setMapperClass(LineCountMapper.class);
+    job.setMapOutputKeyClass(Text.class);
+    job.setMapOutputValueClass(IntWritable.class);
+    job.setReducerClass(SumReducer.class);
+    job.setOutputFormatClass(TextOutputFormat.class);
+    FileOutputFormat.setOutputPath(job, new Path(outputDirectory.toURI()));
+
+    Assert.assertTrue(job.waitForCompletion(true));
+
+    Map<String, Integer> counts = new HashMap<String, Integer>();
+    for (String line : Files.readLines(
+        new File(outputDirectory, "part-r-00000"), Charsets.UTF_8)) {
+      String[] fields = line.split("\t");
+      counts.put(fields[0], Integer.valueOf(fields[1]));
+    }
+
+    Assert.assertEquals(1, counts.size());
+    Assert.assertEquals(3, counts.get("apple").intValue());
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.data.mapreduce;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import java.util.Set;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.Dataset;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.DatasetRepository;
+import org.kitesdk.data.filesystem.FileSystemDatasetRepository;
+
+public class TestMergeOutputCommitter {
+
+  private DatasetRepository repo;
+  private Dataset<GenericData.Record> dataset;
+  private Configuration conf;
+
+  @Before
+  public void setUp() throws Exception {
+    this.conf = new Configuration();
+    FileSystem fileSystem = FileSystem.get(conf);
+    Path testDirectory = fileSystem.makeQualified(
+        new Path(Files.createTempDir().getAbsolutePath()));
+    this.repo = new FileSystemDatasetRepository.Builder().configuration(conf)
+        .rootDirectory(testDirectory).build();
+    this.dataset = repo.create("out", new DatasetDescriptor.Builder()
+        .schema(TestMapReduce.STRING_SCHEMA).build());
+    conf.set(DatasetKeyOutputFormat.KITE_REPOSITORY_URI, repo.getUri().toString());
+    conf.set(DatasetKeyOutputFormat.KITE_DATASET_NAME, dataset.getName());
+  }
+
+  @Test
+  public void testMergesOnlyAttemptsThatWrote() throws Exception {
+    DatasetKeyOutputFormat.MergeOutputCommitter<GenericData.Record> committer =
+        new DatasetKeyOutputFormat.MergeOutputCommitter<GenericData.Record>();
+    TaskAttemptContext emptyAttempt = newTaskAttemptContext(
+        "attempt_201401010000_0001_m_000000_0");
+    TaskAttemptContext writingAttempt = newTaskAttemptContext(
+        "attempt_201401010000_0001_m_000001_0");
+    String jobDatasetName = "out_job_201401010000_0001";
+
+    committer.setupJob(emptyAttempt);
+    Assert.assertTrue(repo.exists(jobDatasetName));
+
+    // an attempt that writes nothing creates no dataset and has nothing to commit
+    committer.setupTask(emptyAttempt);
+    new DatasetKeyOutputFormat.TaskAttemptRecordWriter<GenericData.Record>(
+        emptyAttempt).close(emptyAttempt);
+    Assert.assertFalse(committer.needsTaskCommit(emptyAttempt));
+    Assert.assertFalse(repo.exists("out_" + emptyAttempt.getTaskAttemptID()));
+
+    committer.setupTask(writingAttempt);
+    DatasetKeyOutputFormat.TaskAttemptRecordWriter<GenericData.Record> writer =
+        new DatasetKeyOutputFormat.TaskAttemptRecordWriter<GenericData.Record>(
+            writingAttempt);
+    writer.write(newStringRecord("apple"), null);
+    writer.write(newStringRecord("banana"), null);
+    writer.close(writingAttempt);
+    Assert.assertTrue(committer.needsTaskCommit(writingAttempt));
+    committer.commitTask(writingAttempt);
+    Assert.assertFalse("Task attempt dataset should be removed after commit",
+        repo.exists("out_" + writingAttempt.getTaskAttemptID()));
+    Assert.assertTrue("Output should not change before the job commits",
+        read(dataset).isEmpty());
+
+    committer.commitJob(writingAttempt);
+    Assert.assertFalse(repo.exists(jobDatasetName));
+    Assert.assertEquals(Sets.newHashSet("apple", "banana"), read(dataset));
+  }
+
+  private Set<String> read(Dataset<GenericData.Record> dataset) {
+    Set<String> texts = Sets.newHashSet();
+    DatasetReader<GenericData.Record> reader = dataset.newReader();
+    reader.open();
+    try {
+      for (GenericData.Record record : reader) {
+        texts.add(record.get("text").toString());
+      }
+    } finally {
+      reader.close();
+    }
+    return texts;
+  }
+
+  private GenericData.Record newStringRecord(String text) {
+    return new GenericRecordBuilder(TestMapReduce.STRING_SCHEMA)
+        .set("text", text).build();
+  }
+
+  /**
+   * Returns a stand-in for the context that the framework passes to the
+   * committer. TaskAttemptContext is a class in Hadoop 1 and an interface,
+   * implemented by TaskAttemptContextImpl, in Hadoop 2.
+   */
+  private TaskAttemptContext newTaskAttemptContext(String attemptId)
+      throws Exception {
+    Class<?> implClass = JobContext.class.isInterface() ?
+        Class.forName("org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl") :
+        TaskAttemptContext.class;
+    return (TaskAttemptContext) implClass
+        .getConstructor(Configuration.class, TaskAttemptID.class)
+        .newInstance(conf, TaskAttemptID.forName(attemptId));
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.benchmarks;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.kitesdk.morphline.api.Command;
+import org.kitesdk.morphline.api.MorphlineContext;
+import org.kitesdk.morphline.api.MorphlineRuntimeException;
+import org.kitesdk.morphline.api.Record;
+import org.kitesdk.morphline.base.Fields;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+
+/**
+ * Measures the throughput of single morphline commands, each compiled from the morphline with the
+ * same id in <code>benchmarks.conf</code>.
+ * 
+ * Each operation processes a copy of a prepared input record. The parsers (readLine and readCSV)
+ * read {@link #NUM_LINES} lines per operation; all other commands process a single record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class CommandBenchmark {
+
+  static final int NUM_LINES = 100;
+
+  private static final String SYSLOG_LINE = 
+      "<164>Feb  4 10:46:14 syslog sshd[607]: Server listening on 0.0.0.0 port 22.";
+
+  private static final String CSV_LINE = "12345,Apache Solr,19.99,2014-02-04T10:46:14.123Z";
+
+  private static final String JSON = 
+      "{\"id\" : 12345, \"name\" : \"Apache Solr\", \"price\" : 19.99, \"tags\" : [\"search\", \"lucene\"]}";
+
+  private static final Schema ITEM_SCHEMA = new Schema.Parser().parse(
+      "{\"type\" : \"record\", \"name\" : \"Item\", \"fields\" : ["
+      + "{\"name\" : \"id\", \"type\" : \"long\"},"
+      + "{\"name\" : \"name\", \"type\" : \"string\"},"
+      + "{\"name\" : \"price\", \"type\" : \"double\"},"
+      + "{\"name\" : \"tags\", \"type\" : {\"type\" : \"array\", \"items\" : \"string\"}}]}");
+
+  @Param({ "readLine", "readCSV", "grok", "convertTimestamp", "split", "findReplace", 
+    "extractAvroPaths", "extractJsonPaths", "toAvro" })
+  public String command;
+
+  private Command morphline;
+  private Sink sink;
+  private Record input;
+
+  @Setup
+  public void setUp() throws IOException {
+    MorphlineContext context = new MorphlineContext.Builder()
+        .setMetricRegistry(new MetricRegistry())
+        .build();
+    sink = new Sink();
+    morphline = MorphlineBenchmarks.compile(command, context, sink);
+    input = createInput(command);
+    if (!morphline.process(input.copy())) {
+      throw new MorphlineRuntimeException("Benchmark morphline failed on input: " + input);
+    }
+  }
+
+  @Benchmark
+  public Record process() {
+    morphline.process(input.copy());
+    return sink.getLastRecord();
+  }
+
+  private static Record createInput(String command) throws IOException {
+    Record record = new Record();
+    if ("readLine".equals(command)) {
+      record.put(Fields.ATTACHMENT_BODY, lines(SYSLOG_LINE));
+    } else if ("readCSV".equals(command)) {
+      record.put(Fields.ATTACHMENT_BODY, lines(CSV_LINE));
+    } else if ("grok".equals(command) || "split".equals(command) || "findReplace".equals(command)) {
+      record.put(Fields.MESSAGE, SYSLOG_LINE);
+    } else if ("convertTimestamp".equals(command)) {
+      record.put("timestamp", "2014-02-04T10:46:14.123Z");
+    } else if ("extractAvroPaths".equals(command)) {
+      GenericData.Record item = new GenericData.Record(ITEM_SCHEMA);
+      item.put("id", 12345L);
+      item.put("name", "Apache Solr");
+      item.put("price", 19.99);
+      item.put("tags", Arrays.asList("search", "lucene"));
+      record.put(Fields.ATTACHMENT_BODY, item);
+    } else if ("extractJsonPaths".equals(command)) {
+      record.put(Fields.ATTACHMENT_BODY, new ObjectMapper().readTree(JSON));
+    } else if ("toAvro".equals(command)) {
+      record.put("id", 12345L);
+      record.put("name", "Apache Solr");
+      record.put("price", 19.99);
+      record.put("tags", "search");
+      record.put("tags", "lucene");
+    } else {
+      throw new IllegalArgumentException("Unknown command: " + command);
+    }
+    return record;
+  }
+
+  private static byte[] lines(String line) {
+    StringBuilder buf = new StringBuilder();
+    for (int i = 0; i < NUM_LINES; i++) {
+      buf.append(line).append('\n');
+    }
+    return buf.toString().getBytes(Charsets.UTF_8);
+  }
+
+}
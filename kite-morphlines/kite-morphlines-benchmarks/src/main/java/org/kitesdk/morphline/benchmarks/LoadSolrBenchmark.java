@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.kitesdk.morphline.api.Command;
+import org.kitesdk.morphline.api.MorphlineContext;
+import org.kitesdk.morphline.api.Record;
+import org.kitesdk.morphline.base.Notifications;
+import org.kitesdk.morphline.solr.SolrMorphlineContext;
+import org.kitesdk.morphline.solr.SolrServerDocumentLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Measures the throughput of the loadSolr command against an embedded Solr server.
+ * 
+ * The Solr home directory defaults to <code>target/solr</code>, which the build populates with the
+ * test configuration of kite-morphlines-solr-core, and can be overridden with the
+ * <code>solr.home</code> system property.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LoadSolrBenchmark {
+
+  @Param({ "1", "100", "1000" })
+  public int batchSize;
+
+  private CoreContainer container;
+  private Command morphline;
+  private Record input;
+  private long id;
+
+  @Setup
+  public void setUp() {
+    container = new CoreContainer(System.getProperty("solr.home", "target/solr"));
+    container.load();
+    SolrCore core = container.getCore("collection1");
+    MorphlineContext context;
+    try {
+      context = new SolrMorphlineContext.Builder()
+          .setDocumentLoader(new SolrServerDocumentLoader(new EmbeddedSolrServer(container, "collection1"), batchSize))
+          .setIndexSchema(core.getLatestSchema())
+          .setMetricRegistry(new MetricRegistry())
+          .build();
+    } finally {
+      core.close();
+    }
+    morphline = MorphlineBenchmarks.compile("loadSolr", context, new Sink());
+    input = new Record();
+    input.put("user_name", "Apache Solr");
+    input.put("text", "Server listening on 0.0.0.0 port 22.");
+    input.put("retweet_count", 7);
+    Notifications.notifyBeginTransaction(morphline);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Notifications.notifyCommitTransaction(morphline);
+    Notifications.notifyShutdown(morphline);
+    container.shutdown();
+  }
+
+  @Benchmark
+  public boolean process() {
+    Record record = input.copy();
+    record.put("id", Long.toString(id++));
+    return morphline.process(record);
+  }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.benchmarks;
+
+import java.io.IOException;
+
+import org.kitesdk.morphline.api.Command;
+import org.kitesdk.morphline.api.MorphlineContext;
+import org.kitesdk.morphline.base.Compiler;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Runs the morphline benchmarks with allocation profiling enabled.
+ * 
+ * Accepts the same command line options as <code>org.openjdk.jmh.Main</code>, e.g. a regular
+ * expression that selects the benchmarks to run, or <code>-p command=grok</code> to run a single
+ * {@link CommandBenchmark}. The GC profiler is always added, so that the results include the
+ * number of bytes allocated per operation (<code>gc.alloc.rate.norm</code>).
+ */
+public final class MorphlineBenchmarks {
+
+  private static final String CONFIG_RESOURCE = "benchmarks.conf";
+
+  private MorphlineBenchmarks() {}
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    if (cmdOptions.shouldHelp()) {
+      cmdOptions.showHelp();
+      return;
+    }
+    Options options = new OptionsBuilder()
+        .parent(cmdOptions)
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(options).run();
+  }
+
+  /**
+   * Compiles the morphline with the given id from <code>benchmarks.conf</code>, feeding its output
+   * records into the given sink.
+   */
+  static Command compile(String morphlineId, MorphlineContext context, Sink sink) {
+    Config config = ConfigFactory.load(ConfigFactory.parseResources(CONFIG_RESOURCE));
+    Compiler compiler = new Compiler();
+    return compiler.compile(compiler.find(morphlineId, config, CONFIG_RESOURCE), context, sink);
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.kitesdk.morphline.api.Record;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link Record#copy()}, which branching commands call for each record.
+ *
+ * Run with {@link MorphlineBenchmarks} to compare the bytes allocated per operation of a copy that
+ * is only read with a copy that is modified, for records with {@link #numFields} single-valued
+ * fields.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class RecordBenchmark {
+
+  @Param({ "5", "20" })
+  public int numFields;
+
+  private Record input;
+
+  @Setup
+  public void setUp() {
+    input = new Record();
+    for (int i = 0; i < numFields; i++) {
+      input.put("field" + i, "value" + i);
+    }
+  }
+
+  @Benchmark
+  public Record copy() {
+    return input.copy();
+  }
+
+  @Benchmark
+  public Object copyAndRead() {
+    Record copy = input.copy();
+    return copy.containsKey("field0") ? copy.getFirstValue("field0") : null;
+  }
+
+  @Benchmark
+  public Record copyAndModify() {
+    Record copy = input.copy();
+    copy.replaceValues("field0", "modified");
+    return copy;
+  }
+
+}
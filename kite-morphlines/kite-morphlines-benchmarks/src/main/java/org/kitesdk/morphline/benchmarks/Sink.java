@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.benchmarks;
+
+import org.kitesdk.morphline.api.Command;
+import org.kitesdk.morphline.api.Record;
+
+/**
+ * Final command of a benchmarked morphline. Keeps the last output record so that benchmarks can
+ * return it to JMH, which prevents the JIT from eliminating the work that produced it.
+ */
+final class Sink implements Command {
+
+  private Record lastRecord;
+  private long numRecords;
+
+  @Override
+  public Command getParent() {
+    return null;
+  }
+
+  @Override
+  public void notify(Record notification) {
+  }
+
+  @Override
+  public boolean process(Record record) {
+    lastRecord = record;
+    numRecords++;
+    return true;
+  }
+
+  public Record getLastRecord() {
+    return lastRecord;
+  }
+
+  public long getNumRecords() {
+    return numRecords;
+  }
+
+}
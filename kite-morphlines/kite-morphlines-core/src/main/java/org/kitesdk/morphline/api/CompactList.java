@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.api;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * List that holds the values of a single {@link Record} field.
+ *
+ * Almost all record fields have exactly one value. Such a value is stored inline, without allocating
+ * a backing array, and the backing array that is allocated for multi-valued fields grows in small
+ * steps rather than starting out at the capacity of an {@link java.util.ArrayList}.
+ */
+final class CompactList extends AbstractList<Object> implements RandomAccess {
+
+  private Object single; // the only value, while elements == null
+  private Object[] elements;
+  private int size;
+
+  private static final Object[] EMPTY = new Object[0];
+
+  public CompactList() {}
+
+  @Override
+  public Object get(int index) {
+    Preconditions.checkElementIndex(index, size);
+    return elements == null ? single : elements[index];
+  }
+
+  @Override
+  public Object set(int index, Object value) {
+    Preconditions.checkElementIndex(index, size);
+    Object old;
+    if (elements == null) {
+      old = single;
+      single = value;
+    } else {
+      old = elements[index];
+      elements[index] = value;
+    }
+    return old;
+  }
+
+  @Override
+  public boolean add(Object value) {
+    if (size == 0 && elements == null) {
+      single = value;
+      size = 1;
+      modCount++;
+      return true;
+    }
+    add(size, value);
+    return true;
+  }
+
+  @Override
+  public boolean addAll(Collection<?> values) {
+    int n = values.size();
+    if (n == 0) {
+      return false;
+    } else if (n == 1) {
+      return add(values.iterator().next());
+    }
+    Object[] array = values.toArray();
+    ensureCapacity(size + n);
+    System.arraycopy(array, 0, elements, size, n);
+    size += n;
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public void add(int index, Object value) {
+    Preconditions.checkPositionIndex(index, size);
+    if (size == 0 && elements == null) {
+      add(value);
+      return;
+    }
+    ensureCapacity(size + 1);
+    System.arraycopy(elements, index, elements, index + 1, size - index);
+    elements[index] = value;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Object remove(int index) {
+    Preconditions.checkElementIndex(index, size);
+    Object old;
+    if (elements == null) {
+      old = single;
+      single = null;
+    } else {
+      old = elements[index];
+      System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+      elements[size - 1] = null;
+    }
+    size--;
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    single = null;
+    elements = null;
+    size = 0;
+    modCount++;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private void ensureCapacity(int minCapacity) {
+    if (elements == null) {
+      elements = new Object[Math.max(minCapacity, 2)];
+      if (size == 1) {
+        elements[0] = single;
+      }
+      single = null;
+    } else if (elements.length < minCapacity) {
+      int newCapacity = Math.max(minCapacity, elements.length + (elements.length >> 1) + 1);
+      elements = Arrays.copyOf(elements, newCapacity);
+    }
+  }
+
+  @Override
+  public Object[] toArray() {
+    if (size == 0) {
+      return EMPTY;
+    } else if (elements == null) {
+      return new Object[] { single };
+    } else {
+      return Arrays.copyOf(elements, size);
+    }
+  }
+
+}
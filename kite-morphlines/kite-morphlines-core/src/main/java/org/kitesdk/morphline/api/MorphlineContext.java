@@ -44,6 +44,7 @@ public class MorphlineContext {
   private MetricRegistry metricRegistry;
   private HealthCheckRegistry healthCheckRegistry;
   private Map<String, Class<CommandBuilder>> commandBuilders = Collections.EMPTY_MAP;
+  private int timingSampleRate;
 
   private static final Logger LOG = LoggerFactory.getLogger(MorphlineContext.class);
 
@@ -66,6 +67,14 @@ public class MorphlineContext {
     return healthCheckRegistry;
   }
 
+  /**
+   * Returns how often commands measure the time spent in process(): if positive, the time is
+   * measured for one out of this many records; zero disables time measurements.
+   */
+  public int getTimingSampleRate() {
+    return timingSampleRate;
+  }
+
   public Class<CommandBuilder> getCommandBuilder(String builderName) {
     return commandBuilders.get(builderName);
   }
@@ -223,6 +232,7 @@ public class MorphlineContext {
     private ExceptionHandler exceptionHandler = new DefaultExceptionHandler();
     private MetricRegistry metricRegistry = new MetricRegistry();
     private HealthCheckRegistry healthCheckRegistry = new HealthCheckRegistry();
+    private int timingSampleRate = Math.max(0, Integer.getInteger("timingSampleRate", 0));
     
     public Builder() {}
 
@@ -244,10 +254,22 @@ public class MorphlineContext {
       return this;
     }
 
+    /**
+     * Sets how often commands measure the time spent in process(): if positive, the time is measured
+     * for one out of this many records; zero disables time measurements. Defaults to the value of
+     * the <code>timingSampleRate</code> system property, or zero.
+     */
+    public Builder setTimingSampleRate(int timingSampleRate) {
+      Preconditions.checkArgument(timingSampleRate >= 0);
+      this.timingSampleRate = timingSampleRate;
+      return this;
+    }
+
     public MorphlineContext build() {
       context.exceptionHandler = exceptionHandler;
       context.metricRegistry = metricRegistry;
       context.healthCheckRegistry = healthCheckRegistry;
+      context.timingSampleRate = timingSampleRate;
       return context;
     }
 
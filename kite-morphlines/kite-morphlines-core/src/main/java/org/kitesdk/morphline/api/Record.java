@@ -15,12 +15,21 @@
  */
 package org.kitesdk.morphline.api;
 
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 import java.util.TreeMap;
 
-import com.google.common.base.Preconditions;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
 
 /**
  * A record is a set of named fields where each field has a list of one or more values.
@@ -30,32 +39,86 @@ import com.google.common.collect.ListMultimap;
  * records need not use common field names. This flexible data model corresponds exactly to the
  * characteristics of the Solr/Lucene data model (i.e. a record is a SolrInputDocument). A field
  * with zero values is removed from the record - it does not exist as such.
+ * 
+ * The values of each field are stored in a compact list that holds a single value inline, because
+ * almost all fields are single-valued and records are copied frequently.
+ * 
+ * Copies are copy-on-write: {@link #copy()} shares the fields of this record with the copy, and the
+ * fields are only copied once either record is modified. Commands that copy records before passing
+ * them to a child thus pay for the copy only if the child actually modifies the record.
  */
 public final class Record {
   
-  private ArrayListMultimap<String, Object> fields;
+  private ListMultimap<String, Object> fields;
+  private Map<String, Collection<Object>> map; // backing map of fields, for allocation free reads
+  private boolean isShared = false; // true if fields may also be referenced by another record
+  private boolean isExposed = false; // true if fields have been returned by getFields()
 
+  private static final int DEFAULT_EXPECTED_KEYS = 16;
+  
+  private static final Function<Collection<Object>, Collection<Object>> UNMODIFIABLE_VALUES =
+      new Function<Collection<Object>, Collection<Object>>() {
+    @Override
+    public Collection<Object> apply(Collection<Object> values) {
+      return Collections.unmodifiableList((List<Object>) values);
+    }
+  };
+
+  private static final Supplier<List<Object>> VALUES_FACTORY = new Supplier<List<Object>>() {
+    @Override
+    public List<Object> get() {
+      return new CompactList();
+    }
+  };
+  
   /** Creates a new empty record. */
   public Record() {
-    this(create());
+    init(DEFAULT_EXPECTED_KEYS);
   }
   
-  private Record(ArrayListMultimap<String, Object> fields) {
-    Preconditions.checkNotNull(fields);
-    this.fields = fields;
+  private Record(Record other) {
+    this.fields = other.fields;
+    this.map = other.map;
+    this.isShared = true;
   }
 
   /** Returns a shallow copy of this record. */
   public Record copy() {
-    //return new Record(ArrayListMultimap.create(fields)); // adding fields later causes (slow) rehashing
-    ArrayListMultimap copy = ArrayListMultimap.create(fields.size() + 16, 10);
-    copy.putAll(fields);
-    return new Record(copy);
+    Record copy = new Record(this);
+    if (isExposed) {
+      // the multimap returned by getFields() may still be modified, so it can't be shared
+      copy.mutableFields();
+    } else {
+      isShared = true;
+    }
+    return copy;
   }
   
-  /** Returns the fields that are stored in this record. */
+  /**
+   * Returns the fields that are stored in this record. The returned multimap is modifiable.
+   * 
+   * Once this method has been called, {@link #copy()} copies the fields of this record right away
+   * rather than on the first modification. Use {@link #get(String)}, {@link #getFieldsAsMap()} and
+   * the other accessors of this class to keep copies cheap.
+   */
   public ListMultimap<String, Object> getFields() {
-    return fields;
+    ListMultimap<String, Object> result = mutableFields();
+    isExposed = true;
+    return result;
+  }
+
+  /**
+   * Returns a read-only view of the fields that are stored in this record, keyed by field name.
+   * Unlike {@link #getFields()}, this never copies fields that are shared with another record. The
+   * returned map must not be retained across modifications of this record.
+   */
+  public Map<String, Collection<Object>> getFieldsAsMap() {
+    return Collections.unmodifiableMap(Maps.transformValues(map, UNMODIFIABLE_VALUES));
+  }
+
+  /** Returns true if at least one value is associated with the given key. */
+  public boolean containsKey(String key) {
+    return map.containsKey(key);
   }
 
   /**
@@ -63,18 +126,18 @@ public final class Record {
    * returned, but never <code>null</null>.
    */
   public List get(String key) {
-    return fields.get(key);
+    return new Values(key);
   }
   
   /** Adds the given value to the values currently associated with the given key. */
   public void put(String key, Object value) {
-    fields.put(key, value);    
+    mutableFields().put(key, value);    
   }
   
   /** Returns the first value associated with the given key, or null if no such value exists */
   public Object getFirstValue(String key) {
-    List values = fields.get(key);
-    return values.size() > 0 ? values.get(0) : null;
+    List values = (List) map.get(key);
+    return values != null && values.size() > 0 ? values.get(0) : null;
   }
 
   /**
@@ -83,7 +146,7 @@ public final class Record {
    */
   public void replaceValues(String key, Object value) {
 //    fields.replaceValues(key, Collections.singletonList(value)); // unnecessarily slow
-    List list = fields.get(key);
+    List list = mutableFields().get(key);
     list.clear(); 
     list.add(value);
   }
@@ -91,7 +154,9 @@ public final class Record {
   /** Removes all values that are associated with the given key */
   public void removeAll(String key) {
     //fields.removeAll(key); // unnecessarily slow
-    fields.get(key).clear();
+    if (map.containsKey(key)) {
+      mutableFields().get(key).clear();
+    }
   }
   
   /**
@@ -99,15 +164,16 @@ public final class Record {
    * already associated with that same value.
    */
   public void putIfAbsent(String key, Object value) {
-    if (!fields.containsEntry(key, value)) {
-      fields.put(key, value);
+    Collection values = map.get(key);
+    if (values == null || !values.contains(value)) {
+      mutableFields().put(key, value);
     }
   }
   
   @Override
   public boolean equals(Object other) {
     if (other instanceof Record) {
-      return fields.equals(((Record)other).getFields());
+      return fields.equals(((Record)other).fields);
     }
     return false;
   }
@@ -122,8 +188,118 @@ public final class Record {
     return new TreeMap(fields.asMap()).toString();
   }
 
-  private static ArrayListMultimap<String, Object> create() {
-    return ArrayListMultimap.create();
+  private void init(int expectedKeys) {
+    this.map = new HashMap(expectedKeys * 4 / 3 + 1);
+    this.fields = Multimaps.newListMultimap(map, VALUES_FACTORY);
+  }
+
+  /**
+   * Returns the fields of this record for modification, first copying them if they are shared with
+   * another record.
+   */
+  private ListMultimap<String, Object> mutableFields() {
+    if (isShared) {
+      Map<String, Collection<Object>> sharedMap = map;
+      // leave room for new fields, as adding fields later causes (slow) rehashing
+      init(sharedMap.size() + DEFAULT_EXPECTED_KEYS);
+      for (Map.Entry<String, Collection<Object>> entry : sharedMap.entrySet()) {
+        fields.putAll(entry.getKey(), entry.getValue()); // one exactly sized list per field
+      }
+      isShared = false;
+    }
+    return fields;
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  /**
+   * Live view of the values of a field. Reads go to the current fields of the record, and writes
+   * first unshare the fields of the record, so the view remains valid across calls to
+   * {@link Record#copy()}.
+   */
+  private final class Values extends AbstractList<Object> implements RandomAccess {
+    
+    private final String key;
+    
+    public Values(String key) {
+      this.key = key;
+    }
+
+    private List<Object> current() {
+      return (List<Object>) map.get(key);
+    }
+    
+    @Override
+    public Object get(int index) {
+      List<Object> values = current();
+      if (values == null) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+      }
+      return values.get(index);
+    }
+
+    @Override
+    public int size() {
+      List<Object> values = current();
+      return values == null ? 0 : values.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object value) {
+      List<Object> values = current();
+      return values != null && values.contains(value);
+    }
+
+    @Override
+    public int indexOf(Object value) {
+      List<Object> values = current();
+      return values == null ? -1 : values.indexOf(value);
+    }
+
+    @Override
+    public Object[] toArray() {
+      List<Object> values = current();
+      return values == null ? new Object[0] : values.toArray();
+    }
+
+    @Override
+    public Object set(int index, Object value) {
+      modCount++;
+      return mutableFields().get(key).set(index, value);
+    }
+
+    @Override
+    public void add(int index, Object value) {
+      modCount++;
+      mutableFields().get(key).add(index, value);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Object> values) {
+      modCount++;
+      return mutableFields().get(key).addAll(values);
+    }
+
+    @Override
+    public Object remove(int index) {
+      modCount++;
+      return mutableFields().get(key).remove(index);
+    }
+
+    @Override
+    public void clear() {
+      if (map.containsKey(key)) {
+        modCount++;
+        mutableFields().get(key).clear();
+      }
+    }
   }
   
 }
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.kitesdk.morphline.api.Command;
 import org.kitesdk.morphline.api.CommandBuilder;
@@ -50,9 +51,20 @@ public abstract class AbstractCommand implements Command {
   private final Configs configs;
   private final Meter numProcessCallsMeter;
   private final Meter numNotifyCallsMeter;
+  private final int timingSampleRate;
+  private final Timer inclusiveTimer;
+  private final Timer exclusiveTimer;
+  private int numDescendants = 0; // number of commands built below this root command
   
   private static final boolean IS_MEASURING_METRICS = 
       "true".equals(System.getProperty("isMeasuringMetrics", "true"));
+  
+  private static final ThreadLocal<TimingState> TIMING_STATE = new ThreadLocal<TimingState>() {
+    @Override
+    protected TimingState initialValue() {
+      return new TimingState();
+    }
+  };
 
   protected final Logger LOG = LoggerFactory.getLogger(getClass());
     
@@ -79,6 +91,10 @@ public abstract class AbstractCommand implements Command {
     this.configs = new Configs();
     this.numProcessCallsMeter = getMeter(Metrics.NUM_PROCESS_CALLS);
     this.numNotifyCallsMeter = getMeter(Metrics.NUM_NOTIFY_CALLS);
+    this.timingSampleRate = context.getTimingSampleRate();
+    String id = String.valueOf(nextCommandId(parent)); // position of this command in the morphline
+    this.inclusiveTimer = isMeasuringTime() ? getTimer(id, Metrics.INCLUSIVE_TIME) : null;
+    this.exclusiveTimer = isMeasuringTime() ? getTimer(id, Metrics.EXCLUSIVE_TIME) : null;
   }
     
   /** Deprecated; will be removed in the next release */
@@ -95,7 +111,11 @@ public abstract class AbstractCommand implements Command {
     this.name = "morphline." + getShortClassName(getClass());
     this.configs = new Configs();
     this.numProcessCallsMeter = getMeter(Metrics.NUM_PROCESS_CALLS);
-    this.numNotifyCallsMeter = getMeter(Metrics.NUM_NOTIFY_CALLS);    
+    this.numNotifyCallsMeter = getMeter(Metrics.NUM_NOTIFY_CALLS);
+    this.timingSampleRate = context.getTimingSampleRate();
+    String id = String.valueOf(nextCommandId(parent)); // position of this command in the morphline
+    this.inclusiveTimer = isMeasuringTime() ? getTimer(id, Metrics.INCLUSIVE_TIME) : null;
+    this.exclusiveTimer = isMeasuringTime() ? getTimer(id, Metrics.EXCLUSIVE_TIME) : null;
   }
   
   @Override
@@ -153,13 +173,43 @@ public abstract class AbstractCommand implements Command {
   @Override
   public final boolean process(Record record) {
     beforeProcess(record);
-    boolean success = doProcess(record);
+    boolean success = isMeasuringTime() ? doProcessTimed(record) : doProcess(record);
     if (!success) {
       LOG.debug("Command failed!");
     }
     return success;
   }
   
+  /**
+   * Calls doProcess() and, if the current record is sampled, records the time spent in this command
+   * including all downstream commands, as well as excluding the time spent in downstream commands.
+   */
+  private boolean doProcessTimed(Record record) {
+    TimingState state = TIMING_STATE.get();
+    if (state.depth == 0) { // outermost command on this thread decides whether to sample the record
+      state.isSampling = (state.numRecords++ % timingSampleRate) == 0;
+    }
+    state.depth++;
+    try {
+      if (!state.isSampling) {
+        return doProcess(record);
+      }
+      long outerChildNanos = state.childNanos;
+      state.childNanos = 0;
+      long start = System.nanoTime();
+      try {
+        return doProcess(record);
+      } finally {
+        long inclusive = System.nanoTime() - start;
+        inclusiveTimer.update(inclusive, TimeUnit.NANOSECONDS);
+        exclusiveTimer.update(inclusive - state.childNanos, TimeUnit.NANOSECONDS);
+        state.childNanos = outerChildNanos + inclusive;
+      }
+    } finally {
+      state.depth--;
+    }
+  }
+  
   private void beforeProcess(Record record) {
     if (isMeasuringMetrics()) {
       numProcessCallsMeter.mark();
@@ -215,6 +265,31 @@ public abstract class AbstractCommand implements Command {
     return IS_MEASURING_METRICS;
   }
   
+  /**
+   * Returns whether or not the time spent in each command should be measured, as enabled via
+   * {@link MorphlineContext#getTimingSampleRate()}. The timers of a command are named after its
+   * type and its position in the morphline, e.g. <code>morphline.grok.3.exclusiveTime</code>.
+   */
+  protected final boolean isMeasuringTime() {
+    return timingSampleRate > 0;
+  }
+  
+  /**
+   * Returns the position of a new command with the given parent in the order in which the commands
+   * of its morphline are built, starting at zero for the root command. The position only depends
+   * on the morphline config, so each compilation of the same morphline into the same context
+   * shares the same timers.
+   */
+  private static int nextCommandId(Command parent) {
+    AbstractCommand root = null;
+    for (Command cmd = parent; cmd instanceof AbstractCommand || cmd instanceof Connector; cmd = cmd.getParent()) {
+      if (cmd instanceof AbstractCommand) {
+        root = (AbstractCommand) cmd;
+      }
+    }
+    return root == null ? 0 : ++root.numDescendants;
+  }
+  
   private String getShortClassName(Class clazz) {
     String className = clazz.getName();
     int i = className.lastIndexOf('.'); // regular class
@@ -302,5 +377,21 @@ public abstract class AbstractCommand implements Command {
     Command cmd = builder.build(cmdConfig.getConfig(cmdName), currentParent, finalChild, getContext());
     return cmd;
   }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  /**
+   * Per-thread bookkeeping for time measurements across the nested process() calls of a chain.
+   */
+  private static final class TimingState {
+    
+    private long numRecords = 0;
+    private int depth = 0;
+    private boolean isSampling = false;
+    private long childNanos = 0; // time spent in downstream commands of the current command
+    
+  }
   
 }
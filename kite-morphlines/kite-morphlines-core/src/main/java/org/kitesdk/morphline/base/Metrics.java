@@ -30,6 +30,8 @@ public final class Metrics {
   public static final String NUM_CACHE_MISSES = "numCacheMisses";
   
   public static final String ELAPSED_TIME = "elapsedTime";
+  public static final String INCLUSIVE_TIME = "inclusiveTime";
+  public static final String EXCLUSIVE_TIME = "exclusiveTime";
   //public static final String ELAPSED_TOTAL_TIME = "elapsedTotalTime";
   
   public static final String MORPHLINE_APP = "morphline.app";
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigList;
+import com.typesafe.config.ConfigObject;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueFactory;
+import com.typesafe.config.ConfigValueType;
+
+/**
+ * Rewrites the command chain of a parsed morphline config into an equivalent but shorter chain, so
+ * that fewer commands need to be built and fewer per-command process() calls are made per record.
+ *
+ * The following rewrites are applied to the <code>commands</code> of a morphline:
+ * <ul>
+ * <li>addValues, addValuesIfAbsent and setValues commands without any fields are removed.</li>
+ * <li>Consecutive commands of the same of these types are merged into a single command, as long as
+ * no field expressions (<code>@{...}</code>) are involved, because the fields of a single command
+ * are applied in no particular order. setValues commands that set the same field are merged by
+ * keeping the last value. addValues commands that add to the same field are merged only if both
+ * values are lists, so that the values keep their type and order.</li>
+ * </ul>
+ * Commands that remove fields are not merged, because this version of the morphline library
+ * provides no such command (e.g. removeFields) whose blacklist semantics the optimizer could rely
+ * on.
+ * Commands are recognized by their short name, so a morphline that registers its own command
+ * builders for these names must not be optimized. Nested command chains, e.g. within tryRules or
+ * ifThenElse, are left as is.
+ */
+public final class Optimizer {
+
+  private static final Set<String> VALUE_COMMANDS = new HashSet(
+      Arrays.asList("addValues", "addValuesIfAbsent", "setValues"));
+
+  private static final Logger LOG = LoggerFactory.getLogger(Optimizer.class);
+
+  public Optimizer() {}
+
+  /**
+   * Returns a copy of the given morphline config with an optimized <code>commands</code> chain.
+   */
+  public Config optimize(Config morphlineConfig) {
+    Preconditions.checkNotNull(morphlineConfig);
+    if (!morphlineConfig.hasPath("commands")) {
+      return morphlineConfig;
+    }
+    List<? extends Config> commands = morphlineConfig.getConfigList("commands");
+    List<ConfigObject> optimized = optimize(commands);
+    if (optimized.size() == commands.size()) {
+      return morphlineConfig;
+    }
+    LOG.debug("Optimized morphline from {} to {} commands", commands.size(), optimized.size());
+    List<Object> values = new ArrayList(optimized.size());
+    for (ConfigObject command : optimized) {
+      values.add(command.unwrapped());
+    }
+    return morphlineConfig.withValue("commands", 
+        ConfigValueFactory.fromIterable(values, morphlineConfig.origin().description()));
+  }
+
+  private List<ConfigObject> optimize(List<? extends Config> commands) {
+    List<ConfigObject> results = new ArrayList(commands.size());
+    String lastName = null;
+    for (Config command : commands) {
+      ConfigObject root = command.root();
+      String name = getName(root);
+      if (name == null || !VALUE_COMMANDS.contains(name) || root.get(name).valueType() != ConfigValueType.OBJECT) {
+        results.add(root);
+        lastName = null;
+        continue;
+      }
+      Config params = command.getConfig(name);
+      if (params.entrySet().isEmpty()) {
+        continue; // no-op
+      }
+      if (name.equals(lastName)) {
+        ConfigObject last = results.get(results.size() - 1);
+        ConfigObject merged = merge(name, (ConfigObject) last.get(name), (ConfigObject) root.get(name));
+        if (merged != null) {
+          results.set(results.size() - 1, last.withValue(name, merged));
+          continue;
+        }
+      }
+      results.add(root);
+      lastName = name;
+    }
+    return results;
+  }
+
+  /** Returns the parameters of a single command equivalent to first and then second, or null */
+  private ConfigObject merge(String name, ConfigObject first, ConfigObject second) {
+    if (hasFieldExpression(first.toConfig()) || hasFieldExpression(second.toConfig())) {
+      return null;
+    }
+    ConfigObject merged = first;
+    for (Map.Entry<String, ConfigValue> entry : second.entrySet()) {
+      String key = entry.getKey();
+      ConfigValue value = entry.getValue();
+      ConfigValue firstValue = first.get(key);
+      if (firstValue != null) {
+        if (firstValue.valueType() == ConfigValueType.OBJECT || value.valueType() == ConfigValueType.OBJECT) {
+          return null; // nested field names
+        }
+        if (!"setValues".equals(name)) {
+          if (firstValue.valueType() != ConfigValueType.LIST || value.valueType() != ConfigValueType.LIST) {
+            return null;
+          }
+          List<Object> values = new ArrayList(((ConfigList) firstValue).unwrapped());
+          values.addAll(((ConfigList) value).unwrapped());
+          value = ConfigValueFactory.fromIterable(values, value.origin().description());
+        }
+      }
+      merged = merged.withValue(key, value);
+    }
+    return merged;
+  }
+
+  private boolean hasFieldExpression(Config params) {
+    for (Map.Entry<String, ConfigValue> entry : params.entrySet()) {
+      if (String.valueOf(entry.getValue().unwrapped()).contains("@{")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String getName(ConfigObject command) {
+    Set<String> keys = command.keySet();
+    return keys.size() == 1 ? keys.iterator().next() : null;
+  }
+
+}
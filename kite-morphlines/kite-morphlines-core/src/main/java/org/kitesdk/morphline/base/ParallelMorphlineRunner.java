@@ -0,0 +1,324 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.kitesdk.morphline.api.Command;
+import org.kitesdk.morphline.api.MorphlineContext;
+import org.kitesdk.morphline.api.MorphlineRuntimeException;
+import org.kitesdk.morphline.api.Record;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.typesafe.config.Config;
+
+/**
+ * Runs a morphline on multiple threads.
+ *
+ * Commands keep mutable per-instance state (e.g. cached regex matchers and Avro datum readers),
+ * so a command chain returned by {@link Compiler#compile(Config, MorphlineContext, Command)} must
+ * only be used by one thread at a time. This runner compiles one independent command chain per
+ * worker thread from the same morphline config. All chains share the given
+ * {@link MorphlineContext}, so the metrics of all workers are aggregated in its metric registry.
+ *
+ * Records passed to {@link #submit(Record)} are put into a bounded queue that all workers take
+ * records from; <code>submit</code> only blocks while this queue is full. Records are processed
+ * after <code>submit</code> returns, so callers must not modify a record after submitting it.
+ *
+ * Notifications are delivered to every worker's command chain on that worker's own thread. A
+ * notification such as {@link #commitTransaction()} is only delivered after all records submitted
+ * before it have been taken from the queue, and the call only returns once all workers have
+ * handled the notification. A failure on a worker thread is handed to the context's
+ * {@link org.kitesdk.morphline.api.ExceptionHandler}; if that rethrows, the failure is thrown by
+ * the next call to <code>submit</code> or a notification method, and subsequent records are
+ * discarded. An interrupted worker also counts as failed; it keeps taking items from the queue, so
+ * notifications and {@link #shutdown()} still return.
+ */
+public final class ParallelMorphlineRunner {
+
+  private final List<Command> morphlines;
+  private final List<Thread> workers;
+  private final BlockingQueue<Object> queue;
+  private final MorphlineContext context;
+  private volatile Throwable failure = null;
+  private boolean isShutdown = false;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelMorphlineRunner.class);
+
+  /**
+   * Compiles <code>numThreads</code> copies of the given morphline config and starts one worker
+   * thread for each copy.
+   *
+   * @param morphlineConfig
+   *          the config of the morphline to run, as returned by
+   *          {@link Compiler#find(String, Config, String)}
+   * @param finalChildren
+   *          supplies the command that each copy feeds records into, or null to drop the output
+   *          records. The supplier is called once per worker.
+   * @param queueCapacity
+   *          the maximum number of records that are buffered before {@link #submit(Record)}
+   *          blocks
+   */
+  public ParallelMorphlineRunner(Config morphlineConfig, MorphlineContext context,
+      Supplier<? extends Command> finalChildren, int numThreads, int queueCapacity) {
+    Preconditions.checkNotNull(morphlineConfig);
+    Preconditions.checkNotNull(context);
+    Preconditions.checkArgument(numThreads > 0, "numThreads must be positive: %s", numThreads);
+    Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive: %s", queueCapacity);
+    this.context = context;
+    this.queue = new ArrayBlockingQueue(queueCapacity);
+    this.morphlines = new ArrayList(numThreads);
+
+    // compile on this thread as MorphlineContext's command builder registry isn't thread-safe
+    Compiler compiler = new Compiler();
+    for (int i = 0; i < numThreads; i++) {
+      Command finalChild = finalChildren == null ? null : finalChildren.get();
+      morphlines.add(compiler.compile(morphlineConfig, context, finalChild));
+    }
+
+    this.workers = new ArrayList(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      Thread worker = new Thread(new Worker(morphlines.get(i)), "morphline-worker-" + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+    }
+    for (Thread worker : workers) {
+      worker.start();
+    }
+  }
+
+  /** Returns the number of worker threads. */
+  public int getNumThreads() {
+    return workers.size();
+  }
+
+  /** Hands the given record to the next free worker thread. */
+  public void submit(Record record) {
+    Preconditions.checkNotNull(record);
+    checkRunning();
+    put(record);
+  }
+
+  /** Delivers a START_SESSION notification to all workers. */
+  public void startSession() {
+    notifyWorkers(Notifications.LifecycleEvent.START_SESSION);
+  }
+
+  /** Delivers a BEGIN_TRANSACTION notification to all workers. */
+  public void beginTransaction() {
+    notifyWorkers(Notifications.LifecycleEvent.BEGIN_TRANSACTION);
+  }
+
+  /**
+   * Waits until all records submitted so far have been taken from the queue and then delivers a
+   * COMMIT_TRANSACTION notification to all workers.
+   */
+  public void commitTransaction() {
+    notifyWorkers(Notifications.LifecycleEvent.COMMIT_TRANSACTION);
+  }
+
+  /** Delivers a ROLLBACK_TRANSACTION notification to all workers. */
+  public void rollbackTransaction() {
+    notifyWorkers(Notifications.LifecycleEvent.ROLLBACK_TRANSACTION);
+  }
+
+  /**
+   * Delivers a SHUTDOWN notification to all workers and waits for the worker threads to
+   * terminate. Calling this method more than once has no effect.
+   */
+  public void shutdown() {
+    if (isShutdown) {
+      return;
+    }
+    isShutdown = true;
+    Barrier barrier = new Barrier(Notifications.LifecycleEvent.SHUTDOWN, workers.size());
+    for (int i = 0; i < workers.size(); i++) {
+      put(barrier);
+    }
+    await(barrier);
+    for (Thread worker : workers) {
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MorphlineRuntimeException("Interrupted while shutting down", e);
+      }
+    }
+    checkFailure();
+  }
+
+  private void notifyWorkers(Notifications.LifecycleEvent event) {
+    checkRunning();
+    Barrier barrier = new Barrier(event, workers.size());
+    for (int i = 0; i < workers.size(); i++) {
+      put(barrier);
+    }
+    await(barrier);
+    checkFailure();
+  }
+
+  private void checkRunning() {
+    Preconditions.checkState(!isShutdown, "Runner has already been shut down");
+    checkFailure();
+  }
+
+  private void checkFailure() {
+    if (failure != null) {
+      throw new MorphlineRuntimeException("Failed on worker thread: " + failure.getMessage(), failure);
+    }
+  }
+
+  private void put(Object item) {
+    try {
+      queue.put(item);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MorphlineRuntimeException("Interrupted while submitting to workers", e);
+    }
+  }
+
+  private void await(Barrier barrier) {
+    try {
+      barrier.arrived.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MorphlineRuntimeException("Interrupted while waiting for workers", e);
+    }
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  /**
+   * A notification that is put into the queue once per worker. Each worker waits until all workers
+   * have taken a copy before taking more items from the queue, so every worker sees exactly one
+   * copy.
+   */
+  private static final class Barrier {
+
+    private final Notifications.LifecycleEvent event;
+    private final CountDownLatch arrived;
+
+    public Barrier(Notifications.LifecycleEvent event, int numWorkers) {
+      this.event = event;
+      this.arrived = new CountDownLatch(numWorkers);
+    }
+  }
+
+
+  /** Takes items from the queue and feeds them into the command chain owned by this worker. */
+  private final class Worker implements Runnable {
+
+    private final Command morphline;
+
+    public Worker(Command morphline) {
+      this.morphline = morphline;
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Object item;
+        try {
+          item = queue.take();
+        } catch (InterruptedException e) {
+          // keep taking items so that notifications still reach this worker's barrier
+          LOG.warn("Morphline worker interrupted, discarding records until shutdown");
+          fail(e, null);
+          continue;
+        }
+
+        if (item instanceof Barrier) {
+          Barrier barrier = (Barrier) item;
+          if (failure == null || barrier.event == Notifications.LifecycleEvent.SHUTDOWN) {
+            try {
+              notify(barrier.event);
+            } catch (Throwable t) {
+              fail(t, null);
+            }
+          }
+          barrier.arrived.countDown();
+          // an interrupted worker must still wait here, or it could take a second copy of the barrier
+          try {
+            barrier.arrived.await();
+          } catch (InterruptedException e) {
+            LOG.warn("Morphline worker interrupted, discarding records until shutdown");
+            fail(e, null);
+            Uninterruptibles.awaitUninterruptibly(barrier.arrived);
+          }
+          if (barrier.event == Notifications.LifecycleEvent.SHUTDOWN) {
+            return;
+          }
+        } else if (failure == null) {
+          // after a failure, records are discarded until shutdown
+          Record record = (Record) item;
+          try {
+            if (!morphline.process(record)) {
+              LOG.debug("Morphline failed to process record: {}", record);
+            }
+          } catch (Throwable t) {
+            try {
+              context.getExceptionHandler().handleException(t, record);
+            } catch (Throwable t2) {
+              fail(t2, record);
+            }
+          }
+        }
+      }
+    }
+
+    private void notify(Notifications.LifecycleEvent event) {
+      switch (event) {
+        case START_SESSION:
+          Notifications.notifyStartSession(morphline);
+          break;
+        case BEGIN_TRANSACTION:
+          Notifications.notifyBeginTransaction(morphline);
+          break;
+        case COMMIT_TRANSACTION:
+          Notifications.notifyCommitTransaction(morphline);
+          break;
+        case ROLLBACK_TRANSACTION:
+          Notifications.notifyRollbackTransaction(morphline);
+          break;
+        case SHUTDOWN:
+          Notifications.notifyShutdown(morphline);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown lifecycle event: " + event);
+      }
+    }
+
+    private void fail(Throwable t, Record record) {
+      synchronized (ParallelMorphlineRunner.this) {
+        if (failure == null) {
+          LOG.debug("Morphline worker failed on record: " + record, t);
+          failure = t;
+        }
+      }
+    }
+  }
+
+}
@@ -157,7 +157,7 @@ public abstract class AbstractParser extends AbstractCommand {
   }
 
   private boolean hasAtLeastOneAttachment(Record record) {
-    if (!record.getFields().containsKey(Fields.ATTACHMENT_BODY)) {
+    if (!record.containsKey(Fields.ATTACHMENT_BODY)) {
       LOG.debug("Command failed because of missing attachment for record: {}", record);
       return false;
     }
@@ -165,7 +165,7 @@ public abstract class AbstractParser extends AbstractCommand {
   }
   
   private boolean hasAtLeastOneMimeType(Record record) {
-    if (!record.getFields().containsKey(Fields.ATTACHMENT_MIME_TYPE)) {
+    if (!record.containsKey(Fields.ATTACHMENT_MIME_TYPE)) {
       LOG.debug("Command failed because of missing MIME type for record: {}", record);
       return false;
     }  
@@ -69,11 +69,11 @@ abstract class AbstractAddValuesCommand extends AbstractCommand {
   }
   
   protected void putAll(Record record, String key, Collection values) {
-    record.getFields().putAll(key, values);
+    record.get(key).addAll(values);
   }
   
   protected void put(Record record, String key, Object value) {
-    record.getFields().put(key, value);
+    record.put(key, value);
   }
   
 }
@@ -82,7 +82,7 @@ public final class AddLocalHostBuilder implements CommandBuilder {
 
     @Override
     protected boolean doProcess(Record record) {      
-      if (preserveExisting && record.getFields().containsKey(fieldName)) {
+      if (preserveExisting && record.containsKey(fieldName)) {
         ; // we must preserve the existing host
       } else {
         record.removeAll(fieldName);
@@ -15,6 +15,7 @@
  */
 package org.kitesdk.morphline.stdlib;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,6 +31,7 @@ import org.kitesdk.morphline.base.Configs;
 import org.kitesdk.morphline.base.Validator;
 import org.kitesdk.morphline.shaded.com.google.code.regexp.GroupInfo;
 import org.kitesdk.morphline.shaded.com.google.code.regexp.Matcher;
+import org.kitesdk.morphline.shaded.com.google.code.regexp.Pattern;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
@@ -64,7 +66,7 @@ public final class GrokBuilder implements CommandBuilder {
   ///////////////////////////////////////////////////////////////////////////////
   private static final class Grok extends AbstractCommand {
 
-    private final Map<String, Matcher> regexes = new HashMap();
+    private final Map<String, Expression> regexes = new HashMap();
     private final boolean extract;
     private final boolean extractInPlace;
     private final NumRequiredMatches numRequiredMatches;
@@ -80,7 +82,9 @@ public final class GrokBuilder implements CommandBuilder {
       Config exprConfig = getConfigs().getConfig(config, "expressions", ConfigFactory.empty());
       for (Map.Entry<String, Object> entry : new Configs().getEntrySet(exprConfig)) {
         String expr = entry.getValue().toString();
-        this.regexes.put(entry.getKey(), dict.compileExpression(expr).matcher(""));
+        Expression expression = new Expression(dict.compileExpression(expr));
+        LOG.debug("Required literals of grok expression {} : {}", expr, Arrays.asList(expression.requiredLiterals));
+        this.regexes.put(entry.getKey(), expression);
       }
       this.firstKey = (regexes.size() == 0 ? null : regexes.entrySet().iterator().next().getKey());
 
@@ -143,8 +147,9 @@ public final class GrokBuilder implements CommandBuilder {
     }
 
     private boolean doMatch(Record inputRecord, Record outputRecord, boolean doExtract) {
-      for (Map.Entry<String, Matcher> regexEntry : regexes.entrySet()) {
-        Matcher matcher = regexEntry.getValue();
+      for (Map.Entry<String, Expression> regexEntry : regexes.entrySet()) {
+        Matcher matcher = regexEntry.getValue().matcher;
+        String[] requiredLiterals = regexEntry.getValue().requiredLiterals;
         List values = inputRecord.get(regexEntry.getKey());
         int todo = values.size();
         int minMatches = 1;
@@ -164,8 +169,11 @@ public final class GrokBuilder implements CommandBuilder {
         }        
         int numMatches = 0;
         for (Object value : values) {
-          matcher.reset(value.toString());
-          if (!findSubstrings) {
+          String str = value.toString();
+          if (!RequiredLiterals.containsAll(str, requiredLiterals)) {
+            ; // the regex can't match, so there's no need to run it
+          } else if (!findSubstrings) {
+            matcher.reset(str);
             if (matcher.matches()) {
               numMatches++;
               if (numMatches > maxMatches) {
@@ -176,6 +184,7 @@ public final class GrokBuilder implements CommandBuilder {
               extract(outputRecord, matcher, doExtract);
             }
           } else {
+            matcher.reset(str);
             int previousNumMatches = numMatches;
             while (matcher.find()) {
               if (numMatches == previousNumMatches) {
@@ -235,6 +244,17 @@ public final class GrokBuilder implements CommandBuilder {
       all     
     }     
 
+    private static final class Expression {
+      
+      private final Matcher matcher;
+      private final String[] requiredLiterals; // prefilter that avoids running the regex on most mismatches
+      
+      public Expression(Pattern pattern) {
+        this.matcher = pattern.matcher("");
+        this.requiredLiterals = RequiredLiterals.of(pattern);
+      }
+    }
+
   }
   
 }
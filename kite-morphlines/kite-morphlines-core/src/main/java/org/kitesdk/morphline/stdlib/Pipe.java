@@ -22,12 +22,16 @@ import org.kitesdk.morphline.api.Command;
 import org.kitesdk.morphline.api.CommandBuilder;
 import org.kitesdk.morphline.api.MorphlineContext;
 import org.kitesdk.morphline.base.AbstractCommand;
+import org.kitesdk.morphline.base.Optimizer;
 
 import com.typesafe.config.Config;
 
 /**
  * A morphline has a name and contains a chain of zero or more commands, through which the morphline
  * pipes each input record. A command transforms the record into zero or more records.
+ * 
+ * If the optional <code>optimize</code> parameter is true, the chain of commands is first rewritten
+ * by the {@link Optimizer}.
  */
 final class Pipe extends AbstractCommand {
   
@@ -43,7 +47,11 @@ final class Pipe extends AbstractCommand {
     context.importCommandBuilders(importCommandSpecs);
 
     getConfigs().getConfigList(config, "commands", null);
-    List<Command> childCommands = buildCommandChain(config, "commands", child, false);
+    Config commandsConfig = config;
+    if (getConfigs().getBoolean(config, "optimize", false)) {
+      commandsConfig = new Optimizer().optimize(config);
+    }
+    List<Command> childCommands = buildCommandChain(commandsConfig, "commands", child, false);
     if (childCommands.size() > 0) {
       this.realChild = childCommands.get(0);
     } else {
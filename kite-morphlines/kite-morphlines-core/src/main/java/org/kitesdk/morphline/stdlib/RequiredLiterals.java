@@ -0,0 +1,365 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.stdlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.kitesdk.morphline.shaded.com.google.code.regexp.Pattern;
+
+/**
+ * Utility that extracts the literal substrings that every match of a regular expression contains.
+ *
+ * If a string doesn't contain all of these literals, neither <code>Matcher.matches()</code> nor
+ * <code>Matcher.find()</code> can succeed on it, so the (comparatively expensive) regex engine
+ * doesn't need to run at all. The analysis is conservative: alternations, optional parts,
+ * character classes and any syntax that isn't understood contribute no literals.
+ */
+final class RequiredLiterals {
+
+  private final String regex;
+  private int pos = 0;
+
+  private static final String[] EMPTY = new String[0];
+
+  private RequiredLiterals(String regex) {
+    this.regex = regex;
+  }
+
+  /**
+   * Returns the literals that every match of the given pattern contains, longest first, or an empty
+   * array if none are known.
+   */
+  public static String[] of(Pattern pattern) {
+    if (pattern.flags() != 0) {
+      return EMPTY; // e.g. CASE_INSENSITIVE or COMMENTS change the meaning of literals
+    }
+    List<String> literals;
+    try {
+      RequiredLiterals parser = new RequiredLiterals(pattern.standardPattern());
+      literals = parser.parseAlternatives();
+      if (parser.pos != parser.regex.length()) {
+        return EMPTY; // unbalanced parenthesis
+      }
+    } catch (UnsupportedSyntaxException e) {
+      return EMPTY;
+    }
+
+    // longest first, and without literals that are contained in longer ones
+    Collections.sort(literals, new Comparator<String>() {
+      @Override
+      public int compare(String s1, String s2) {
+        return s2.length() - s1.length();
+      }
+    });
+    List<String> results = new ArrayList();
+    for (String literal : literals) {
+      boolean isRedundant = false;
+      for (String result : results) {
+        if (result.contains(literal)) {
+          isRedundant = true;
+          break;
+        }
+      }
+      if (!isRedundant) {
+        results.add(literal);
+      }
+    }
+    return results.toArray(new String[results.size()]);
+  }
+
+  /** Returns true if the given string contains all of the given literals */
+  public static boolean containsAll(String str, String[] literals) {
+    for (String literal : literals) {
+      if (str.indexOf(literal) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses the alternatives up to the next unmatched ')' or the end of the regex, and returns the
+   * literals that every match of them contains.
+   */
+  private List<String> parseAlternatives() {
+    List<String> literals = new ArrayList();
+    StringBuilder run = new StringBuilder();
+    boolean hasAlternatives = false;
+    while (pos < regex.length()) {
+      char c = regex.charAt(pos);
+      if (c == ')') {
+        break;
+      } else if (c == '|') {
+        hasAlternatives = true;
+        pos++;
+      } else {
+        parseAtom(run, literals);
+      }
+    }
+    flush(run, literals);
+    return hasAlternatives ? new ArrayList() : literals;
+  }
+
+  /** Parses a single atom including its quantifier, if any */
+  private void parseAtom(StringBuilder run, List<String> literals) {
+    char c = regex.charAt(pos++);
+    int literal = -1; // the character that this atom matches, if it's a literal
+    List<String> groupLiterals = null;
+    switch (c) {
+      case '(': {
+        groupLiterals = parseGroup();
+        break;
+      }
+      case '[': {
+        skipCharClass();
+        break;
+      }
+      case '\\': {
+        if (pos < regex.length() && regex.charAt(pos) == 'Q') {
+          pos++;
+          String quoted = parseQuote();
+          if (quoted.length() == 0) {
+            return;
+          }
+          // a quantifier applies to the last quoted character only
+          run.append(quoted, 0, quoted.length() - 1);
+          literal = quoted.charAt(quoted.length() - 1);
+        } else {
+          literal = parseEscape();
+        }
+        break;
+      }
+      case '.':
+      case '^':
+      case '$': {
+        break;
+      }
+      case '{':
+      case '*':
+      case '+':
+      case '?': {
+        throw new UnsupportedSyntaxException();
+      }
+      default: {
+        literal = c;
+        break;
+      }
+    }
+    if (literal >= 0 && (Character.isHighSurrogate((char) literal) || Character.isLowSurrogate((char) literal))) {
+      literal = -1; // a quantifier would apply to the whole code point
+    }
+
+    int minOccurrences = parseQuantifier();
+    if (literal >= 0 && minOccurrences != 0) {
+      run.append((char) literal);
+    }
+    if (literal < 0 || minOccurrences >= 0) {
+      flush(run, literals); // only unquantified literals are adjacent to the next atom
+    }
+    if (groupLiterals != null && minOccurrences != 0) {
+      literals.addAll(groupLiterals);
+    }
+  }
+
+  /** Parses the rest of a group, and returns its required literals */
+  private List<String> parseGroup() {
+    boolean isConsuming = true;
+    if (pos < regex.length() && regex.charAt(pos) == '?') {
+      pos++;
+      char c = charAt(pos++);
+      if (c == '=' || c == '!') {
+        isConsuming = false; // lookahead
+      } else if (c == '<') {
+        c = charAt(pos);
+        if (c == '=' || c == '!') {
+          pos++;
+          isConsuming = false; // lookbehind
+        } else {
+          pos = indexOf(">", pos) + 1; // named group
+        }
+      } else if (c != ':' && c != '>') {
+        throw new UnsupportedSyntaxException(); // inline flags
+      }
+    }
+    List<String> literals = parseAlternatives();
+    if (charAt(pos++) != ')') {
+      throw new UnsupportedSyntaxException();
+    }
+    return isConsuming ? literals : new ArrayList();
+  }
+
+  /** Skips the rest of a character class, which may contain nested classes */
+  private void skipCharClass() {
+    if (charAt(pos) == '^') {
+      pos++;
+    }
+    if (charAt(pos) == ']') {
+      pos++; // a leading ']' is a member of the class
+    }
+    while (true) {
+      char c = charAt(pos++);
+      if (c == ']') {
+        return;
+      } else if (c == '[') {
+        skipCharClass();
+      } else if (c == '\\') {
+        if (charAt(pos) == 'Q') {
+          pos++;
+          parseQuote();
+        } else {
+          parseEscape();
+        }
+      }
+    }
+  }
+
+  /**
+   * Parses the rest of an escape sequence, and returns the character that it matches, or -1 if it
+   * doesn't match a single literal character.
+   */
+  private int parseEscape() {
+    char c = charAt(pos++);
+    switch (c) {
+      case 't': return '\t';
+      case 'n': return '\n';
+      case 'r': return '\r';
+      case 'f': return '\f';
+      case 'a': return '\u0007';
+      case 'e': return '\u001B';
+      case 'd': case 'D': case 's': case 'S': case 'w': case 'W': case 'h': case 'H': case 'v': case 'V':
+      case 'b': case 'B': case 'A': case 'z': case 'Z': case 'G': case 'R': case 'X': {
+        return -1;
+      }
+      case 'p': case 'P': case 'x': {
+        if (charAt(pos) == '{') {
+          pos = indexOf("}", pos) + 1;
+        } else {
+          pos += (c == 'x' ? 2 : 1);
+        }
+        return -1;
+      }
+      case 'u': {
+        pos += 4;
+        return -1;
+      }
+      case 'c': {
+        pos++;
+        return -1;
+      }
+      case 'k': {
+        pos = indexOf(">", pos) + 1;
+        return -1;
+      }
+      case '0': {
+        for (int i = 0; i < 3 && pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '7'; i++) {
+          pos++;
+        }
+        return -1;
+      }
+      default: {
+        if (c >= '1' && c <= '9') { // back reference
+          while (pos < regex.length() && Character.isDigit(regex.charAt(pos))) {
+            pos++;
+          }
+          return -1;
+        }
+        if (Character.isLetterOrDigit(c)) {
+          throw new UnsupportedSyntaxException();
+        }
+        return c;
+      }
+    }
+  }
+
+  /** Parses the rest of a \Q...\E quotation, and returns the quoted string */
+  private String parseQuote() {
+    int end = regex.indexOf("\\E", pos);
+    if (end < 0) {
+      end = regex.length();
+    }
+    String quoted = regex.substring(pos, end);
+    pos = Math.min(end + 2, regex.length());
+    return quoted;
+  }
+
+  /**
+   * Parses a quantifier, if any, and returns the minimum number of occurrences it allows, or -1 if
+   * there is no quantifier.
+   */
+  private int parseQuantifier() {
+    if (pos >= regex.length()) {
+      return -1;
+    }
+    int minOccurrences;
+    char c = regex.charAt(pos);
+    if (c == '?' || c == '*') {
+      pos++;
+      minOccurrences = 0;
+    } else if (c == '+') {
+      pos++;
+      minOccurrences = 1;
+    } else if (c == '{') {
+      int end = indexOf("}", pos);
+      String bounds = regex.substring(pos + 1, end);
+      int i = bounds.indexOf(',');
+      try {
+        minOccurrences = Integer.parseInt(i < 0 ? bounds : bounds.substring(0, i));
+      } catch (NumberFormatException e) {
+        throw new UnsupportedSyntaxException();
+      }
+      pos = end + 1;
+    } else {
+      return -1;
+    }
+    if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+      pos++; // reluctant or possessive
+    }
+    return minOccurrences;
+  }
+
+  private void flush(StringBuilder run, List<String> literals) {
+    if (run.length() > 0) {
+      literals.add(run.toString());
+      run.setLength(0);
+    }
+  }
+
+  private char charAt(int index) {
+    if (index >= regex.length()) {
+      throw new UnsupportedSyntaxException();
+    }
+    return regex.charAt(index);
+  }
+
+  private int indexOf(String str, int fromIndex) {
+    int i = regex.indexOf(str, fromIndex);
+    if (i < 0) {
+      throw new UnsupportedSyntaxException();
+    }
+    return i;
+  }
+
+
+  ///////////////////////////////////////////////////////////////////////////////
+  // Nested classes:
+  ///////////////////////////////////////////////////////////////////////////////
+  private static final class UnsupportedSyntaxException extends RuntimeException {
+  }
+
+}
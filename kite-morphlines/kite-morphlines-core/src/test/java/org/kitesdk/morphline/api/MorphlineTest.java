@@ -47,6 +47,8 @@ import org.kitesdk.morphline.base.FaultTolerance;
 import org.kitesdk.morphline.base.Fields;
 import org.kitesdk.morphline.base.Metrics;
 import org.kitesdk.morphline.base.Notifications;
+import org.kitesdk.morphline.base.Optimizer;
+import org.kitesdk.morphline.stdlib.PipeBuilder;
 import org.kitesdk.morphline.shaded.com.google.code.regexp.Matcher;
 import org.kitesdk.morphline.shaded.com.google.code.regexp.Pattern;
 import org.kitesdk.morphline.shaded.com.google.common.reflect.ClassPath;
@@ -55,6 +57,7 @@ import org.kitesdk.morphline.shaded.com.google.common.reflect.ClassPath.Resource
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.health.HealthCheck;
 import com.codahale.metrics.health.HealthCheckRegistry;
 import com.google.common.base.Charsets;
@@ -169,6 +172,78 @@ public class MorphlineTest extends AbstractMorphlineTest {
     processAndVerifySuccess(record, record);
   }
   
+  @Test
+  public void testTimingSampleRate() throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    morphContext = new MorphlineContext.Builder()
+      .setMetricRegistry(metricRegistry)
+      .setTimingSampleRate(3)
+      .build();
+    morphline = new PipeBuilder().build(
+        parse("test-morphlines/pipeWithTwoBasicCommands"), null, collector, morphContext);
+    for (int i = 0; i < 30; i++) {
+      assertTrue(morphline.process(createBasicRecord()));
+    }
+    assertEquals(30, collector.getRecords().size());
+    
+    // commands are numbered in the order in which they appear in the morphline
+    Timer pipeInclusive = metricRegistry.timer("morphline.pipe.0." + Metrics.INCLUSIVE_TIME);
+    Timer pipeExclusive = metricRegistry.timer("morphline.pipe.0." + Metrics.EXCLUSIVE_TIME);
+    Timer firstInclusive = metricRegistry.timer("morphline.logDebug.1." + Metrics.INCLUSIVE_TIME);
+    Timer firstExclusive = metricRegistry.timer("morphline.logDebug.1." + Metrics.EXCLUSIVE_TIME);
+    Timer secondInclusive = metricRegistry.timer("morphline.logDebug.2." + Metrics.INCLUSIVE_TIME);
+    Timer secondExclusive = metricRegistry.timer("morphline.logDebug.2." + Metrics.EXCLUSIVE_TIME);
+    for (Timer timer : Arrays.asList(pipeInclusive, pipeExclusive, firstInclusive, firstExclusive, 
+        secondInclusive, secondExclusive)) {
+      assertEquals(10, timer.getCount());
+    }
+    
+    // the inclusive time of a command is its exclusive time plus the inclusive time of its child
+    assertEquals(sum(pipeInclusive), sum(pipeExclusive) + sum(firstInclusive));
+    assertEquals(sum(firstInclusive), sum(firstExclusive) + sum(secondInclusive));
+    assertEquals(sum(secondInclusive), sum(secondExclusive)); // the collector isn't timed
+  }
+  
+  @Test
+  public void testTimersAreSharedAcrossCompilations() throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    morphContext = new MorphlineContext.Builder()
+      .setMetricRegistry(metricRegistry)
+      .setTimingSampleRate(1)
+      .build();
+    Config config = parse("test-morphlines/pipeWithTwoBasicCommands");
+    Command first = new PipeBuilder().build(config, null, collector, morphContext);
+    Command second = new PipeBuilder().build(config, null, collector, morphContext);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(first.process(createBasicRecord()));
+      assertTrue(second.process(createBasicRecord()));
+    }
+    assertEquals(10, collector.getRecords().size());
+    
+    // both compilations number their commands the same way and hence update the same timers
+    assertEquals(6, metricRegistry.getTimers().size());
+    for (Timer timer : metricRegistry.getTimers().values()) {
+      assertEquals(10, timer.getCount());
+    }
+    assertEquals(10, metricRegistry.timer("morphline.logDebug.2." + Metrics.EXCLUSIVE_TIME).getCount());
+  }
+  
+  @Test
+  public void testTimingDisabledByDefault() throws Exception {
+    morphline = createMorphline("test-morphlines/pipeWithTwoBasicCommands");
+    assertTrue(morphline.process(createBasicRecord()));
+    assertEquals(0, morphContext.getTimingSampleRate());
+    assertEquals(0, morphContext.getMetricRegistry().getTimers().size());
+  }
+  
+  private long sum(Timer timer) {
+    long sum = 0;
+    for (long value : timer.getSnapshot().getValues()) {
+      sum += value;
+    }
+    return sum;
+  }
+  
   @Test
   public void testNotifications() throws Exception {
     morphline = createMorphline("test-morphlines/pipeWithTwoBasicCommands");
@@ -302,6 +377,30 @@ public class MorphlineTest extends AbstractMorphlineTest {
     processAndVerifySuccess(record, expected);
   }
 
+  @Test
+  public void testOptimize() throws Exception {
+    Config config = parse("test-morphlines/optimize");
+    assertEquals(10, config.getConfigList("commands").size());
+    assertEquals(6, new Optimizer().optimize(config).getConfigList("commands").size());
+
+    morphline = createMorphline(config);
+    Record record = new Record();
+    record.put("first_name", "Nadja");
+    Record expected = new Record();
+    expected.put("first_name", "Nadja");
+    expected.put("source_type", "text/log");
+    expected.put("source_type", "text/log2");
+    expected.put("source_host", "123");
+    expected.put("user", "root");
+    expected.put("name", "Nadja");
+    expected.put("pids", 456);
+    expected.put("pids", "hello");
+    expected.put("tags", "a");
+    expected.put("tags", "b");
+    expected.put("tags", "c");
+    processAndVerifySuccess(record, expected);
+  }
+
   @Test
   public void testAddValuesIfAbsent() throws Exception {
     morphline = createMorphline("test-morphlines/addValuesIfAbsent");    
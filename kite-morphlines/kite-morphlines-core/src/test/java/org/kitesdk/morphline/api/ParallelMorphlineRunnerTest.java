@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.api;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.kitesdk.morphline.base.Fields;
+import org.kitesdk.morphline.base.ParallelMorphlineRunner;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Supplier;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+public class ParallelMorphlineRunnerTest extends AbstractMorphlineTest {
+
+  private final List<Collector> collectors = new ArrayList();
+
+  private final Supplier<Command> collectorSupplier = new Supplier<Command>() {
+    @Override
+    public Command get() {
+      Collector collector = new Collector();
+      collectors.add(collector);
+      return collector;
+    }
+  };
+
+  @Test
+  public void testProcessesAllRecordsOnAllWorkers() throws Exception {
+    Config config = parse("test-morphlines/addValues");
+    MorphlineContext context = new MorphlineContext.Builder().setMetricRegistry(new MetricRegistry()).build();
+    ParallelMorphlineRunner runner = new ParallelMorphlineRunner(config, context, collectorSupplier, 4, 10);
+    assertEquals(4, runner.getNumThreads());
+    assertEquals(4, collectors.size());
+
+    runner.startSession();
+    runner.beginTransaction();
+    int numRecords = 1000;
+    for (int i = 0; i < numRecords; i++) {
+      Record record = new Record();
+      record.put("first_name", "name" + i);
+      runner.submit(record);
+    }
+    runner.commitTransaction();
+
+    Set<Object> names = new HashSet();
+    for (Collector c : collectors) {
+      assertEquals(1, c.getNumStartEvents());
+      for (Record record : c.getRecords()) {
+        assertEquals("123", record.getFirstValue("source_host"));
+        names.add(record.getFirstValue("name"));
+      }
+    }
+    assertEquals(numRecords, names.size());
+    assertEquals(numRecords, context.getMetricRegistry().meter(
+        MetricRegistry.name("morphline.addValues", "numProcessCalls")).getCount());
+
+    runner.shutdown();
+    runner.shutdown();
+  }
+
+  @Test
+  public void testWorkerFailurePropagates() throws Exception {
+    Config config = ConfigFactory.parseString(
+        "{ id : morphline1, importCommands : [\"" + ThrowExceptionCommandBuilder.class.getName() + "\"], "
+        + "commands : [ { throwException {} } ] }");
+    MorphlineContext context = new MorphlineContext.Builder().setMetricRegistry(new MetricRegistry()).build();
+    ParallelMorphlineRunner runner = new ParallelMorphlineRunner(config, context, collectorSupplier, 2, 10);
+    Record record = new Record();
+    record.put(Fields.MESSAGE, "hello");
+    runner.submit(record);
+    try {
+      runner.commitTransaction();
+      fail();
+    } catch (MorphlineRuntimeException e) {
+      ; // expected
+    }
+    try {
+      runner.shutdown();
+      fail();
+    } catch (MorphlineRuntimeException e) {
+      ; // expected
+    }
+  }
+
+  @Test
+  public void testInterruptedWorkerDoesNotBlockNotifications() throws Exception {
+    Config config = parse("test-morphlines/addValues");
+    MorphlineContext context = new MorphlineContext.Builder().setMetricRegistry(new MetricRegistry()).build();
+    final ParallelMorphlineRunner runner = new ParallelMorphlineRunner(config, context, collectorSupplier, 2, 10);
+    Thread worker = null;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals("morphline-worker-0")) {
+        worker = thread;
+      }
+    }
+    assertNotNull(worker);
+    worker.interrupt();
+
+    // notify from another thread so that a hang fails the test instead of blocking it
+    final AtomicReference<Throwable> commitFailure = new AtomicReference();
+    final AtomicReference<Throwable> shutdownFailure = new AtomicReference();
+    Thread caller = new Thread() {
+      @Override
+      public void run() {
+        try {
+          runner.commitTransaction();
+        } catch (Throwable t) {
+          commitFailure.set(t);
+        }
+        try {
+          runner.shutdown();
+        } catch (Throwable t) {
+          shutdownFailure.set(t);
+        }
+      }
+    };
+    caller.setDaemon(true);
+    caller.start();
+    caller.join(10000);
+    assertFalse("Notifications should not wait for the interrupted worker", caller.isAlive());
+
+    assertTrue(commitFailure.get() instanceof MorphlineRuntimeException);
+    assertTrue(commitFailure.get().getCause() instanceof InterruptedException);
+    assertTrue(shutdownFailure.get() instanceof MorphlineRuntimeException);
+    assertFalse(worker.isAlive());
+  }
+
+}
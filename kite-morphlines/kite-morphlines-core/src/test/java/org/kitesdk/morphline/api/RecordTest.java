@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.api;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+public class RecordTest extends Assert {
+
+  @Test
+  public void testMultipleValues() throws Exception {
+    Record record = new Record();
+    record.put("foo", "a");
+    assertEquals(Arrays.asList("a"), record.get("foo"));
+    record.put("foo", "b");
+    record.put("foo", "c");
+    record.get("foo").add(0, "z");
+    assertEquals(Arrays.asList("z", "a", "b", "c"), record.get("foo"));
+    assertEquals("z", record.getFirstValue("foo"));
+
+    record.get("foo").remove(1);
+    assertEquals(Arrays.asList("z", "b", "c"), record.get("foo"));
+    Iterator iter = record.get("foo").iterator();
+    iter.next();
+    iter.remove();
+    assertEquals(Arrays.asList("b", "c"), record.get("foo"));
+
+    record.replaceValues("foo", "x");
+    assertEquals(Arrays.asList("x"), record.get("foo"));
+    record.putIfAbsent("foo", "x");
+    record.putIfAbsent("foo", null);
+    assertEquals(Arrays.asList("x", null), record.get("foo"));
+
+    record.removeAll("foo");
+    assertEquals(0, record.get("foo").size());
+    assertNull(record.getFirstValue("foo"));
+    assertFalse(record.getFields().containsKey("foo"));
+  }
+
+  @Test
+  public void testEqualsArrayListMultimap() throws Exception {
+    Record record = new Record();
+    ListMultimap<String, Object> expected = ArrayListMultimap.create();
+    for (int i = 0; i < 10; i++) {
+      record.put("field" + (i % 3), i);
+      expected.put("field" + (i % 3), i);
+    }
+    assertEquals(expected, record.getFields());
+    assertEquals(expected.hashCode(), record.getFields().hashCode());
+    assertEquals(expected.asMap().toString(), record.getFields().asMap().toString());
+  }
+
+  @Test
+  public void testCopyIsIndependent() throws Exception {
+    Record record = new Record();
+    record.put("single", "a");
+    record.put("multi", "b");
+    record.put("multi", "c");
+    Record copy = record.copy();
+    assertEquals(record, copy);
+
+    copy.put("single", "x");
+    copy.get("multi").set(0, "y");
+    copy.put("other", "z");
+    assertEquals(Arrays.asList("a"), record.get("single"));
+    assertEquals(Arrays.asList("b", "c"), record.get("multi"));
+    assertFalse(record.getFields().containsKey("other"));
+    assertEquals(Arrays.asList("a", "x"), copy.get("single"));
+    assertEquals(Arrays.asList("y", "c"), copy.get("multi"));
+
+    List values = record.get("multi");
+    values.clear();
+    assertEquals(Arrays.asList("y", "c"), copy.get("multi"));
+    assertEquals(1, record.getFields().size());
+  }
+
+  @Test
+  public void testCopyOnWrite() throws Exception {
+    Record record = new Record();
+    record.put("foo", "a");
+    List values = record.get("foo");
+    Record copy = record.copy();
+    Record copyOfCopy = copy.copy();
+
+    // a view obtained before the copy must not write through to the copy
+    values.add("b");
+    assertEquals(Arrays.asList("a", "b"), record.get("foo"));
+    assertEquals(Arrays.asList("a"), copy.get("foo"));
+    assertEquals(Arrays.asList("a"), copyOfCopy.get("foo"));
+
+    copy.removeAll("foo");
+    assertEquals(0, copy.get("foo").size());
+    assertEquals(Arrays.asList("a"), copyOfCopy.get("foo"));
+
+    copyOfCopy.getFields().put("bar", "x");
+    assertFalse(copy.getFields().containsKey("bar"));
+    assertFalse(record.getFields().containsKey("bar"));
+    assertEquals(Arrays.asList("a", "b"), record.get("foo"));
+
+    // reads and removals of missing fields don't modify the record
+    Record empty = copyOfCopy.copy();
+    empty.removeAll("missing");
+    empty.get("missing").clear();
+    assertEquals(copyOfCopy, empty);
+    assertNull(empty.getFirstValue("missing"));
+  }
+
+  @Test
+  public void testReadOnlyAccessors() throws Exception {
+    Record record = new Record();
+    record.put("foo", "a");
+    record.put("foo", "b");
+    Record copy = record.copy();
+
+    assertTrue(copy.containsKey("foo"));
+    assertFalse(copy.containsKey("bar"));
+    assertEquals(Arrays.asList("a", "b"), copy.getFieldsAsMap().get("foo"));
+    assertEquals(1, copy.getFieldsAsMap().size());
+    try {
+      copy.getFieldsAsMap().remove("foo");
+      fail();
+    } catch (UnsupportedOperationException e) {
+      ; // expected
+    }
+
+    try {
+      copy.getFieldsAsMap().get("foo").add("c");
+      fail();
+    } catch (UnsupportedOperationException e) {
+      ; // expected
+    }
+
+    copy.removeAll("foo");
+    assertFalse(copy.containsKey("foo"));
+    assertTrue(record.containsKey("foo"));
+    assertEquals(0, copy.getFieldsAsMap().size());
+  }
+
+  @Test
+  public void testGetFieldsRetainedAcrossCopy() throws Exception {
+    Record record = new Record();
+    record.put("foo", "a");
+    ListMultimap<String, Object> fields = record.getFields();
+    Record copy = record.copy();
+
+    fields.put("foo", "b");
+    fields.put("bar", "c");
+    assertEquals(Arrays.asList("a", "b"), record.get("foo"));
+    assertEquals(Arrays.asList("c"), record.get("bar"));
+    assertEquals(Arrays.asList("a"), copy.get("foo"));
+    assertFalse(copy.containsKey("bar"));
+
+    copy.put("foo", "d");
+    assertEquals(Arrays.asList("a", "b"), fields.get("foo"));
+  }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 Cloudera Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.morphline.stdlib;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.morphline.base.Configs;
+import org.kitesdk.morphline.shaded.com.google.code.regexp.Pattern;
+
+import com.typesafe.config.ConfigFactory;
+
+public class RequiredLiteralsTest extends Assert {
+
+  @Test
+  public void testRequiredLiterals() {
+    assertLiterals("foo\\d+bar", "foo", "bar");
+    assertLiterals("ab?c", "a", "c");
+    assertLiterals("a{0,2}bc{2}d", "bc", "d");
+    assertLiterals("(abc)+de", "abc", "de");
+    assertLiterals("(?<name>abc)de", "abc", "de");
+    assertLiterals("(abc)?de", "de");
+    assertLiterals("(?:abc|abd)x", "x");
+    assertLiterals("(?=abc)d", "d");
+    assertLiterals("[abc\\]]xyz\\.q", "xyz.q");
+    assertLiterals("[]a]x[^]b]", "x");
+    assertLiterals("\\Qa.b\\E+c", "a.b", "c");
+    assertLiterals("\\x41bc\\u0041de", "bc", "de");
+    assertLiterals("x\\tabcx", "x\tabcx");
+    assertLiterals("a|b");
+    assertLiterals("(?i)abc");
+  }
+
+  @Test
+  public void testGrokExpressions() {
+    String str = "{ dictionaryResources : [grok-dictionaries/grok-patterns] }";
+    GrokDictionaries dicts = new GrokDictionaries(ConfigFactory.parseString(str), new Configs());
+    String[] lines = {
+        "<164>Feb  4 10:46:14 syslog sshd[607]: Server listening on 0.0.0.0 port 22.",
+        "Feb  4 10:46:14 syslog sshd: listening",
+        "127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] \"GET /a.gif HTTP/1.0\" 200 2326 \"-\" \"agent\"",
+        "127.0.0.1 - - [10/Oct/2000:13:55:36 -0700] \"-\" 200 - \"\" \"\"",
+        "2007-03-01T13:00:00Z",
+        "hello world",
+    };
+    String[] exprs = {
+        "%{SYSLOGBASE} %{GREEDYDATA:msg}",
+        "<%{POSINT:priority}>%{SYSLOGTIMESTAMP:timestamp} %{SYSLOGHOST:host} sshd(?:\\[%{POSINT:pid}\\])?: %{GREEDYDATA:msg}",
+        "%{COMBINEDAPACHELOG}",
+        "%{TIMESTAMP_ISO8601:timestamp}",
+        "%{WORD:verb} world",
+    };
+    for (String expr : exprs) {
+      Pattern pattern = dicts.compileExpression(expr);
+      String[] literals = RequiredLiterals.of(pattern);
+      assertTrue(expr, literals.length > 0);
+      for (String line : lines) {
+        if (pattern.matcher(line).find()) {
+          assertTrue(expr + " : " + line, RequiredLiterals.containsAll(line, literals));
+        }
+      }
+    }
+    assertEquals(Arrays.asList(" world"), Arrays.asList(RequiredLiterals.of(dicts.compileExpression("%{WORD:verb} world"))));
+  }
+
+  private void assertLiterals(String regex, String... expected) {
+    String[] literals = RequiredLiterals.of(Pattern.compile(regex));
+    assertEquals(regex, Arrays.asList(expected), Arrays.asList(literals));
+  }
+
+}
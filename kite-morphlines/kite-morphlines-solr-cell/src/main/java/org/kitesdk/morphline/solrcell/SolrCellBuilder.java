@@ -285,7 +285,7 @@ public final class SolrCellBuilder implements CommandBuilder {
     }
     
     private boolean hasAtLeastOneMimeType(Record record) {
-      if (!record.getFields().containsKey(Fields.ATTACHMENT_MIME_TYPE)) {
+      if (!record.containsKey(Fields.ATTACHMENT_MIME_TYPE)) {
         LOG.debug("Command failed because of missing MIME type for record: {}", record);
         return false;
       }  
@@ -103,7 +103,7 @@ public final class GenerateSolrSequenceKeyBuilder implements CommandBuilder {
     protected boolean doProcess(Record doc) {      
       long num = recordCounter++;
       // LOG.debug("record #{} id before sanitizing doc: {}", num, doc);
-      if (uniqueKeyName == null || (preserveExisting && doc.getFields().containsKey(uniqueKeyName))) {
+      if (uniqueKeyName == null || (preserveExisting && doc.containsKey(uniqueKeyName))) {
         ; // we must preserve the existing id
       } else {
         Object baseId = doc.getFirstValue(baseIdFieldName);
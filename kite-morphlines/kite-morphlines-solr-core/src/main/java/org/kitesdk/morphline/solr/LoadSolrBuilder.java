@@ -139,7 +139,7 @@ public final class LoadSolrBuilder implements CommandBuilder {
     }
     
     private SolrInputDocument convert(Record record) {
-      Map<String, Collection<Object>> map = record.getFields().asMap();
+      Map<String, Collection<Object>> map = record.getFieldsAsMap();
       SolrInputDocument doc = new SolrInputDocument(new HashMap(2 * map.size()));
       for (Map.Entry<String, Collection<Object>> entry : map.entrySet()) {
         String key = entry.getKey();
@@ -124,7 +124,7 @@ public final class DetectMimeTypeBuilder implements CommandBuilder {
     
     @Override
     protected boolean doProcess(Record record) {
-      if (preserveExisting && record.getFields().containsKey(Fields.ATTACHMENT_MIME_TYPE)) {
+      if (preserveExisting && record.containsKey(Fields.ATTACHMENT_MIME_TYPE)) {
         ; // we must preserve the existing MIME type
       } else {
         List attachments = record.get(Fields.ATTACHMENT_BODY);